@@ -1,5 +1,6 @@
 package com.kny.config;
 
+import com.kny.controller.MarketController;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +32,7 @@ public class CorsConfig {
                         .allowedOrigins(allowedOrigins.split(","))  // Split comma-separated string
                         .allowedMethods(allowedMethods.split(","))  // Split comma-separated string
                         .allowedHeaders("*")
+                        .exposedHeaders(MarketController.NEXT_CURSOR_HEADER)
                         .allowCredentials(allowCredentials)
                         .maxAge(maxAge);
             }
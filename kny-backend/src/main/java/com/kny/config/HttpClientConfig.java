@@ -0,0 +1,120 @@
+package com.kny.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP clients. Each upstream gets its own connection pool, which
+ * doubles as a bulkhead: when Google is slow it can hold at most its own
+ * connections, and callers waiting longer than pool-timeout fail instead of
+ * queueing. Connections are kept alive and reused; idle and expired ones are
+ * evicted in the background.
+ *
+ * Pool gauges appear as httpcomponents.httpclient.pool.* and request latency
+ * as http.client.requests, both tagged per upstream.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    // Places details and photo lookups
+    @Bean
+    public CloseableHttpClient googlePlacesHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${app.http.google-places.max-connections:20}") int maxConnections,
+            @Value("${app.http.google-places.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${app.http.google-places.read-timeout:5s}") Duration readTimeout,
+            @Value("${app.http.google-places.pool-timeout:1s}") Duration poolTimeout,
+            @Value("${app.http.keep-alive:30s}") Duration keepAlive) {
+        return pooledClient("google-places", meterRegistry, maxConnections, connectTimeout, readTimeout, poolTimeout, keepAlive);
+    }
+
+    // Open-Meteo forecasts
+    @Bean
+    public CloseableHttpClient weatherHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${app.http.open-meteo.max-connections:10}") int maxConnections,
+            @Value("${app.http.open-meteo.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${app.http.open-meteo.read-timeout:5s}") Duration readTimeout,
+            @Value("${app.http.open-meteo.pool-timeout:1s}") Duration poolTimeout,
+            @Value("${app.http.keep-alive:30s}") Duration keepAlive) {
+        return pooledClient("open-meteo", meterRegistry, maxConnections, connectTimeout, readTimeout, poolTimeout, keepAlive);
+    }
+
+    @Bean
+    public RestTemplate googlePlacesRestTemplate(RestTemplateBuilder builder, CloseableHttpClient googlePlacesHttpClient) {
+        return restTemplate(builder, googlePlacesHttpClient);
+    }
+
+    @Bean
+    public RestTemplate weatherRestTemplate(RestTemplateBuilder builder, CloseableHttpClient weatherHttpClient) {
+        return restTemplate(builder, weatherHttpClient);
+    }
+
+    private RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        // The builder carries Boot's observation customizer, which records http.client.requests
+        RestTemplate restTemplate = builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+        restTemplate.setObservationConvention(new PathOnlyObservationConvention());
+        return restTemplate;
+    }
+
+    private CloseableHttpClient pooledClient(String name, MeterRegistry meterRegistry, int maxConnections,
+                                             Duration connectTimeout, Duration readTimeout,
+                                             Duration poolTimeout, Duration keepAlive) {
+        // Each upstream is a single host, so the per-route limit is the pool size
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    // Query strings carry coordinates, place IDs and the API key, so they are kept out of the uri tag
+    static class PathOnlyObservationConvention extends DefaultClientRequestObservationConvention {
+
+        @Override
+        protected KeyValue uri(ClientRequestObservationContext context) {
+            KeyValue uri = super.uri(context);
+            int query = uri.getValue().indexOf('?');
+            return query < 0 ? uri : KeyValue.of(uri.getKey(), uri.getValue().substring(0, query));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.kny.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks app.logging.debug-sample-rate of requests (0 to 1) and marks them in
+ * the MDC for their whole run, so the prod logging profile can log those
+ * requests at DEBUG from start to finish while the rest stay at INFO.
+ */
+@Configuration
+public class LoggingConfig {
+
+    @Bean
+    public FilterRegistrationBean<DebugSamplingFilter> debugSamplingFilter(
+            @Value("${app.logging.debug-sample-rate:0}") double sampleRate) {
+        FilterRegistrationBean<DebugSamplingFilter> registration =
+                new FilterRegistrationBean<>(new DebugSamplingFilter(sampleRate));
+        // Ahead of security, so its debug output is sampled along with the request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    static class DebugSamplingFilter extends OncePerRequestFilter {
+
+        private final double sampleRate;
+
+        DebugSamplingFilter(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            MDC.put(SampledDebugTurboFilter.MDC_KEY, "true");
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                MDC.remove(SampledDebugTurboFilter.MDC_KEY);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.kny.config;
+
+import com.kny.service.LoginRateLimitedException;
+import com.kny.service.LoginRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies {@link LoginRateLimiter} to form login, ahead of the
+ * UsernamePasswordAuthenticationFilter that would look up the user and hash
+ * the password. /api/auth/login checks the limiter in AuthController.
+ */
+class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final String loginProcessingUrl;
+
+    LoginRateLimitFilter(LoginRateLimiter loginRateLimiter, String loginProcessingUrl) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.loginProcessingUrl = loginProcessingUrl;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !loginProcessingUrl.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try {
+            loginRateLimiter.acquire(request.getRemoteAddr(), request.getParameter("email"));
+        } catch (LoginRateLimitedException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
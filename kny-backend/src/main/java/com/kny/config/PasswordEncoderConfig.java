@@ -0,0 +1,66 @@
+package com.kny.config;
+
+import com.kny.util.WorkerThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password hashing. New hashes use app.security.password.algorithm at the
+ * configured cost and are stored with an {id} prefix; hashes from before
+ * the prefix existed are plain bcrypt and still match. On a successful login
+ * a hash made with another algorithm or a lower cost is replaced (see
+ * CustomUserDetailsService.updatePassword), so raising the cost takes effect
+ * for each user at their next sign-in.
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password.algorithm:bcrypt}") String algorithm,
+            @Value("${app.security.password.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${app.security.password.argon2.memory-kib:16384}") int argon2MemoryKib,
+            @Value("${app.security.password.argon2.iterations:2}") int argon2Iterations,
+            @Value("${app.security.password.hashing.threads:0}") int threads,
+            @Value("${app.security.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password.hashing.timeout:PT5S}") Duration timeout) {
+        PasswordEncoder encoder = delegatingEncoder(algorithm, bcryptStrength, argon2MemoryKib, argon2Iterations);
+
+        // Half the cores by default, leaving the rest for every other endpoint during a login burst
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                // CPU-bound work, so never virtual threads
+                WorkerThreads.factory("password-hash-", false));
+        executor.allowCoreThreadTimeOut(true);
+        return new OffloadingPasswordEncoder(encoder, executor, timeout, meterRegistry);
+    }
+
+    static DelegatingPasswordEncoder delegatingEncoder(String algorithm, int bcryptStrength,
+                                                       int argon2MemoryKib, int argon2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        // Salt and hash lengths and parallelism as in Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8
+        Argon2PasswordEncoder argon2 = new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, argon2Iterations);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, Map.of(
+                "bcrypt", bcrypt,
+                "argon2", argon2));
+        // Hashes stored before the {id} prefix was introduced
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+}
@@ -0,0 +1,15 @@
+package com.kny.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when the password-hashing pool is full or a hash waited too long
+ * for it. An AuthenticationServiceException, so form login treats it as a
+ * failed attempt; the JSON endpoints answer 503 with Retry-After.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.kny.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Lets DEBUG and TRACE through for loggers under loggerPrefix while the
+ * current request was picked for debug sampling (MDC key debugSample, set by
+ * LoggingConfig). Everything else falls back to the configured levels, so an
+ * unsampled request pays one MDC lookup per disabled debug call.
+ */
+public class SampledDebugTurboFilter extends TurboFilter {
+
+    public static final String MDC_KEY = "debugSample";
+
+    private String loggerPrefix = "com.kny";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+        if (!isStarted() || level == null || level.isGreaterOrEqual(Level.INFO)
+                || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return MDC.get(MDC_KEY) != null ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+}
@@ -1,7 +1,10 @@
 package com.kny.config;
 
+import com.kny.controller.MarketController;
 import com.kny.service.CustomOAuth2UserService;
 import com.kny.service.CustomUserDetailsService;
+import com.kny.service.JwtService;
+import com.kny.service.LoginRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,9 +14,13 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.HttpSessionRequestCache;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.security.SpringSessionBackedSessionRegistry;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -30,11 +37,21 @@ public class SecurityConfig {
     @Autowired
     private CustomOAuth2UserService customOAuth2UserService;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    // See PasswordEncoderConfig
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // Only present with app.auth.stateless=true; sessions are used otherwise
+    @Autowired(required = false)
+    private JwtService jwtService;
+
+    // Only present with app.session.store=jdbc|redis, see SessionStoreConfig
+    @Autowired(required = false)
+    private FindByIndexNameSessionRepository<? extends Session> sharedSessionRepository;
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -42,12 +59,19 @@ public class SecurityConfig {
     
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes a password on login when its algorithm or cost is out of date
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
+    private HttpSessionRequestCache requestCache() {
+        HttpSessionRequestCache requestCache = new HttpSessionRequestCache();
+        requestCache.setCreateSessionAllowed(false);
+        return requestCache;
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -55,16 +79,29 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             
             // Simplified session management
-            .sessionManagement(session -> session
-                .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
-                .maximumSessions(3) // Allow multiple sessions
-                .maxSessionsPreventsLogin(false)
-            )
+            .sessionManagement(session -> {
+                if (jwtService != null) {
+                    // Bearer tokens only; no node keeps login state
+                    session.sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+                } else {
+                    var concurrency = session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                        .maximumSessions(3) // Allow multiple sessions
+                        .maxSessionsPreventsLogin(false);
+                    if (sharedSessionRepository != null) {
+                        // Count sessions on every node, not just this one
+                        concurrency.sessionRegistry(new SpringSessionBackedSessionRegistry<>(sharedSessionRepository));
+                    }
+                }
+            })
             
+            // Both logins always redirect to the dashboard, so a saved request is never
+            // replayed; don't open a session just to hold one for an anonymous 401
+            .requestCache(cache -> cache.requestCache(requestCache()))
+
             .authorizeHttpRequests(authz -> authz
                 // Public endpoints
                 .requestMatchers("/", "/login", "/error", "/auth/login").permitAll()
-                .requestMatchers("/api/auth/register", "/api/auth/login").permitAll() 
+                .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll() 
                 .requestMatchers("/oauth2/**", "/login/oauth2/**").permitAll()
                 .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
                 
@@ -77,24 +114,32 @@ public class SecurityConfig {
             )
             
             // Form login for custom email/password
-            .formLogin(form -> form
-                .loginPage("/login")
-                .loginProcessingUrl("/auth/login-form")
-                .defaultSuccessUrl("http://localhost:3000/dashboard", true)
-                .failureUrl("http://localhost:3000/login?error=true")
-                .usernameParameter("email")
-                .passwordParameter("password")
-            )
+            .formLogin(form -> {
+                form
+                    .loginPage("/login")
+                    .loginProcessingUrl("/auth/login-form")
+                    .defaultSuccessUrl("http://localhost:3000/dashboard", true)
+                    .failureUrl("http://localhost:3000/login?error=true")
+                    .usernameParameter("email")
+                    .passwordParameter("password");
+                if (jwtService != null) {
+                    form.successHandler(new TokenLoginSuccessHandler(jwtService, "http://localhost:3000/dashboard"));
+                }
+            })
             
             // OAuth2 login for Google/Facebook
-            .oauth2Login(oauth2 -> oauth2
-                .loginPage("/login")
-                .defaultSuccessUrl("http://localhost:3000/dashboard", true)
-                .failureUrl("http://localhost:3000/login?error=oauth2_failed")
-                .userInfoEndpoint(userInfo -> userInfo
-                    .userService(customOAuth2UserService)
-                )
-            )
+            .oauth2Login(oauth2 -> {
+                oauth2
+                    .loginPage("/login")
+                    .defaultSuccessUrl("http://localhost:3000/dashboard", true)
+                    .failureUrl("http://localhost:3000/login?error=oauth2_failed")
+                    .userInfoEndpoint(userInfo -> userInfo
+                        .userService(customOAuth2UserService)
+                    );
+                if (jwtService != null) {
+                    oauth2.successHandler(new TokenLoginSuccessHandler(jwtService, "http://localhost:3000/dashboard"));
+                }
+            })
             
             // Logout
             .logout(logout -> logout
@@ -122,6 +167,12 @@ public class SecurityConfig {
                 })
             );
         
+        if (jwtService != null) {
+            http.addFilterBefore(new JwtAuthenticationFilter(jwtService), UsernamePasswordAuthenticationFilter.class);
+        }
+        http.addFilterBefore(new LoginRateLimitFilter(loginRateLimiter, "/auth/login-form"),
+                UsernamePasswordAuthenticationFilter.class);
+        
         return http.build();
     }
 
@@ -135,6 +186,7 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(MarketController.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
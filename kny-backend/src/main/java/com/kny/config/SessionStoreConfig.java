@@ -0,0 +1,351 @@
+package com.kny.config;
+
+import jakarta.servlet.DispatcherType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.init.PlatformPlaceholderDatabaseDriverResolver;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.FlushMode;
+import org.springframework.session.SaveMode;
+import org.springframework.session.Session;
+import org.springframework.session.config.annotation.web.http.SpringHttpSessionConfiguration;
+import org.springframework.session.data.redis.RedisIndexedSessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Where HttpSessions are kept, chosen by app.session.store. "memory" (the
+ * default) leaves them in Tomcat. "jdbc" stores them in the SPRING_SESSION
+ * tables of the application database and "redis" in the Redis server set by
+ * spring.data.redis.*; with either, any node can serve any logged-in request
+ * and SecurityConfig counts maximumSessions across all nodes. Both are
+ * wrapped in a {@link WriteBehindSessionRepository}, and Spring Security loads
+ * the session only for requests that need the login, so most requests cost
+ * one session read and no write.
+ *
+ * Spring Boot's own session auto-configuration is excluded in
+ * KnyBackendApplication, since it would switch to JDBC sessions as soon as
+ * spring-session-jdbc is on the classpath.
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStoreConfig.class);
+
+    private static final String SCHEMA_LOCATION = "classpath:org/springframework/session/jdbc/schema-@@platform@@.sql";
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+    @Import(SharedSessionConfiguration.class)
+    static class JdbcSessionStore {
+
+        @Bean
+        JdbcIndexedSessionRepository jdbcIndexedSessionRepository(
+                DataSource dataSource, PlatformTransactionManager transactionManager, ServerProperties serverProperties,
+                @Value("${app.session.jdbc.initialize-schema:true}") boolean initializeSchema) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            if (initializeSchema) {
+                initializeSchema(dataSource, jdbcTemplate);
+            }
+            JdbcIndexedSessionRepository repository =
+                    new JdbcIndexedSessionRepository(jdbcTemplate, new TransactionTemplate(transactionManager));
+            repository.setDefaultMaxInactiveInterval(serverProperties.getServlet().getSession().getTimeout());
+            repository.setFlushMode(FlushMode.ON_SAVE);
+            repository.setSaveMode(SaveMode.ON_SET_ATTRIBUTE);
+            // Replaced by JdbcSessionCleaner, which deletes in batches
+            repository.setCleanupCron(Scheduled.CRON_DISABLED);
+            return repository;
+        }
+
+        @Bean
+        @Primary
+        WriteBehindSessionRepository<?> sessionRepository(JdbcIndexedSessionRepository jdbcIndexedSessionRepository,
+                                                          DataSource dataSource) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            return wrap(jdbcIndexedSessionRepository, lastAccessTimes -> {
+                List<Object[]> rows = new ArrayList<>(lastAccessTimes.size());
+                lastAccessTimes.forEach((id, touchedAt) -> rows.add(
+                        new Object[]{touchedAt.toEpochMilli(), touchedAt.toEpochMilli(), id, touchedAt.toEpochMilli()}));
+                // One batched statement per flush; expiry moves by the same amount as last access,
+                // and neither ever moves backwards
+                jdbcTemplate.batchUpdate("UPDATE SPRING_SESSION SET EXPIRY_TIME = EXPIRY_TIME + (? - LAST_ACCESS_TIME), "
+                        + "LAST_ACCESS_TIME = ? WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ? AND MAX_INACTIVE_INTERVAL >= 0", rows);
+            });
+        }
+
+        @Bean
+        JdbcSessionCleaner jdbcSessionCleaner(DataSource dataSource, WriteBehindSessionRepository<?> sessionRepository,
+                                              @Value("${app.session.jdbc.cleanup-batch-size:500}") int batchSize) {
+            return new JdbcSessionCleaner(new NamedParameterJdbcTemplate(dataSource), sessionRepository, batchSize);
+        }
+
+        private void initializeSchema(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+            try {
+                jdbcTemplate.execute("SELECT 1 FROM SPRING_SESSION WHERE 1 = 0");
+            } catch (DataAccessException missing) {
+                List<String> locations = new PlatformPlaceholderDatabaseDriverResolver().resolveAll(dataSource, SCHEMA_LOCATION);
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+                locations.forEach(location -> populator.addScript(new DefaultResourceLoader().getResource(location)));
+                populator.execute(dataSource);
+                log.info("Created session tables from {}", locations);
+            }
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "redis")
+    @EnableConfigurationProperties(RedisProperties.class)
+    @Import(SharedSessionConfiguration.class)
+    static class RedisSessionStore {
+
+        // Redis auto-configuration is excluded so that it stays off unless this store is chosen
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory(RedisProperties redisProperties) {
+            RedisStandaloneConfiguration server =
+                    new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+            server.setDatabase(redisProperties.getDatabase());
+            server.setUsername(redisProperties.getUsername());
+            if (redisProperties.getPassword() != null) {
+                server.setPassword(redisProperties.getPassword());
+            }
+            return new LettuceConnectionFactory(server);
+        }
+
+        @Bean
+        RedisIndexedSessionRepository redisIndexedSessionRepository(RedisConnectionFactory connectionFactory,
+                                                                    ServerProperties serverProperties) {
+            RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+            redisTemplate.setKeySerializer(new StringRedisSerializer());
+            redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+            redisTemplate.setConnectionFactory(connectionFactory);
+            redisTemplate.afterPropertiesSet();
+
+            RedisIndexedSessionRepository repository = new RedisIndexedSessionRepository(redisTemplate);
+            repository.setDefaultMaxInactiveInterval(serverProperties.getServlet().getSession().getTimeout());
+            repository.setFlushMode(FlushMode.ON_SAVE);
+            repository.setSaveMode(SaveMode.ON_SET_ATTRIBUTE);
+            return repository;
+        }
+
+        @Bean
+        @Primary
+        WriteBehindSessionRepository<?> sessionRepository(RedisIndexedSessionRepository redisIndexedSessionRepository) {
+            return wrap(redisIndexedSessionRepository,
+                    new RedisLastAccessWriter(redisIndexedSessionRepository.getSessionRedisOperations()));
+        }
+    }
+
+    // What Spring Boot's session auto-configuration would otherwise set up. Imported by
+    // the stores above, but as a member class it is also picked up on its own, hence the condition
+    @Configuration
+    @ConditionalOnExpression("'${app.session.store:memory}' != 'memory'")
+    @Import(SpringHttpSessionConfiguration.class)
+    static class SharedSessionConfiguration {
+
+        @Bean
+        DefaultCookieSerializer cookieSerializer(ServerProperties serverProperties) {
+            var cookie = serverProperties.getServlet().getSession().getCookie();
+            DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+            if (cookie.getName() != null) {
+                serializer.setCookieName(cookie.getName());
+            }
+            if (cookie.getHttpOnly() != null) {
+                serializer.setUseHttpOnlyCookie(cookie.getHttpOnly());
+            }
+            if (cookie.getSecure() != null) {
+                serializer.setUseSecureCookie(cookie.getSecure());
+            }
+            if (cookie.getSameSite() != null) {
+                serializer.setSameSite(cookie.getSameSite().attributeValue());
+            }
+            return serializer;
+        }
+
+        @Bean
+        FilterRegistrationBean<SessionRepositoryFilter<?>> sessionRepositoryFilterRegistration(
+                SessionRepositoryFilter<?> filter) {
+            FilterRegistrationBean<SessionRepositoryFilter<?>> registration = new FilterRegistrationBean<>(filter);
+            registration.setDispatcherTypes(EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC, DispatcherType.ERROR));
+            registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER);
+            return registration;
+        }
+    }
+
+    private static <S extends Session> WriteBehindSessionRepository<S> wrap(
+            FindByIndexNameSessionRepository<S> repository, WriteBehindSessionRepository.LastAccessWriter writer) {
+        return new WriteBehindSessionRepository<>(repository, writer);
+    }
+
+    /**
+     * Writes last-access times to Redis in two pipelined round trips per
+     * flush, however many sessions it holds: one reading each session's stored
+     * last access and timeout, one updating the sessions that moved forward.
+     * The updates are the ones RedisIndexedSessionRepository makes when it
+     * saves a changed last access: the hash field, the hash and shadow key
+     * TTLs, and the per-minute expiration set its cleanup job walks. Key
+     * names follow the repository's default namespace.
+     */
+    static class RedisLastAccessWriter implements WriteBehindSessionRepository.LastAccessWriter {
+
+        private static final String NAMESPACE = RedisIndexedSessionRepository.DEFAULT_NAMESPACE + ":";
+        private static final String LAST_ACCESSED_TIME = "lastAccessedTime";
+        private static final String MAX_INACTIVE_INTERVAL = "maxInactiveInterval";
+        // The repository keeps a session's hash this long after its shadow key expires
+        private static final long HASH_GRACE_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+
+        private final RedisOperations<String, Object> redisOperations;
+
+        RedisLastAccessWriter(RedisOperations<String, Object> redisOperations) {
+            this.redisOperations = redisOperations;
+        }
+
+        @Override
+        public void write(Map<String, Instant> lastAccessTimes) {
+            List<String> ids = new ArrayList<>(lastAccessTimes.keySet());
+            List<Object> stored = pipelined(operations -> ids.forEach(id -> operations.opsForHash()
+                    .multiGet(sessionKey(id), List.of(LAST_ACCESSED_TIME, MAX_INACTIVE_INTERVAL))));
+            long now = System.currentTimeMillis();
+            pipelined(operations -> {
+                for (int i = 0; i < ids.size(); i++) {
+                    List<?> fields = (List<?>) stored.get(i);
+                    // Gone from Redis since the request
+                    if (!(fields.get(0) instanceof Long lastAccessed) || !(fields.get(1) instanceof Integer maxInactive)) {
+                        continue;
+                    }
+                    // Deleted (the repository leaves the hash behind with a zero timeout) or already expired
+                    if (maxInactive == 0 || (maxInactive > 0 && lastAccessed + maxInactive * 1000L <= now)) {
+                        continue;
+                    }
+                    String id = ids.get(i);
+                    Instant touchedAt = lastAccessTimes.get(id);
+                    // Another node may have written a later access since
+                    if (touchedAt.toEpochMilli() > lastAccessed) {
+                        touch(operations, id, lastAccessed, touchedAt, maxInactive);
+                    }
+                }
+            });
+        }
+
+        private void touch(RedisOperations<String, Object> operations, String id, long lastAccessed,
+                           Instant touchedAt, int maxInactive) {
+            operations.opsForHash().put(sessionKey(id), LAST_ACCESSED_TIME, touchedAt.toEpochMilli());
+            // A negative timeout never expires, so there are no TTLs to move
+            if (maxInactive < 0) {
+                return;
+            }
+            operations.expire(sessionKey(id), maxInactive + HASH_GRACE_SECONDS, TimeUnit.SECONDS);
+            operations.opsForValue().append(sessionKey("expires:" + id), "");
+            operations.expire(sessionKey("expires:" + id), maxInactive, TimeUnit.SECONDS);
+
+            long previousMinute = expirationMinute(Instant.ofEpochMilli(lastAccessed), maxInactive);
+            long nextMinute = expirationMinute(touchedAt, maxInactive);
+            if (previousMinute != nextMinute) {
+                operations.opsForSet().remove(expirationsKey(previousMinute), "expires:" + id);
+            }
+            operations.opsForSet().add(expirationsKey(nextMinute), "expires:" + id);
+            operations.expire(expirationsKey(nextMinute), maxInactive + HASH_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Object> pipelined(Consumer<RedisOperations<String, Object>> commands) {
+            return redisOperations.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    commands.accept((RedisOperations<String, Object>) operations);
+                    return null;
+                }
+            });
+        }
+
+        private static long expirationMinute(Instant lastAccessed, int maxInactive) {
+            return lastAccessed.plusSeconds(maxInactive).plus(1, ChronoUnit.MINUTES)
+                    .truncatedTo(ChronoUnit.MINUTES).toEpochMilli();
+        }
+
+        private static String sessionKey(String id) {
+            return NAMESPACE + "sessions:" + id;
+        }
+
+        private static String expirationsKey(long minute) {
+            return NAMESPACE + "expirations:" + minute;
+        }
+    }
+
+    /**
+     * Deletes expired JDBC sessions a batch at a time, instead of the single
+     * DELETE over the whole table that JdbcIndexedSessionRepository runs, so
+     * cleanup never holds locks on thousands of rows at once. Pending
+     * last-access times are flushed first, so active sessions are not removed.
+     */
+    static class JdbcSessionCleaner {
+
+        private final NamedParameterJdbcTemplate jdbcTemplate;
+        private final WriteBehindSessionRepository<?> sessionRepository;
+        private final int batchSize;
+
+        JdbcSessionCleaner(NamedParameterJdbcTemplate jdbcTemplate, WriteBehindSessionRepository<?> sessionRepository,
+                           int batchSize) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.sessionRepository = sessionRepository;
+            this.batchSize = batchSize;
+        }
+
+        @Scheduled(cron = "${app.session.jdbc.cleanup-cron:0 * * * * *}")
+        public void cleanUpExpiredSessions() {
+            sessionRepository.flush();
+            Map<String, Object> params = Map.of("now", Instant.now().toEpochMilli(), "batchSize", batchSize);
+            int deleted = 0;
+            List<String> expired;
+            do {
+                expired = jdbcTemplate.queryForList(
+                        "SELECT PRIMARY_ID FROM SPRING_SESSION WHERE EXPIRY_TIME < :now LIMIT :batchSize",
+                        params, String.class);
+                if (!expired.isEmpty()) {
+                    // Attributes go with them through ON DELETE CASCADE
+                    deleted += jdbcTemplate.update("DELETE FROM SPRING_SESSION WHERE PRIMARY_ID IN (:ids)",
+                            Map.of("ids", expired));
+                }
+            } while (expired.size() == batchSize);
+            if (deleted > 0) {
+                log.debug("Deleted {} expired sessions", deleted);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.kny.config;
+
+import com.kny.service.JwtService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Finishes a form or OAuth2 login in stateless mode by redirecting to the
+ * frontend with the tokens in the URL fragment, which browsers never send to
+ * a server. The session the OAuth2 redirect needed is dropped, so nothing
+ * about the login stays on this node.
+ */
+class TokenLoginSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final JwtService jwtService;
+    private final String redirectUrl;
+
+    TokenLoginSuccessHandler(JwtService jwtService, String redirectUrl) {
+        this.jwtService = jwtService;
+        this.redirectUrl = redirectUrl;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException {
+        String email = authentication.getPrincipal() instanceof OAuth2User oauth2User
+                ? oauth2User.getAttribute("email")
+                : authentication.getName();
+
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+
+        String fragment = "access_token=" + jwtService.createAccessToken(email)
+                + "&refresh_token=" + jwtService.createRefreshToken(email)
+                + "&token_type=Bearer&expires_in=" + jwtService.getAccessExpirationSeconds();
+        response.sendRedirect(UriComponentsBuilder.fromUriString(redirectUrl).fragment(fragment).toUriString());
+    }
+}
@@ -0,0 +1,91 @@
+package com.kny.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Only active when spring.threads.virtual.enabled is on and the JDK has
+ * virtual threads. Tomcat then starts a thread per request with no upper
+ * bound, so the 200-thread pool no longer limits how many requests hit the
+ * Hikari pool at once. Hundreds of requests parked on a handful of
+ * connections make Hikari's hand-off thrash, and throughput falls far below
+ * the platform-thread pool. This puts the bound back in front of the
+ * servlet chain: requests beyond max-concurrent-requests wait in arrival
+ * order, and get a 503 after acquire-timeout.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.threads.virtual.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${app.threads.virtual.acquire-timeout:PT30S}") Duration acquireTimeout) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeout);
+        Gauge.builder("http.server.requests.waiting", filter, ConcurrencyLimitFilter::getWaiting)
+                .description("Requests waiting for a slot under the virtual-thread concurrency limit")
+                .register(meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        // After the observation filter, so time spent waiting shows up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    static class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+        private final Semaphore permits;
+        private final Duration acquireTimeout;
+
+        ConcurrencyLimitFilter(int maxConcurrentRequests, Duration acquireTimeout) {
+            // Fair, so a request that has waited longest is served next
+            this.permits = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy, try again shortly");
+                return;
+            }
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                permits.release();
+            }
+        }
+
+        int getWaiting() {
+            return permits.getQueueLength();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.kny.config;
+
+import io.micrometer.common.KeyValue;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking counterparts of the clients in {@link HttpClientConfig}, used
+ * by the reactive endpoints. They read the same app.http.* limits, but each
+ * has its own Reactor Netty pool, so the blocking and reactive paths do not
+ * compete for connections. Requests are recorded as http.client.requests
+ * like the RestTemplate ones.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    public WebClient googlePlacesWebClient(
+            WebClient.Builder builder,
+            @Value("${app.http.google-places.max-connections:20}") int maxConnections,
+            @Value("${app.http.google-places.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${app.http.google-places.read-timeout:5s}") Duration readTimeout,
+            @Value("${app.http.google-places.pool-timeout:1s}") Duration poolTimeout,
+            @Value("${app.http.keep-alive:30s}") Duration keepAlive) {
+        return webClient(builder, "google-places", maxConnections, connectTimeout, readTimeout, poolTimeout, keepAlive);
+    }
+
+    @Bean
+    public WebClient weatherWebClient(
+            WebClient.Builder builder,
+            @Value("${app.http.open-meteo.max-connections:10}") int maxConnections,
+            @Value("${app.http.open-meteo.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${app.http.open-meteo.read-timeout:5s}") Duration readTimeout,
+            @Value("${app.http.open-meteo.pool-timeout:1s}") Duration poolTimeout,
+            @Value("${app.http.keep-alive:30s}") Duration keepAlive) {
+        return webClient(builder, "open-meteo", maxConnections, connectTimeout, readTimeout, poolTimeout, keepAlive);
+    }
+
+    private WebClient webClient(WebClient.Builder builder, String name, int maxConnections,
+                                Duration connectTimeout, Duration readTimeout,
+                                Duration poolTimeout, Duration keepAlive) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(poolTimeout)
+                .maxIdleTime(keepAlive)
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(keepAlive)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+
+        // The builder is a fresh prototype from Boot and already carries the observation registry
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .observationConvention(new PathOnlyObservationConvention())
+                .build();
+    }
+
+    // Same reasoning as HttpClientConfig: keep coordinates and keys out of the uri tag
+    static class PathOnlyObservationConvention extends DefaultClientRequestObservationConvention {
+
+        @Override
+        protected KeyValue uri(ClientRequestObservationContext context) {
+            KeyValue uri = super.uri(context);
+            int query = uri.getValue().indexOf('?');
+            return query < 0 ? uri : KeyValue.of(uri.getKey(), uri.getValue().substring(0, query));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.kny.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a shared session store so that reading a session does not write it.
+ * The session filter stamps every request's session with a new last-access
+ * time, which the stores persist on save: one UPDATE (or Redis write) per
+ * request. Here the stamp stays in memory and is written by {@link #flush()}
+ * in one batch per interval, coalescing all requests a session made in the
+ * meantime. Sessions whose attributes changed are written straight away, with
+ * their last-access time included.
+ *
+ * A session's stored expiry therefore lags by at most one flush interval; it
+ * is flushed before every expiry cleanup, and the interval should stay small
+ * next to server.servlet.session.timeout.
+ */
+class WriteBehindSessionRepository<S extends Session>
+        implements FindByIndexNameSessionRepository<WriteBehindSessionRepository.WriteBehindSession<S>> {
+
+    // Persists last-access times for sessions that have not changed otherwise
+    interface LastAccessWriter {
+        void write(Map<String, Instant> lastAccessTimes);
+    }
+
+    private final FindByIndexNameSessionRepository<S> delegate;
+    private final LastAccessWriter lastAccessWriter;
+    private final Map<String, Instant> pending = new ConcurrentHashMap<>();
+
+    WriteBehindSessionRepository(FindByIndexNameSessionRepository<S> delegate, LastAccessWriter lastAccessWriter) {
+        this.delegate = delegate;
+        this.lastAccessWriter = lastAccessWriter;
+    }
+
+    @Override
+    public WriteBehindSession<S> createSession() {
+        return new WriteBehindSession<>(delegate.createSession(), true);
+    }
+
+    @Override
+    public void save(WriteBehindSession<S> session) {
+        if (session.touchedAt != null) {
+            if (session.dirty) {
+                session.delegate.setLastAccessedTime(session.touchedAt);
+                pending.remove(session.getId());
+            } else {
+                pending.merge(session.getId(), session.touchedAt, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        // A no-op in the store unless the session is new or an attribute changed
+        delegate.save(session.delegate);
+    }
+
+    @Override
+    public WriteBehindSession<S> findById(String id) {
+        S session = delegate.findById(id);
+        if (session == null) {
+            return null;
+        }
+        WriteBehindSession<S> wrapped = new WriteBehindSession<>(session, false);
+        // This node may have seen the session more recently than the store
+        Instant touchedAt = pending.get(id);
+        if (touchedAt != null && touchedAt.isAfter(session.getLastAccessedTime())) {
+            wrapped.touchedAt = touchedAt;
+        }
+        return wrapped.isExpired() ? null : wrapped;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pending.remove(id);
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public Map<String, WriteBehindSession<S>> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, WriteBehindSession<S>> sessions = new LinkedHashMap<>();
+        delegate.findByIndexNameAndIndexValue(indexName, indexValue)
+                .forEach((id, session) -> sessions.put(id, new WriteBehindSession<>(session, false)));
+        return sessions;
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.last-access.flush-interval:PT30S}",
+               initialDelayString = "${app.session.last-access.flush-interval:PT30S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Instant> batch = new HashMap<>();
+        for (String id : Set.copyOf(pending.keySet())) {
+            Instant touchedAt = pending.remove(id);
+            if (touchedAt != null) {
+                batch.put(id, touchedAt);
+            }
+        }
+        if (!batch.isEmpty()) {
+            lastAccessWriter.write(batch);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    static final class WriteBehindSession<S extends Session> implements Session {
+
+        private final S delegate;
+        private Instant touchedAt;
+        private boolean dirty;
+
+        private WriteBehindSession(S delegate, boolean dirty) {
+            this.delegate = delegate;
+            this.dirty = dirty;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            dirty = true;
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            dirty = true;
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            dirty = true;
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            touchedAt = lastAccessedTime;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return touchedAt != null ? touchedAt : delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            dirty = true;
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            Duration maxInactiveInterval = getMaxInactiveInterval();
+            return !maxInactiveInterval.isNegative()
+                    && Instant.now().minus(maxInactiveInterval).isAfter(getLastAccessedTime());
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.kny.controller;
 
+import com.kny.config.PasswordHashingBusyException;
 import com.kny.dto.LoginRequest;
+import com.kny.dto.RefreshTokenRequest;
 import com.kny.dto.RegisterRequest;
 import com.kny.dto.UserResponse;
 import com.kny.model.User;
 import com.kny.service.AuthService;
+import com.kny.service.JwtService;
+import com.kny.service.LoginRateLimitedException;
+import com.kny.service.LoginRateLimiter;
 import com.kny.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -26,12 +34,21 @@ import java.util.HashMap;
 @Controller
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private AuthService authService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    // Only present with app.auth.stateless=true
+    @Autowired(required = false)
+    private JwtService jwtService;
+
     // Registration endpoint
     @PostMapping("/api/auth/register")
     @ResponseBody
@@ -53,6 +70,8 @@ public class AuthController {
             
             return ResponseEntity.ok(response);
             
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Registration failed: " + e.getMessage());
@@ -71,35 +90,52 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(error);
             }
             
+            // Before any user lookup or password hash
+            loginRateLimiter.acquire(request.getRemoteAddr(), loginRequest.getEmail());
+            
             // FIXED: Authenticate and persist the authentication
             UserResponse userResponse = authService.authenticate(loginRequest);
             
-            // CRITICAL: Create authentication token and save to security context
-            UsernamePasswordAuthenticationToken authToken = 
-                new UsernamePasswordAuthenticationToken(
-                    loginRequest.getEmail(), 
-                    null, 
-                    java.util.Collections.singletonList(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_USER"))
-                );
-            
-            // Set the authentication in SecurityContext
-            SecurityContextHolder.getContext().setAuthentication(authToken);
-            
-            // CRITICAL: Save authentication to session
-            HttpSession session = request.getSession(true);
-            session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+            Map<String, Object> response = new HashMap<>();
+            if (jwtService != null) {
+                // Stateless mode: the client sends the access token instead of a session cookie
+                userResponse.setToken(jwtService.createAccessToken(userResponse.getEmail()));
+                response.put("refreshToken", jwtService.createRefreshToken(userResponse.getEmail()));
+                response.put("tokenType", "Bearer");
+                response.put("expiresIn", jwtService.getAccessExpirationSeconds());
+            } else {
+                // CRITICAL: Create authentication token and save to security context
+                UsernamePasswordAuthenticationToken authToken = 
+                    new UsernamePasswordAuthenticationToken(
+                        loginRequest.getEmail(), 
+                        null, 
+                        java.util.Collections.singletonList(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_USER"))
+                    );
+                
+                // Set the authentication in SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                
+                // CRITICAL: Save authentication to session
+                HttpSession session = request.getSession(true);
+                session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+            }
             
-            System.out.println("Login successful - User: " + userResponse.getEmail()); // DEBUG
-            System.out.println("Authentication set in SecurityContext: " + authToken.isAuthenticated()); // DEBUG
-            System.out.println("Session ID: " + session.getId()); // DEBUG
+            log.debug("Login successful for {}", userResponse.getEmail());
             
             // Return consistent response format
-            Map<String, Object> response = new HashMap<>();
             response.put("user", userResponse);
             response.put("message", "Login successful");
             
             return ResponseEntity.ok(response);
             
+        } catch (LoginRateLimitedException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(error);
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Login failed: " + e.getMessage());
@@ -107,23 +143,59 @@ public class AuthController {
         }
     }
 
-    // FIXED: Enhanced getUser method with extensive debugging
+    // Stateless mode: trade a refresh token for a new access and refresh token pair
+    @PostMapping("/api/auth/refresh")
+    @ResponseBody
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest refreshRequest) {
+        Map<String, Object> error = new HashMap<>();
+        if (jwtService == null) {
+            error.put("message", "Token authentication is not enabled");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        try {
+            String email = jwtService.verifyRefreshToken(refreshRequest.getRefreshToken()).getSubject();
+            
+            // Refresh is the point where a deactivated account stops getting new access tokens
+            User user = userService.findProfileByEmail(email);
+            if (!Boolean.TRUE.equals(user.getIsActive())) {
+                error.put("message", "Account is disabled");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("accessToken", jwtService.createAccessToken(email));
+            response.put("refreshToken", jwtService.createRefreshToken(email));
+            response.put("tokenType", "Bearer");
+            response.put("expiresIn", jwtService.getAccessExpirationSeconds());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            // Bad signature, expired, wrong token type or a user that no longer exists
+            log.debug("Rejected refresh token: {}", e.getMessage());
+            error.put("message", "Invalid refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+
+    // The password-hashing pool is saturated; ask the client to come back shortly
+    private ResponseEntity<?> hashingBusy(PasswordHashingBusyException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @GetMapping("/api/auth/user")
     @ResponseBody
     public ResponseEntity<?> getUser(Authentication authentication, HttpServletRequest request) {
         try {
-            // DEBUG: Log authentication details
-            System.out.println("=== AUTH DEBUG ===");
-            System.out.println("Authentication object: " + authentication);
-            System.out.println("Is authenticated: " + (authentication != null ? authentication.isAuthenticated() : "null"));
-            System.out.println("Principal type: " + (authentication != null ? authentication.getPrincipal().getClass().getSimpleName() : "null"));
-            
             HttpSession session = request.getSession(false);
-            System.out.println("Session exists: " + (session != null));
-            if (session != null) {
-                System.out.println("Session ID: " + session.getId());
-                System.out.println("Session user: " + session.getAttribute("user"));
-                System.out.println("Session email: " + session.getAttribute("email"));
+            if (log.isDebugEnabled()) {
+                log.debug("Resolving current user: authenticated={}, principal={}, session={}",
+                        authentication != null && authentication.isAuthenticated(),
+                        authentication != null ? authentication.getPrincipal().getClass().getSimpleName() : null,
+                        session != null);
             }
             
             if (authentication != null && authentication.isAuthenticated()) {
@@ -137,28 +209,28 @@ public class AuthController {
                     userInfo.put("picture", oauth2User.getAttribute("picture"));
                     userInfo.put("type", "oauth2");
                     userInfo.put("provider", "google");
-                    System.out.println("Returning OAuth2 user: " + userInfo);
+                    log.debug("Returning OAuth2 user {}", userInfo.get("email"));
                     return ResponseEntity.ok(userInfo);
                 }
                 
                 // Check if it's custom login user (email/password)
                 else if (authentication.getPrincipal() instanceof UserDetails) {
                     UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-                    System.out.println("UserDetails found: " + userDetails.getUsername());
                     
                     try {
                         // Get full user details from database
-                        User user = userService.findByEmail(userDetails.getUsername());
+                        User user = userService.findProfileByEmail(userDetails.getUsername());
                         Map<String, Object> userInfo = new HashMap<>();
                         userInfo.put("id", user.getId());
                         userInfo.put("name", user.getName());
                         userInfo.put("email", user.getEmail());
                         userInfo.put("type", "custom");
                         userInfo.put("provider", "email");
-                        System.out.println("Returning custom user: " + userInfo);
+                        log.debug("Returning custom user {}", user.getId());
                         return ResponseEntity.ok(userInfo);
                     } catch (Exception e) {
-                        System.out.println("Error getting user from database: " + e.getMessage());
+                        log.warn("Could not load user {} from the database, returning basic info: {}",
+                                userDetails.getUsername(), e.getMessage());
                         // Fallback to basic user info
                         Map<String, Object> userInfo = new HashMap<>();
                         userInfo.put("email", userDetails.getUsername());
@@ -171,14 +243,10 @@ public class AuthController {
                 
                 // ENHANCED: Check session for API login (manual session management)
                 else {
-                    System.out.println("Checking session for manual login...");
                     if (session != null) {
                         UserResponse user = (UserResponse) session.getAttribute("user");
                         String email = (String) session.getAttribute("email");
                         
-                        System.out.println("Session user: " + user);
-                        System.out.println("Session email: " + email);
-                        
                         if (user != null) {
                             Map<String, Object> userInfo = new HashMap<>();
                             userInfo.put("id", user.getId());
@@ -186,30 +254,30 @@ public class AuthController {
                             userInfo.put("email", user.getEmail());
                             userInfo.put("type", "custom");
                             userInfo.put("provider", "email");
-                            System.out.println("Returning session user: " + userInfo);
+                            log.debug("Returning session user {}", user.getId());
                             return ResponseEntity.ok(userInfo);
                         }
                         
                         // If we have email in session but no user object, try to get user from DB
                         if (email != null) {
                             try {
-                                User dbUser = userService.findByEmail(email);
+                                User dbUser = userService.findProfileByEmail(email);
                                 Map<String, Object> userInfo = new HashMap<>();
                                 userInfo.put("id", dbUser.getId());
                                 userInfo.put("name", dbUser.getName());
                                 userInfo.put("email", dbUser.getEmail());
                                 userInfo.put("type", "custom");
                                 userInfo.put("provider", "email");
-                                System.out.println("Returning DB user from session email: " + userInfo);
+                                log.debug("Returning user {} from session email", dbUser.getId());
                                 return ResponseEntity.ok(userInfo);
                             } catch (Exception e) {
-                                System.out.println("Error getting user from DB using session email: " + e.getMessage());
+                                log.warn("Could not load user for session email {}: {}", email, e.getMessage());
                             }
                         }
                     }
                     
                     // Fallback for other authentication types
-                    System.out.println("Using fallback authentication: " + authentication.getName());
+                    log.debug("Using fallback authentication for {}", authentication.getName());
                     Map<String, Object> userInfo = new HashMap<>();
                     userInfo.put("email", authentication.getName());
                     userInfo.put("name", authentication.getName());
@@ -218,14 +286,13 @@ public class AuthController {
                 }
             }
             
-            System.out.println("No valid authentication found");
+            log.debug("No valid authentication found");
             Map<String, String> error = new HashMap<>();
             error.put("message", "Not authenticated");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
             
         } catch (Exception e) {
-            System.out.println("Exception in getUser: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Failed to resolve current user", e);
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error getting user: " + e.getMessage());
             return ResponseEntity.badRequest().body(error);
@@ -1,11 +1,18 @@
 package com.kny.controller;
 
+import com.kny.dto.MarketPage;
+import com.kny.dto.MarketPageRequest;
 import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketSuggestion;
 import com.kny.model.Market;
+import com.kny.repository.CrowdPeriod;
+import com.kny.repository.MarketFilter;
 import com.kny.service.MarketService;
+import com.kny.service.ReactiveMarketService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,10 +26,17 @@ public class MarketController {
     @Autowired
     private MarketService marketService;
     
+    @Autowired
+    private ReactiveMarketService reactiveMarketService;
+    
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    private static final int MAX_CLOSEST_LIMIT = 50;
+    private static final int MAX_SUGGEST_LIMIT = 20;
+    
     @GetMapping
-    public ResponseEntity<List<MarketResponse>> getAllMarkets() {
-        List<MarketResponse> markets = marketService.getAllMarkets();
-        return ResponseEntity.ok(markets);
+    public ResponseEntity<List<MarketResponse>> getAllMarkets(MarketPageRequest pageRequest) {
+        return toPageResponse(marketService.getMarkets(MarketFilter.all(), pageRequest));
     }
     
     @GetMapping("/{id}")
@@ -31,52 +45,94 @@ public class MarketController {
         return market.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
     
+    // Same market as /{id}, but photos and weather are fetched without holding the request thread
+    @GetMapping("/reactive/{id}")
+    public Mono<ResponseEntity<MarketResponse>> getMarketByIdReactive(@PathVariable Long id) {
+        return reactiveMarketService.getMarketById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    // q searches every text field; name and specialty narrow to those fields and can be combined
     @GetMapping("/search")
     public ResponseEntity<List<MarketResponse>> searchMarkets(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String name,
-            @RequestParam(required = false) String specialty) {
+            @RequestParam(required = false) String specialty,
+            MarketPageRequest pageRequest) {
         
-        List<MarketResponse> markets;
-        if (name != null && !name.trim().isEmpty()) {
-            markets = marketService.getMarketsByName(name);
-        } else if (specialty != null && !specialty.trim().isEmpty()) {
-            markets = marketService.getMarketsBySpecialty(specialty);
-        } else {
-            markets = marketService.getAllMarkets();
-        }
-        return ResponseEntity.ok(markets);
+        return toPageResponse(marketService.searchMarkets(q, name, specialty, pageRequest));
+    }
+    
+    // Typeahead for the search box: id, name and a short snippet only
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MarketSuggestion>> suggestMarkets(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_SUGGEST_LIMIT));
+        return ResponseEntity.ok(marketService.suggestMarkets(q, cappedLimit));
     }
     
     @GetMapping("/nearby")
     public ResponseEntity<List<MarketResponse>> getNearbyMarkets(
             @RequestParam BigDecimal latitude,
             @RequestParam BigDecimal longitude,
-            @RequestParam(defaultValue = "10.0") double radius) {
+            @RequestParam(defaultValue = "10.0") double radius,
+            MarketPageRequest pageRequest) {
+        
+        return toPageResponse(marketService.getMarketsWithinRadius(latitude, longitude, radius, pageRequest));
+    }
+    
+    @GetMapping("/closest")
+    public ResponseEntity<List<MarketResponse>> getClosestMarkets(
+            @RequestParam BigDecimal latitude,
+            @RequestParam BigDecimal longitude,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) String fields) {
         
-        List<MarketResponse> markets = marketService.getMarketsWithinRadius(latitude, longitude, radius);
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_CLOSEST_LIMIT));
+        List<MarketResponse> markets = marketService.getClosestMarkets(latitude, longitude, cappedLimit, fields);
         return ResponseEntity.ok(markets);
     }
     
     @GetMapping("/covered")
-    public ResponseEntity<List<MarketResponse>> getCoveredMarkets() {
-        List<MarketResponse> markets = marketService.getCoveredMarkets();
-        return ResponseEntity.ok(markets);
+    public ResponseEntity<List<MarketResponse>> getCoveredMarkets(MarketPageRequest pageRequest) {
+        return toPageResponse(marketService.getMarkets(MarketFilter.covered(), pageRequest));
     }
     
     @GetMapping("/crowd-level")
     public ResponseEntity<List<MarketResponse>> getMarketsByCrowdLevel(
             @RequestParam String timeOfDay,
-            @RequestParam String crowdLevel) {
+            @RequestParam String crowdLevel,
+            MarketPageRequest pageRequest) {
         
+        Market.CrowdLevel level;
         try {
-            Market.CrowdLevel level = Market.CrowdLevel.valueOf(crowdLevel.toUpperCase());
-            List<MarketResponse> markets = marketService.getMarketsByCrowdLevel(timeOfDay, level);
-            return ResponseEntity.ok(markets);
+            level = Market.CrowdLevel.valueOf(crowdLevel.toUpperCase());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
+        MarketFilter filter = MarketFilter.crowdLevel(CrowdPeriod.fromTimeOfDay(timeOfDay), level);
+        return toPageResponse(marketService.getMarkets(filter, pageRequest));
     }
     
+    // Lists stay plain JSON arrays; the next page cursor travels in a header
+    private ResponseEntity<List<MarketResponse>> toPageResponse(MarketPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+    
+    // Bad sort, cursor or fields parameters
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidParameter(IllegalArgumentException e) {
+        Map<String, String> error = new java.util.HashMap<>();
+        error.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
     
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getMarketStatistics() {
@@ -22,7 +22,7 @@ public class UserController {
         try {
             if (authentication != null && authentication.isAuthenticated()) {
                 String email = authentication.getName();
-                User user = userService.findByEmail(email);
+                User user = userService.findProfileByEmail(email);
                 model.addAttribute("user", user);
                 return "profile";
             }
@@ -54,7 +54,7 @@ public class UserController {
         try {
             if (authentication != null && authentication.isAuthenticated()) {
                 String email = authentication.getName();
-                User user = userService.findByEmail(email);
+                User user = userService.findProfileByEmail(email);
                 return ResponseEntity.ok(user);
             }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -1,11 +1,13 @@
 package com.kny.controller;
 
+import com.kny.service.ReactiveWeatherService;
 import com.kny.service.WeatherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @Controller
 @RequestMapping("/weather")
@@ -14,6 +16,9 @@ public class WeatherController {
     @Autowired
     private WeatherService weatherService;
 
+    @Autowired
+    private ReactiveWeatherService reactiveWeatherService;
+
     @GetMapping
     public String weatherPage(Model model) {
         try {
@@ -47,4 +52,15 @@ public class WeatherController {
             return ResponseEntity.badRequest().body("Weather failed: " + e.getMessage());
         }
     }
+
+    // WebClient-backed variant of /api/location; the servlet thread is released while Open-Meteo answers
+    @GetMapping("/api/reactive/location")
+    @ResponseBody
+    public Mono<ResponseEntity<?>> getWeatherForLocationReactive(
+            @RequestParam double lat,
+            @RequestParam double lon) {
+        return reactiveWeatherService.getWeather(lat, lon)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(ResponseEntity.badRequest().body("Weather failed: " + e.getMessage())));
+    }
 }
\ No newline at end of file
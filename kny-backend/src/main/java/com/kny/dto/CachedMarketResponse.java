@@ -0,0 +1,54 @@
+package com.kny.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * MarketResponse whose stored fields were serialized once when it was cached.
+ * Writing it copies those bytes and only runs Jackson for the per-request
+ * fields (photos, isOpen, currentCrowdLevel, distanceKm, weather). Only used
+ * when the caller asked for every field, since the cached JSON cannot be
+ * projected.
+ */
+public class CachedMarketResponse extends MarketResponse implements JsonSerializable {
+    
+    // Stored fields except id, as ",\"name\":...,\"website\":..." (empty when there are none)
+    private final SerializableString storedFieldsJson;
+    
+    public CachedMarketResponse(MarketResponse base, SerializableString storedFieldsJson) {
+        super(base);
+        this.storedFieldsJson = storedFieldsJson;
+    }
+    
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject(this);
+        // Written through the generator so it tracks that the object already has a field
+        gen.writeNumberField("id", getId());
+        gen.writeRaw(storedFieldsJson);
+        writeIfPresent(gen, serializers, "photos", getPhotos());
+        writeIfPresent(gen, serializers, "isOpen", getIsOpen());
+        writeIfPresent(gen, serializers, "currentCrowdLevel", getCurrentCrowdLevel());
+        writeIfPresent(gen, serializers, "distanceKm", getDistanceKm());
+        writeIfPresent(gen, serializers, "weather", getWeather());
+        gen.writeEndObject();
+    }
+    
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+    
+    private void writeIfPresent(JsonGenerator gen, SerializerProvider serializers, String name, Object value)
+            throws IOException {
+        if (value != null) {
+            serializers.defaultSerializeField(name, value, gen);
+        }
+    }
+}
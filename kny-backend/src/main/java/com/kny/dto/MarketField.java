@@ -0,0 +1,127 @@
+package com.kny.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Fields that can be requested with ?fields= and the Market attributes each one needs
+public enum MarketField {
+    ID("id", "id"),
+    GOOGLE_PLACE_ID("googlePlaceId", "googlePlaceId"),
+    NAME("name", "name"),
+    ADDRESS("address", "address"),
+    LATITUDE("latitude", "latitude"),
+    LONGITUDE("longitude", "longitude"),
+    OPENING_TIME("openingTime", "openingTime"),
+    CLOSING_TIME("closingTime", "closingTime"),
+    DESCRIPTION("description", "description"),
+    SPECIALTIES("specialties", "specialties"),
+    HIGHLIGHTS("highlights", "highlights"),
+    IS_COVERED("isCovered", "isCovered"),
+    CROWD_LEVEL_MORNING("crowdLevelMorning", "crowdLevelMorning"),
+    CROWD_LEVEL_AFTERNOON("crowdLevelAfternoon", "crowdLevelAfternoon"),
+    CROWD_LEVEL_EVENING("crowdLevelEvening", "crowdLevelEvening"),
+    DATA_SOURCE("dataSource", "dataSource"),
+    PHONE_NUMBER("phoneNumber", "phoneNumber"),
+    WEBSITE("website", "website"),
+    PHOTOS("photos", "googlePlaceId"),
+    IS_OPEN("isOpen", "openingTime", "closingTime"),
+    CURRENT_CROWD_LEVEL("currentCrowdLevel", "crowdLevelMorning", "crowdLevelAfternoon", "crowdLevelEvening"),
+    DISTANCE_KM("distanceKm", "latitude", "longitude"),
+    WEATHER("weather", "latitude", "longitude");
+
+    // Everything needed for a market card, without the long TEXT columns
+    private static final Set<MarketField> SUMMARY = Collections.unmodifiableSet(EnumSet.of(
+            ID, NAME, ADDRESS, LATITUDE, LONGITUDE, OPENING_TIME, CLOSING_TIME, IS_COVERED,
+            DATA_SOURCE, PHOTOS, IS_OPEN, CURRENT_CROWD_LEVEL, DISTANCE_KM));
+
+    private final String jsonName;
+    private final List<String> attributes;
+
+    MarketField(String jsonName, String... attributes) {
+        this.jsonName = jsonName;
+        this.attributes = Arrays.asList(attributes);
+    }
+
+    public String getJsonName() { return jsonName; }
+
+    public List<String> getAttributes() { return attributes; }
+
+    // Parse a comma separated list; null or blank means every field
+    public static Set<MarketField> parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return EnumSet.allOf(MarketField.class);
+        }
+        Set<MarketField> parsed = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.equalsIgnoreCase("summary")) {
+                parsed.addAll(SUMMARY);
+                continue;
+            }
+            parsed.add(fromJsonName(trimmed));
+        }
+        return parsed;
+    }
+
+    // Market attributes that must be read to produce the given fields
+    public static Set<String> attributesFor(Set<MarketField> fields) {
+        Set<String> attributes = new LinkedHashSet<>();
+        for (MarketField field : fields) {
+            attributes.addAll(field.attributes);
+        }
+        return attributes;
+    }
+
+    // Clear every field of the response that was not requested
+    public static void retainOnly(MarketResponse response, Set<MarketField> fields) {
+        for (MarketField field : values()) {
+            if (!fields.contains(field)) {
+                field.clear(response);
+            }
+        }
+    }
+
+    private void clear(MarketResponse response) {
+        switch (this) {
+            case ID: response.setId(null); break;
+            case GOOGLE_PLACE_ID: response.setGooglePlaceId(null); break;
+            case NAME: response.setName(null); break;
+            case ADDRESS: response.setAddress(null); break;
+            case LATITUDE: response.setLatitude(null); break;
+            case LONGITUDE: response.setLongitude(null); break;
+            case OPENING_TIME: response.setOpeningTime(null); break;
+            case CLOSING_TIME: response.setClosingTime(null); break;
+            case DESCRIPTION: response.setDescription(null); break;
+            case SPECIALTIES: response.setSpecialties(null); break;
+            case HIGHLIGHTS: response.setHighlights(null); break;
+            case IS_COVERED: response.setIsCovered(null); break;
+            case CROWD_LEVEL_MORNING: response.setCrowdLevelMorning(null); break;
+            case CROWD_LEVEL_AFTERNOON: response.setCrowdLevelAfternoon(null); break;
+            case CROWD_LEVEL_EVENING: response.setCrowdLevelEvening(null); break;
+            case DATA_SOURCE: response.setDataSource(null); break;
+            case PHONE_NUMBER: response.setPhoneNumber(null); break;
+            case WEBSITE: response.setWebsite(null); break;
+            case PHOTOS: response.setPhotos(null); break;
+            case IS_OPEN: response.setIsOpen(null); break;
+            case CURRENT_CROWD_LEVEL: response.setCurrentCrowdLevel(null); break;
+            case DISTANCE_KM: response.setDistanceKm(null); break;
+            case WEATHER: response.setWeather(null); break;
+        }
+    }
+
+    private static MarketField fromJsonName(String name) {
+        for (MarketField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name);
+    }
+}
@@ -0,0 +1,18 @@
+package com.kny.dto;
+
+import java.util.List;
+
+// One page of markets plus the cursor for the next page (null on the last page)
+public class MarketPage {
+    private final List<MarketResponse> items;
+    private final String nextCursor;
+    
+    public MarketPage(List<MarketResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<MarketResponse> getItems() { return items; }
+    
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,31 @@
+package com.kny.dto;
+
+// Paging, sorting and projection parameters shared by the market list endpoints
+public class MarketPageRequest {
+    private Integer size;
+    private String cursor;
+    private String sort;
+    private String fields;
+    
+    public MarketPageRequest() {}
+    
+    public MarketPageRequest(Integer size, String cursor, String sort, String fields) {
+        this.size = size;
+        this.cursor = cursor;
+        this.sort = sort;
+        this.fields = fields;
+    }
+    
+    // Getters and Setters
+    public Integer getSize() { return size; }
+    public void setSize(Integer size) { this.size = size; }
+    
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+    
+    public String getFields() { return fields; }
+    public void setFields(String fields) { this.fields = fields; }
+}
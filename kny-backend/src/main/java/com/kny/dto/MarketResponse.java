@@ -27,9 +27,38 @@ public class MarketResponse {
     private List<MarketPhotoResponse> photos;
     private Boolean isOpen;
     private String currentCrowdLevel;
+    private Double distanceKm;
+    private MarketWeatherResponse weather;
     
     public MarketResponse() {}
     
+    // Field-by-field copy, used to hand out cached responses
+    public MarketResponse(MarketResponse other) {
+        this.id = other.id;
+        this.googlePlaceId = other.googlePlaceId;
+        this.name = other.name;
+        this.address = other.address;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.openingTime = other.openingTime;
+        this.closingTime = other.closingTime;
+        this.description = other.description;
+        this.specialties = other.specialties;
+        this.highlights = other.highlights;
+        this.isCovered = other.isCovered;
+        this.crowdLevelMorning = other.crowdLevelMorning;
+        this.crowdLevelAfternoon = other.crowdLevelAfternoon;
+        this.crowdLevelEvening = other.crowdLevelEvening;
+        this.dataSource = other.dataSource;
+        this.phoneNumber = other.phoneNumber;
+        this.website = other.website;
+        this.photos = other.photos;
+        this.isOpen = other.isOpen;
+        this.currentCrowdLevel = other.currentCrowdLevel;
+        this.distanceKm = other.distanceKm;
+        this.weather = other.weather;
+    }
+    
     public MarketResponse(Market market) {
         this.id = market.getId();
         this.googlePlaceId = market.getGooglePlaceId();
@@ -114,4 +143,12 @@ public class MarketResponse {
     
     public String getCurrentCrowdLevel() { return currentCrowdLevel; }
     public void setCurrentCrowdLevel(String currentCrowdLevel) { this.currentCrowdLevel = currentCrowdLevel; }
+    
+    // Only set on nearby searches
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
+    
+    // Null until the market's grid cell has been prefetched
+    public MarketWeatherResponse getWeather() { return weather; }
+    public void setWeather(MarketWeatherResponse weather) { this.weather = weather; }
 }
\ No newline at end of file
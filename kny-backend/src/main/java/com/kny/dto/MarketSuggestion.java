@@ -0,0 +1,26 @@
+package com.kny.dto;
+
+// Lightweight typeahead entry; snippet is the matched specialty or a short specialty list
+public class MarketSuggestion {
+    private Long id;
+    private String name;
+    private String snippet;
+    
+    public MarketSuggestion() {}
+    
+    public MarketSuggestion(Long id, String name, String snippet) {
+        this.id = id;
+        this.name = name;
+        this.snippet = snippet;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+}
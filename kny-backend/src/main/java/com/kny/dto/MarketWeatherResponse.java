@@ -0,0 +1,37 @@
+package com.kny.dto;
+
+// Current conditions at a market, taken from the prefetched weather cache
+public class MarketWeatherResponse {
+    private Double currentTemp;
+    private Integer humidity;
+    private String condition;
+    private Integer rainChance;
+    private String time;
+    
+    public MarketWeatherResponse() {}
+    
+    public MarketWeatherResponse(Double currentTemp, Integer humidity, String condition, Integer rainChance, String time) {
+        this.currentTemp = currentTemp;
+        this.humidity = humidity;
+        this.condition = condition;
+        this.rainChance = rainChance;
+        this.time = time;
+    }
+    
+    // Getters and Setters
+    public Double getCurrentTemp() { return currentTemp; }
+    public void setCurrentTemp(Double currentTemp) { this.currentTemp = currentTemp; }
+    
+    public Integer getHumidity() { return humidity; }
+    public void setHumidity(Integer humidity) { this.humidity = humidity; }
+    
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+    
+    // Today's maximum precipitation probability
+    public Integer getRainChance() { return rainChance; }
+    public void setRainChance(Integer rainChance) { this.rainChance = rainChance; }
+    
+    public String getTime() { return time; }
+    public void setTime(String time) { this.time = time; }
+}
@@ -0,0 +1,22 @@
+package com.kny.dto;
+
+public class RefreshTokenRequest {
+    private String refreshToken;
+    
+    // Default constructor
+    public RefreshTokenRequest() {}
+    
+    // Constructor
+    public RefreshTokenRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    // Getters and Setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,19 @@
+package com.kny.event;
+
+import com.kny.model.Market;
+
+// Published after a market row is inserted, updated or deleted
+public class MarketChangedEvent {
+    
+    private final Market market;
+    private final boolean deleted;
+    
+    public MarketChangedEvent(Market market, boolean deleted) {
+        this.market = market;
+        this.deleted = deleted;
+    }
+    
+    public Market getMarket() { return market; }
+    
+    public boolean isDeleted() { return deleted; }
+}
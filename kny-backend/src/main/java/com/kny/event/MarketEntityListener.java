@@ -0,0 +1,38 @@
+package com.kny.event;
+
+import com.kny.model.Market;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener that turns market writes into {@link MarketChangedEvent}s so
+ * in-memory structures built from the markets table can update themselves.
+ */
+@Component
+public class MarketEntityListener {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Market market) {
+        publish(new MarketChangedEvent(market, false));
+    }
+    
+    @PostRemove
+    public void onRemoved(Market market) {
+        publish(new MarketChangedEvent(market, true));
+    }
+    
+    private void publish(MarketChangedEvent event) {
+        // Null when Hibernate instantiates the listener outside a Spring context
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.kny.event;
+
+import com.kny.model.User;
+
+// Published after a user row is inserted, updated or deleted
+public class UserChangedEvent {
+    
+    private final User user;
+    private final boolean deleted;
+    
+    public UserChangedEvent(User user, boolean deleted) {
+        this.user = user;
+        this.deleted = deleted;
+    }
+    
+    public User getUser() { return user; }
+    
+    public boolean isDeleted() { return deleted; }
+}
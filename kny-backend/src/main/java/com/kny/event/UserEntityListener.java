@@ -0,0 +1,38 @@
+package com.kny.event;
+
+import com.kny.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener that turns user writes into {@link UserChangedEvent}s so
+ * caches of user rows drop their copies, whichever service made the change.
+ */
+@Component
+public class UserEntityListener {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSaved(User user) {
+        publish(new UserChangedEvent(user, false));
+    }
+    
+    @PostRemove
+    public void onRemoved(User user) {
+        publish(new UserChangedEvent(user, true));
+    }
+    
+    private void publish(UserChangedEvent event) {
+        // Null when Hibernate instantiates the listener outside a Spring context
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package com.kny.model;
 
+import com.kny.event.MarketEntityListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "markets")
+@EntityListeners(MarketEntityListener.class)
+@Table(name = "markets", indexes = {
+    @Index(name = "idx_markets_lat_lon", columnList = "latitude, longitude"),
+    @Index(name = "idx_markets_last_google_sync", columnList = "last_google_sync, id"),
+    @Index(name = "idx_markets_name", columnList = "name, id"),
+    @Index(name = "idx_markets_is_covered", columnList = "is_covered"),
+    @Index(name = "idx_markets_crowd_morning", columnList = "crowd_level_morning"),
+    @Index(name = "idx_markets_crowd_afternoon", columnList = "crowd_level_afternoon"),
+    @Index(name = "idx_markets_crowd_evening", columnList = "crowd_level_evening")
+})
 public class Market {
     
     @Id
@@ -0,0 +1,81 @@
+package com.kny.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+// Outcome of the latest Google sync attempt for a market, kept so failures back off across restarts
+@Entity
+@Table(name = "market_sync_state", indexes = {
+    @Index(name = "idx_market_sync_state_next_attempt", columnList = "next_attempt_at")
+})
+public class MarketSyncState implements Persistable<Long> {
+
+    @Id
+    @Column(name = "market_id")
+    private Long marketId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // Failures in a row; reset by a successful sync
+    @Column(name = "consecutive_failures", nullable = false)
+    private Integer consecutiveFailures = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "last_attempt_at", nullable = false)
+    private LocalDateTime lastAttemptAt;
+
+    // The scheduled sync leaves the market alone until then
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // Lets saveAll insert new rows without a SELECT first, since the ID is assigned
+    @Transient
+    private boolean isNew;
+
+    public enum Status {
+        SYNCED, NOT_FOUND, FAILED
+    }
+
+    public MarketSyncState() {}
+
+    public MarketSyncState(Long marketId) {
+        this.marketId = marketId;
+        this.isNew = true;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public Long getId() { return marketId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters and Setters
+    public Long getMarketId() { return marketId; }
+    public void setMarketId(Long marketId) { this.marketId = marketId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Integer getConsecutiveFailures() { return consecutiveFailures; }
+    public void setConsecutiveFailures(Integer consecutiveFailures) { this.consecutiveFailures = consecutiveFailures; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getLastAttemptAt() { return lastAttemptAt; }
+    public void setLastAttemptAt(LocalDateTime lastAttemptAt) { this.lastAttemptAt = lastAttemptAt; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
@@ -0,0 +1,53 @@
+package com.kny.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Persisted copy of the photo-reference cache so restarts do not refetch every place
+@Entity
+@Table(name = "place_photo_cache")
+public class PlacePhotoCacheEntry {
+    
+    @Id
+    @Column(name = "cache_key", length = 300)
+    private String cacheKey;
+    
+    @Column(name = "place_id", nullable = false, length = 255)
+    private String placeId;
+    
+    @Column(name = "max_photos", nullable = false)
+    private Integer maxPhotos;
+    
+    // Newline separated photo references, empty when the place has no photos
+    @Column(name = "photo_references", columnDefinition = "TEXT")
+    private String photoReferences;
+    
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+    
+    public PlacePhotoCacheEntry() {}
+    
+    public PlacePhotoCacheEntry(String cacheKey, String placeId, Integer maxPhotos, String photoReferences, LocalDateTime fetchedAt) {
+        this.cacheKey = cacheKey;
+        this.placeId = placeId;
+        this.maxPhotos = maxPhotos;
+        this.photoReferences = photoReferences;
+        this.fetchedAt = fetchedAt;
+    }
+    
+    // Getters and Setters
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+    
+    public String getPlaceId() { return placeId; }
+    public void setPlaceId(String placeId) { this.placeId = placeId; }
+    
+    public Integer getMaxPhotos() { return maxPhotos; }
+    public void setMaxPhotos(Integer maxPhotos) { this.maxPhotos = maxPhotos; }
+    
+    public String getPhotoReferences() { return photoReferences; }
+    public void setPhotoReferences(String photoReferences) { this.photoReferences = photoReferences; }
+    
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(LocalDateTime fetchedAt) { this.fetchedAt = fetchedAt; }
+}
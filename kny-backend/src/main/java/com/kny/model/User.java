@@ -1,5 +1,6 @@
 package com.kny.model;
 
+import com.kny.event.UserEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -7,7 +8,12 @@ import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@EntityListeners(UserEntityListener.class)
+@Table(name = "users", indexes = {
+    // findByOauthProviderAndOauthId
+    @Index(name = "idx_users_oauth_provider_id", columnList = "oauth_provider, oauth_id"),
+    @Index(name = "idx_users_is_active", columnList = "is_active")
+})
 public class User {
     
     @Id
@@ -0,0 +1,67 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+
+import java.time.LocalTime;
+
+// Time-of-day buckets used by the crowd level columns
+public enum CrowdPeriod {
+    MORNING("crowdLevelMorning", Market.CrowdLevel.MEDIUM),
+    AFTERNOON("crowdLevelAfternoon", Market.CrowdLevel.MEDIUM),
+    EVENING("crowdLevelEvening", Market.CrowdLevel.LOW);
+
+    private final String attribute;
+    private final Market.CrowdLevel defaultLevel;
+
+    CrowdPeriod(String attribute, Market.CrowdLevel defaultLevel) {
+        this.attribute = attribute;
+        this.defaultLevel = defaultLevel;
+    }
+
+    // Market attribute holding the crowd level for this period
+    public String getAttribute() { return attribute; }
+
+    // Level assumed when a market has no value for this period
+    public Market.CrowdLevel getDefaultLevel() { return defaultLevel; }
+
+    public Market.CrowdLevel levelOf(Market market) {
+        return levelOf(market.getCrowdLevelMorning(), market.getCrowdLevelAfternoon(), market.getCrowdLevelEvening());
+    }
+
+    // Same as levelOf(Market) for callers holding the three columns without an entity
+    public Market.CrowdLevel levelOf(Market.CrowdLevel morning, Market.CrowdLevel afternoon, Market.CrowdLevel evening) {
+        Market.CrowdLevel level;
+        switch (this) {
+            case MORNING:
+                level = morning;
+                break;
+            case AFTERNOON:
+                level = afternoon;
+                break;
+            default:
+                level = evening;
+        }
+        return level != null ? level : defaultLevel;
+    }
+
+    public static CrowdPeriod at(LocalTime time) {
+        if (time.isAfter(LocalTime.of(6, 0)) && time.isBefore(LocalTime.of(12, 0))) {
+            return MORNING;
+        } else if (time.isAfter(LocalTime.of(12, 0)) && time.isBefore(LocalTime.of(18, 0))) {
+            return AFTERNOON;
+        }
+        return EVENING;
+    }
+
+    // Unknown values fall back to morning, matching the crowd-level endpoint
+    public static CrowdPeriod fromTimeOfDay(String timeOfDay) {
+        switch (timeOfDay.toLowerCase()) {
+            case "afternoon":
+                return AFTERNOON;
+            case "evening":
+                return EVENING;
+            default:
+                return MORNING;
+        }
+    }
+}
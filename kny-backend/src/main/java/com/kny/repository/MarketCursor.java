@@ -0,0 +1,56 @@
+package com.kny.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a sorted market listing: the sort key and ID of the last
+ * row on the previous page. Encoded as an opaque URL-safe token for clients.
+ */
+public class MarketCursor {
+    private final MarketSort sort;
+    private final CrowdPeriod crowdPeriod;
+    private final String value;
+    private final long id;
+
+    public MarketCursor(MarketSort sort, CrowdPeriod crowdPeriod, String value, long id) {
+        this.sort = sort;
+        this.crowdPeriod = crowdPeriod;
+        this.value = value;
+        this.id = id;
+    }
+
+    public MarketSort getSort() { return sort; }
+
+    // Period the crowd ranks were taken from, so later pages keep the same order
+    public CrowdPeriod getCrowdPeriod() { return crowdPeriod; }
+
+    public String getValue() { return value; }
+
+    public long getId() { return id; }
+
+    public String encode() {
+        // The value goes last because it may itself contain the separator
+        String raw = sort.name() + "|" + (crowdPeriod != null ? crowdPeriod.name() : "") + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing token; rejects tokens issued for a different sort
+    public static MarketCursor decode(String token, MarketSort expectedSort) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            MarketSort sort = MarketSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort order");
+            }
+            CrowdPeriod period = parts[1].isEmpty() ? null : CrowdPeriod.valueOf(parts[1]);
+            return new MarketCursor(sort, period, parts[3], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
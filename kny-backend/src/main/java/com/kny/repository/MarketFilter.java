@@ -0,0 +1,65 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+
+import java.util.Collection;
+
+// Criteria for paged market listings; unset fields do not filter
+public class MarketFilter {
+    private String nameContains;
+    private String specialtyContains;
+    private boolean coveredOnly;
+    private CrowdPeriod crowdPeriod;
+    private Market.CrowdLevel crowdLevel;
+    private Collection<Long> ids;
+
+    public static MarketFilter all() {
+        return new MarketFilter();
+    }
+
+    public static MarketFilter nameContains(String name) {
+        MarketFilter filter = new MarketFilter();
+        filter.nameContains = name;
+        return filter;
+    }
+
+    // Both terms must match when both are given
+    public static MarketFilter nameAndSpecialty(String name, String specialty) {
+        MarketFilter filter = new MarketFilter();
+        filter.nameContains = name;
+        filter.specialtyContains = specialty;
+        return filter;
+    }
+
+    // Restrict to markets already selected elsewhere, e.g. by the search index
+    public static MarketFilter ids(Collection<Long> ids) {
+        MarketFilter filter = new MarketFilter();
+        filter.ids = ids;
+        return filter;
+    }
+
+    public static MarketFilter covered() {
+        MarketFilter filter = new MarketFilter();
+        filter.coveredOnly = true;
+        return filter;
+    }
+
+    public static MarketFilter crowdLevel(CrowdPeriod period, Market.CrowdLevel level) {
+        MarketFilter filter = new MarketFilter();
+        filter.crowdPeriod = period;
+        filter.crowdLevel = level;
+        return filter;
+    }
+
+    public String getNameContains() { return nameContains; }
+
+    public String getSpecialtyContains() { return specialtyContains; }
+
+    public boolean isCoveredOnly() { return coveredOnly; }
+
+    public CrowdPeriod getCrowdPeriod() { return crowdPeriod; }
+
+    public Market.CrowdLevel getCrowdLevel() { return crowdLevel; }
+
+    public Collection<Long> getIds() { return ids; }
+}
@@ -0,0 +1,17 @@
+package com.kny.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Custom queries for MarketRepository that need the Criteria API
+public interface MarketQueryRepository {
+
+    /**
+     * Keyset-paged listing that reads only the given Market attributes.
+     * Rows come back as attribute name to value maps in sort order; the ID and
+     * the sort column are always included. Pass limit + 1 to detect a next page.
+     */
+    List<Map<String, Object>> findPage(MarketFilter filter, MarketSort sort, CrowdPeriod crowdPeriod,
+                                       MarketCursor after, Set<String> attributes, int limit);
+}
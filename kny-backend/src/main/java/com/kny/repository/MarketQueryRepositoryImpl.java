@@ -0,0 +1,123 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MarketQueryRepositoryImpl implements MarketQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findPage(MarketFilter filter, MarketSort sort, CrowdPeriod crowdPeriod,
+                                              MarketCursor after, Set<String> attributes, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Market> market = query.from(Market.class);
+
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        columns.addAll(attributes);
+
+        Expression<Long> id = market.get("id");
+        List<Predicate> predicates = filterPredicates(cb, market, filter);
+
+        switch (sort) {
+            case NAME: {
+                Expression<String> name = market.get("name");
+                columns.add("name");
+                if (after != null) {
+                    predicates.add(cb.or(cb.greaterThan(name, after.getValue()),
+                            cb.and(cb.equal(name, after.getValue()), cb.greaterThan(id, after.getId()))));
+                }
+                query.orderBy(cb.asc(name), cb.asc(id));
+                break;
+            }
+            case CROWD_LEVEL: {
+                Expression<Integer> rank = crowdRank(cb, market, crowdPeriod);
+                columns.add(crowdPeriod.getAttribute());
+                if (after != null) {
+                    Integer afterRank = Integer.valueOf(after.getValue());
+                    predicates.add(cb.or(cb.greaterThan(rank, afterRank),
+                            cb.and(cb.equal(rank, afterRank), cb.greaterThan(id, after.getId()))));
+                }
+                query.orderBy(cb.asc(rank), cb.asc(id));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Sorting by " + sort.name().toLowerCase() + " needs a location");
+        }
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String column : columns) {
+            selections.add(market.get(column).alias(column));
+        }
+        query.multiselect(selections).where(predicates.toArray(new Predicate[0]));
+
+        List<Tuple> tuples = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Market> market, MarketFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getNameContains() != null) {
+            predicates.add(cb.like(cb.lower(market.get("name")), containsPattern(filter.getNameContains()), '\\'));
+        }
+        if (filter.getSpecialtyContains() != null) {
+            predicates.add(cb.like(cb.lower(market.get("specialties")), containsPattern(filter.getSpecialtyContains()), '\\'));
+        }
+        if (filter.isCoveredOnly()) {
+            predicates.add(cb.isTrue(market.get("isCovered")));
+        }
+        if (filter.getIds() != null) {
+            predicates.add(market.get("id").in(filter.getIds()));
+        }
+        if (filter.getCrowdLevel() != null) {
+            predicates.add(cb.equal(market.get(filter.getCrowdPeriod().getAttribute()), filter.getCrowdLevel()));
+        }
+        return predicates;
+    }
+
+    // LOW < MEDIUM < HIGH, with missing values ranked as the period's default
+    private Expression<Integer> crowdRank(CriteriaBuilder cb, Root<Market> market, CrowdPeriod period) {
+        Expression<Market.CrowdLevel> level = market.get(period.getAttribute());
+        return cb.<Integer>selectCase()
+                .when(cb.equal(level, Market.CrowdLevel.LOW), 0)
+                .when(cb.equal(level, Market.CrowdLevel.MEDIUM), 1)
+                .when(cb.equal(level, Market.CrowdLevel.HIGH), 2)
+                .otherwise(period.getDefaultLevel().ordinal());
+    }
+
+    private String containsPattern(String term) {
+        String escaped = term.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -1,17 +1,20 @@
 package com.kny.repository;
 
 import com.kny.model.Market;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MarketRepository extends JpaRepository<Market, Long> {
+public interface MarketRepository extends JpaRepository<Market, Long>, MarketQueryRepository {
     
     // Find market by Google Place ID
     Optional<Market> findByGooglePlaceId(String googlePlaceId);
@@ -30,14 +33,14 @@ public interface MarketRepository extends JpaRepository<Market, Long> {
     List<Market> findByCrowdLevelAfternoon(Market.CrowdLevel crowdLevel);
     List<Market> findByCrowdLevelEvening(Market.CrowdLevel crowdLevel);
     
-    // Find markets within a certain radius (using Haversine formula)
+    // Bounding-box prefilter for radius searches; served by idx_markets_lat_lon
     @Query("SELECT m FROM Market m WHERE " +
-           "(6371 * acos(cos(radians(:latitude)) * cos(radians(m.latitude)) * " +
-           "cos(radians(m.longitude) - radians(:longitude)) + " +
-           "sin(radians(:latitude)) * sin(radians(m.latitude)))) <= :radiusKm")
-    List<Market> findMarketsWithinRadius(@Param("latitude") BigDecimal latitude, 
-                                       @Param("longitude") BigDecimal longitude, 
-                                       @Param("radiusKm") double radiusKm);
+           "m.latitude BETWEEN :minLatitude AND :maxLatitude AND " +
+           "m.longitude BETWEEN :minLongitude AND :maxLongitude")
+    List<Market> findWithinBoundingBox(@Param("minLatitude") BigDecimal minLatitude,
+                                       @Param("maxLatitude") BigDecimal maxLatitude,
+                                       @Param("minLongitude") BigDecimal minLongitude,
+                                       @Param("maxLongitude") BigDecimal maxLongitude);
     
     // Find markets by specialties (case insensitive)
     @Query("SELECT m FROM Market m WHERE LOWER(m.specialties) LIKE LOWER(CONCAT('%', :specialty, '%'))")
@@ -48,9 +51,64 @@ public interface MarketRepository extends JpaRepository<Market, Long> {
     
     // REMOVED: Rating-related queries
     
-    // Find markets that need Google sync (null or older than specified days)
-    @Query("SELECT m FROM Market m WHERE m.lastGoogleSync IS NULL OR m.lastGoogleSync < :cutoffDate")
-    List<Market> findMarketsNeedingGoogleSync(@Param("cutoffDate") java.time.LocalDateTime cutoffDate);
+    // Find markets that need Google sync (null or older than specified days). Read as two ranges of
+    // idx_markets_last_google_sync, since an OR across them makes the database scan the table
+    default List<Market> findMarketsNeedingGoogleSync(java.time.LocalDateTime cutoffDate) {
+        List<Market> markets = new ArrayList<>(findByLastGoogleSyncIsNull());
+        markets.addAll(findByLastGoogleSyncBefore(cutoffDate));
+        return markets;
+    }
+    
+    List<Market> findByLastGoogleSyncIsNull();
+    
+    List<Market> findByLastGoogleSyncBefore(java.time.LocalDateTime cutoffDate);
+    
+    // Next chunk of never-synced markets by ID, skipping markets waiting out a failure backoff
+    @Query("SELECT m FROM Market m WHERE m.googlePlaceId IS NOT NULL AND m.lastGoogleSync IS NULL " +
+           "AND m.id > :afterId " +
+           "AND NOT EXISTS (SELECT s FROM MarketSyncState s WHERE s.marketId = m.id AND s.nextAttemptAt > :now) " +
+           "ORDER BY m.id")
+    List<Market> findNeverSyncedChunk(@Param("afterId") Long afterId,
+                                      @Param("now") java.time.LocalDateTime now,
+                                      Pageable pageable);
+    
+    // Next chunk of stale markets by (lastGoogleSync, id); served by idx_markets_last_google_sync
+    @Query("SELECT m FROM Market m WHERE m.googlePlaceId IS NOT NULL AND m.lastGoogleSync < :cutoffDate " +
+           "AND (m.lastGoogleSync > :afterSync OR (m.lastGoogleSync = :afterSync AND m.id > :afterId)) " +
+           "AND NOT EXISTS (SELECT s FROM MarketSyncState s WHERE s.marketId = m.id AND s.nextAttemptAt > :now) " +
+           "ORDER BY m.lastGoogleSync, m.id")
+    List<Market> findStaleChunk(@Param("cutoffDate") java.time.LocalDateTime cutoffDate,
+                                @Param("afterSync") java.time.LocalDateTime afterSync,
+                                @Param("afterId") Long afterId,
+                                @Param("now") java.time.LocalDateTime now,
+                                Pageable pageable);
+    
+    // Markets with a place ID whose last sync is missing or older than the cutoff, counted the same way
+    default long countMarketsNeedingGoogleSync(java.time.LocalDateTime cutoffDate) {
+        return countNeverSyncedWithPlaceId() + countSyncedBeforeWithPlaceId(cutoffDate);
+    }
+    
+    @Query("SELECT COUNT(m) FROM Market m WHERE m.googlePlaceId IS NOT NULL AND m.lastGoogleSync IS NULL")
+    long countNeverSyncedWithPlaceId();
+    
+    @Query("SELECT COUNT(m) FROM Market m WHERE m.googlePlaceId IS NOT NULL AND m.lastGoogleSync < :cutoffDate")
+    long countSyncedBeforeWithPlaceId(@Param("cutoffDate") java.time.LocalDateTime cutoffDate);
+    
+    // Oldest sync time among markets that have been synced at least once. The first entry in
+    // idx_markets_last_google_sync order, where MIN() with the place ID filter reads every row
+    default java.time.LocalDateTime findOldestGoogleSync() {
+        List<java.time.LocalDateTime> oldest = findSyncTimesOldestFirst(PageRequest.of(0, 1));
+        return oldest.isEmpty() ? null : oldest.get(0);
+    }
+    
+    @Query("SELECT m.lastGoogleSync FROM Market m WHERE m.googlePlaceId IS NOT NULL " +
+           "AND m.lastGoogleSync IS NOT NULL ORDER BY m.lastGoogleSync, m.id")
+    List<java.time.LocalDateTime> findSyncTimesOldestFirst(Pageable pageable);
+    
+    // Distinct market coordinates, for grouping markets into weather grid cells
+    @Query("SELECT DISTINCT m.latitude, m.longitude FROM Market m " +
+           "WHERE m.latitude IS NOT NULL AND m.longitude IS NOT NULL")
+    List<Object[]> findDistinctCoordinates();
     
     // Get market count by data source
     @Query("SELECT m.dataSource, COUNT(m) FROM Market m GROUP BY m.dataSource")
@@ -0,0 +1,29 @@
+package com.kny.repository;
+
+// Server-side sort orders for market listings; ties are always broken by ID
+public enum MarketSort {
+    NAME,
+    CROWD_LEVEL,
+    DISTANCE,
+    RELEVANCE;
+
+    public static MarketSort parse(String sort, MarketSort defaultSort) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return defaultSort;
+        }
+        switch (sort.trim().toLowerCase()) {
+            case "name":
+                return NAME;
+            case "crowd":
+            case "crowdlevel":
+            case "crowd-level":
+                return CROWD_LEVEL;
+            case "distance":
+                return DISTANCE;
+            case "relevance":
+                return RELEVANCE;
+            default:
+                throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+    }
+}
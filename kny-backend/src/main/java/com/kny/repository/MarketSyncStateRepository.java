@@ -0,0 +1,17 @@
+package com.kny.repository;
+
+import com.kny.model.MarketSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MarketSyncStateRepository extends JpaRepository<MarketSyncState, Long> {
+
+    // Markets currently waiting out a failure backoff
+    @Query("SELECT COUNT(s) FROM MarketSyncState s WHERE s.nextAttemptAt > :now")
+    long countBackingOff(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package com.kny.repository;
+
+import com.kny.model.PlacePhotoCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlacePhotoCacheRepository extends JpaRepository<PlacePhotoCacheEntry, String> {
+}
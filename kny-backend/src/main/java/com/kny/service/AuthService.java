@@ -1,5 +1,6 @@
 package com.kny.service;
 
+import com.kny.config.PasswordHashingBusyException;
 import com.kny.dto.LoginRequest;
 import com.kny.dto.RegisterRequest;
 import com.kny.dto.UserResponse;
@@ -54,6 +55,8 @@ public class AuthService {
                 null // No token for registration, only for login
             );
 
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Registration failed: " + e.getMessage());
         }
@@ -83,6 +86,9 @@ public class AuthService {
                 null // You can generate JWT token here if needed
             );
 
+        } catch (PasswordHashingBusyException e) {
+            // Not a wrong password; the caller answers 503
+            throw e;
         } catch (AuthenticationException e) {
             throw new RuntimeException("Invalid email or password");
         } catch (Exception e) {
@@ -3,12 +3,15 @@ package com.kny.service;
 import com.kny.model.User;
 import com.kny.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -17,6 +20,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         OAuth2User oauth2User = super.loadUser(userRequest);
@@ -30,31 +36,51 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             providerId = oauth2User.getAttribute("id"); // Facebook
         }
 
-        // Find or create user
+        upsertUser(email, name, provider, providerId);
+
+        return oauth2User;
+    }
+
+    // Find or create the user for an OAuth2 login, writing only when a field actually changed.
+    // Two first logins for the same email can race to insert; the loser hits the unique email
+    // constraint and retries, which finds the winner's row and updates it if needed.
+    User upsertUser(String email, String name, String provider, String providerId) {
+        try {
+            return transactionTemplate.execute(status -> upsertInTransaction(email, name, provider, providerId));
+        } catch (DataIntegrityViolationException e) {
+            return transactionTemplate.execute(status -> upsertInTransaction(email, name, provider, providerId));
+        }
+    }
+
+    private User upsertInTransaction(String email, String name, String provider, String providerId) {
         Optional<User> existingUser = userRepository.findByEmail(email);
-        User user;
-        
+
         if (existingUser.isPresent()) {
-            user = existingUser.get();
+            User user = existingUser.get();
+            // Most logins are a returning user with the same provider; leave the row alone
+            if (Objects.equals(user.getOauthProvider(), provider)
+                    && Objects.equals(user.getOauthId(), providerId)
+                    && Objects.equals(user.getProvider(), provider)
+                    && Objects.equals(user.getProviderId(), providerId)) {
+                return user;
+            }
             // Update OAuth info
             user.setOauthProvider(provider);
             user.setOauthId(providerId);
             user.setProvider(provider);
             user.setProviderId(providerId);
-            userRepository.save(user);
-        } else {
-            // Create new user
-            user = new User();
-            user.setEmail(email);
-            user.setName(name);
-            user.setOauthProvider(provider);
-            user.setOauthId(providerId);
-            user.setProvider(provider);
-            user.setProviderId(providerId);
-            user.setIsActive(true);
-            userRepository.save(user);
+            return userRepository.save(user);
         }
 
-        return oauth2User;
+        // Create new user
+        User user = new User();
+        user.setEmail(email);
+        user.setName(name);
+        user.setOauthProvider(provider);
+        user.setOauthId(providerId);
+        user.setProvider(provider);
+        user.setProviderId(providerId);
+        user.setIsActive(true);
+        return userRepository.save(user);
     }
 }
\ No newline at end of file
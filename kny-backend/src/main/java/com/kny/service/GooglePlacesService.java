@@ -1,5 +1,9 @@
 package com.kny.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -7,26 +11,38 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class GooglePlacesService {
 
+    private static final Logger log = LoggerFactory.getLogger(GooglePlacesService.class);
+
     @Value("${app.google.maps.api.key}")
     private String apiKey;
 
-    private final RestTemplate restTemplate;
+    // Pooled client with timeouts; see HttpClientConfig
+    @Autowired
+    @Qualifier("googlePlacesRestTemplate")
+    private RestTemplate restTemplate;
+
     private final ObjectMapper objectMapper;
     
     private static final String PLACES_DETAILS_URL = "https://maps.googleapis.com/maps/api/place/details/json";
     private static final String PLACES_SEARCH_URL = "https://maps.googleapis.com/maps/api/place/findplacefromtext/json";
     private static final String PLACES_PHOTO_URL = "https://maps.googleapis.com/maps/api/place/photo";
+    
+    // Statuses whose answer (photos or no photos) is safe to cache
+    private static final Set<String> CACHEABLE_STATUSES = Set.of("OK", "ZERO_RESULTS", "NOT_FOUND");
+
+    @Autowired
+    private PlacePhotoCache placePhotoCache;
 
     public GooglePlacesService() {
-        this.restTemplate = new RestTemplate();
         this.objectMapper = new ObjectMapper();
     }
 
-    // Get place photos only
+    // Get place photos only, served from the photo-reference cache when possible
     public List<String> getPlacePhotos(String placeId, int maxPhotos) {
         List<String> photos = new ArrayList<>();
         
@@ -35,37 +51,72 @@ public class GooglePlacesService {
         }
 
         try {
-            String url = String.format(
-                "%s?place_id=%s&fields=photos&key=%s",
-                PLACES_DETAILS_URL, placeId, apiKey
-            );
+            List<String> photoRefs = placePhotoCache.get(placeId, maxPhotos,
+                    () -> fetchPhotoReferences(placeId, maxPhotos));
+            
+            for (String photoRef : photoRefs) {
+                photos.add(photoUrl(photoRef));
+            }
+        } catch (Exception e) {
+            log.warn("Could not get photos for place {}: {}", placeId, e.getMessage());
+        }
+        
+        return photos;
+    }
+
+    // Call the Places details endpoint for photo references; errors are thrown, not swallowed
+    private List<String> fetchPhotoReferences(String placeId, int maxPhotos) {
+        String response = restTemplate.getForObject(photoDetailsUrl(placeId), String.class);
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable Places response: " + e.getMessage(), e);
+        }
+        return photoReferences(root, maxPhotos);
+    }
 
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+    // URL and parsing below are shared with ReactiveGooglePlacesService
+    String photoDetailsUrl(String placeId) {
+        return String.format(
+            "%s?place_id=%s&fields=photos&key=%s",
+            PLACES_DETAILS_URL, placeId, apiKey
+        );
+    }
+
+    String photoUrl(String photoRef) {
+        return String.format(
+            "%s?maxwidth=400&photo_reference=%s&key=%s",
+            PLACES_PHOTO_URL, photoRef, apiKey
+        );
+    }
+
+    boolean isConfigured() {
+        return apiKey != null;
+    }
+
+    // Photo references from a details response; statuses that must not be cached are thrown
+    List<String> photoReferences(JsonNode root, int maxPhotos) {
+        List<String> photoRefs = new ArrayList<>();
+        
+        String status = getString(root, "status");
+        if (status != null && !CACHEABLE_STATUSES.contains(status)) {
+            throw new IllegalStateException("Places details returned status " + status);
+        }
+        
+        if (root.has("result") && root.get("result").has("photos")) {
+            JsonNode photosNode = root.get("result").get("photos");
             
-            if (root.has("result") && root.get("result").has("photos")) {
-                JsonNode photosNode = root.get("result").get("photos");
+            for (JsonNode photo : photosNode) {
+                if (photoRefs.size() >= maxPhotos) break;
                 
-                int count = 0;
-                for (JsonNode photo : photosNode) {
-                    if (count >= maxPhotos) break;
-                    
-                    if (photo.has("photo_reference")) {
-                        String photoRef = photo.get("photo_reference").asText();
-                        String photoUrl = String.format(
-                            "%s?maxwidth=400&photo_reference=%s&key=%s",
-                            PLACES_PHOTO_URL, photoRef, apiKey
-                        );
-                        photos.add(photoUrl);
-                        count++;
-                    }
+                if (photo.has("photo_reference")) {
+                    photoRefs.add(photo.get("photo_reference").asText());
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error getting photos: " + e.getMessage());
         }
         
-        return photos;
+        return photoRefs;
     }
 
     // Get basic place details
@@ -75,33 +126,49 @@ public class GooglePlacesService {
         }
 
         try {
-            String url = String.format(
-                "%s?place_id=%s&fields=name,formatted_phone_number,website&key=%s",
-                PLACES_DETAILS_URL, placeId, apiKey
-            );
-
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-            
-            if (root.has("result")) {
-                JsonNode result = root.get("result");
-                PlaceDetails details = new PlaceDetails();
-                
-                details.setPlaceId(placeId);
-                details.setName(getString(result, "name"));
-                details.setPhoneNumber(getString(result, "formatted_phone_number"));
-                details.setWebsite(getString(result, "website"));
-              
-                
-                return details;
-            }
+            return fetchPlaceDetails(placeId);
         } catch (Exception e) {
-            System.err.println("Error getting place details: " + e.getMessage());
+            log.warn("Could not get details for place {}: {}", placeId, e.getMessage());
         }
         
         return null;
     }
 
+    // Place details for syncing; null when Google no longer knows the place. Errors are thrown, not swallowed
+    public PlaceDetails fetchPlaceDetails(String placeId) {
+        String url = String.format(
+            "%s?place_id=%s&fields=name,formatted_phone_number,website&key=%s",
+            PLACES_DETAILS_URL, placeId, apiKey
+        );
+
+        String response = restTemplate.getForObject(url, String.class);
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable Places response: " + e.getMessage(), e);
+        }
+        
+        String status = getString(root, "status");
+        if (status != null && !CACHEABLE_STATUSES.contains(status)) {
+            throw new PlacesStatusException(status);
+        }
+        
+        if (!root.has("result")) {
+            return null;
+        }
+        
+        JsonNode result = root.get("result");
+        PlaceDetails details = new PlaceDetails();
+        
+        details.setPlaceId(placeId);
+        details.setName(getString(result, "name"));
+        details.setPhoneNumber(getString(result, "formatted_phone_number"));
+        details.setWebsite(getString(result, "website"));
+        
+        return details;
+    }
+
     // Update market with Google data 
     public void updateMarketWithGoogle(com.kny.model.Market market) {
         if (market.getGooglePlaceId() == null) {
@@ -112,22 +179,26 @@ public class GooglePlacesService {
             PlaceDetails details = getPlaceDetails(market.getGooglePlaceId());
             
             if (details != null) {
-                
-                // Update basic info only
-                if (details.getPhoneNumber() != null) {
-                    market.setPhoneNumber(details.getPhoneNumber());
-                }
-                
-                if (details.getWebsite() != null) {
-                    market.setWebsite(details.getWebsite());
-                }
-                
-                market.setLastGoogleSync(java.time.LocalDateTime.now());
-                System.out.println("Updated market: " + market.getName());
+                applyPlaceDetails(market, details);
+                log.debug("Updated market {} from Google Places", market.getId());
             }
         } catch (Exception e) {
-            System.err.println("Error updating market: " + e.getMessage());
+            log.warn("Could not update market {} from Google Places: {}", market.getId(), e.getMessage());
+        }
+    }
+
+    // Copy fetched details onto a market and record the sync time
+    public void applyPlaceDetails(com.kny.model.Market market, PlaceDetails details) {
+        // Update basic info only
+        if (details.getPhoneNumber() != null) {
+            market.setPhoneNumber(details.getPhoneNumber());
+        }
+        
+        if (details.getWebsite() != null) {
+            market.setWebsite(details.getWebsite());
         }
+        
+        market.setLastGoogleSync(java.time.LocalDateTime.now());
     }
 
     // Helper method
@@ -138,6 +209,23 @@ public class GooglePlacesService {
         return null;
     }
 
+    // Non-OK status in a Places response
+    public static class PlacesStatusException extends IllegalStateException {
+        private final String status;
+
+        public PlacesStatusException(String status) {
+            super("Places details returned status " + status);
+            this.status = status;
+        }
+
+        public String getStatus() { return status; }
+
+        // Quota and server-side errors are worth retrying later
+        public boolean isTransient() {
+            return "OVER_QUERY_LIMIT".equals(status) || "UNKNOWN_ERROR".equals(status);
+        }
+    }
+
     // Simplified PlaceDetails class 
     public static class PlaceDetails {
         private String placeId;
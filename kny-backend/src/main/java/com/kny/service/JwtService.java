@@ -0,0 +1,151 @@
+package com.kny.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Issues and verifies the HMAC-signed access and refresh tokens used when
+ * app.auth.stateless is on. Every token carries the ID of the key that signed
+ * it; app.jwt.secret signs new tokens and app.jwt.previous-secrets are still
+ * accepted, so a key can be rotated without logging anyone out. Verification
+ * needs nothing but the keys, so any node can check any token.
+ */
+@Service
+@ConditionalOnProperty(name = "app.auth.stateless", havingValue = "true")
+public class JwtService {
+
+    static final String TYPE_CLAIM = "type";
+    static final String ACCESS = "access";
+    static final String REFRESH = "refresh";
+
+    @Value("${app.jwt.secret}")
+    private String secret;
+
+    @Value("${app.jwt.previous-secrets:}")
+    private List<String> previousSecrets;
+
+    @Value("${app.jwt.expiration:900000}")
+    private long accessExpirationMs;
+
+    @Value("${app.jwt.refresh-expiration:604800000}")
+    private long refreshExpirationMs;
+
+    @Value("${app.jwt.issuer:kny-market-hub}")
+    private String issuer;
+
+    @Value("${app.jwt.audience:kny-users}")
+    private String audience;
+
+    @Value("${app.jwt.clock-skew:PT30S}")
+    private Duration clockSkew;
+
+    private String signingKeyId;
+    private SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys = new HashMap<>();
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        signingKeyId = keyId(secret);
+        verificationKeys.put(signingKeyId, signingKey);
+        for (String previous : previousSecrets) {
+            if (!previous.isBlank()) {
+                verificationKeys.put(keyId(previous), Keys.hmacShaKeyFor(previous.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        SecretKey key = verificationKeys.get(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .requireIssuer(issuer)
+                .requireAudience(audience)
+                .clockSkewSeconds(clockSkew.toSeconds())
+                .build();
+    }
+
+    public String createAccessToken(String email) {
+        return create(email, ACCESS, accessExpirationMs);
+    }
+
+    public String createRefreshToken(String email) {
+        return create(email, REFRESH, refreshExpirationMs);
+    }
+
+    // Claims of a valid, unexpired access token; throws JwtException for anything else
+    public Claims verifyAccessToken(String token) {
+        return verify(token, ACCESS);
+    }
+
+    public Claims verifyRefreshToken(String token) {
+        return verify(token, REFRESH);
+    }
+
+    public long getAccessExpirationSeconds() {
+        return accessExpirationMs / 1000;
+    }
+
+    private String create(String email, String type, long expirationMs) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .header().keyId(signingKeyId).and()
+                .id(UUID.randomUUID().toString())
+                .subject(email)
+                .issuer(issuer)
+                .audience().add(audience).and()
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(expirationMs)))
+                .claim(TYPE_CLAIM, type)
+                .signWith(signingKey)
+                .compact();
+    }
+
+    private Claims verify(String token, String type) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (!type.equals(claims.get(TYPE_CLAIM, String.class))) {
+            throw new JwtException("Expected a " + type + " token");
+        }
+        return claims;
+    }
+
+    // Short fingerprint of a secret, so tokens name their key without revealing it
+    private static String keyId(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kny.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown by {@link LoginRateLimiter} when a client or an account has used up
+ * its login attempts for the current window.
+ */
+public class LoginRateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginRateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    // Whole seconds, rounded up, for a Retry-After header
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,127 @@
+package com.kny.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kny.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Caps login attempts per client IP and per email over a sliding window,
+ * checked before any user lookup or password hash. The IP limit stops one
+ * client trying many accounts (credential stuffing); the email limit stops
+ * many clients guessing one account. A refused attempt is not added to
+ * either counter, so a client that keeps hammering is let back in once its
+ * window has passed, and guesses at a locked account do not use up the
+ * allowance of the address they came from.
+ *
+ * The IP is the servlet remote address. Tomcat takes it from X-Forwarded-For
+ * only when the connection comes from a trusted proxy (see
+ * server.forward-headers-strategy), so behind a load balancer each client is
+ * still counted on its own.
+ *
+ * Counters live in bounded Caffeine maps that drop a key once it has been
+ * idle for a whole window, so memory stays flat however many addresses or
+ * emails an attacker cycles through. Limits are per node.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    // Retry-After is accurate to one bucket
+    private static final int BUCKETS = 10;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.rate-limit.window:PT5M}")
+    private Duration window;
+
+    @Value("${app.auth.rate-limit.per-ip:30}")
+    private int perIp;
+
+    @Value("${app.auth.rate-limit.per-email:10}")
+    private int perEmail;
+
+    @Value("${app.auth.rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    private Cache<String, SlidingWindowCounter> ipCounters;
+    private Cache<String, SlidingWindowCounter> emailCounters;
+    private Counter ipRejections;
+    private Counter emailRejections;
+
+    @PostConstruct
+    public void init() {
+        this.ipCounters = counters();
+        this.emailCounters = counters();
+        this.ipRejections = Counter.builder("auth.login.rate.limited").tag("key", "ip").register(meterRegistry);
+        this.emailRejections = Counter.builder("auth.login.rate.limited").tag("key", "email").register(meterRegistry);
+    }
+
+    // Count one login attempt, or throw LoginRateLimitedException if either limit is used up
+    public void acquire(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        SlidingWindowCounter ipCounter = clientIp == null ? null : ipCounters.get(clientIp, key -> newCounter());
+        SlidingWindowCounter emailCounter = email == null ? null
+                : emailCounters.get(email.trim().toLowerCase(Locale.ROOT), key -> newCounter());
+
+        // Check both limits before counting against either
+        if (ipCounter != null && ipCounter.count(now) >= perIp) {
+            throw ipLimited(clientIp, ipCounter, now);
+        }
+        if (emailCounter != null && emailCounter.count(now) >= perEmail) {
+            throw emailLimited(emailCounter, now);
+        }
+
+        // Concurrent attempts can still fill a window between the check and the count
+        if (ipCounter != null && !ipCounter.tryIncrement(perIp, now)) {
+            throw ipLimited(clientIp, ipCounter, now);
+        }
+        if (emailCounter != null && !emailCounter.tryIncrement(perEmail, now)) {
+            if (ipCounter != null) {
+                ipCounter.decrement(now);
+            }
+            throw emailLimited(emailCounter, now);
+        }
+    }
+
+    private LoginRateLimitedException ipLimited(String clientIp, SlidingWindowCounter counter, long now) {
+        ipRejections.increment();
+        log.debug("Login attempts from {} over the limit of {} per {}", clientIp, perIp, window);
+        return new LoginRateLimitedException("Too many login attempts, try again later", counter.retryAfter(now));
+    }
+
+    private LoginRateLimitedException emailLimited(SlidingWindowCounter counter, long now) {
+        emailRejections.increment();
+        log.debug("Login attempts for one account over the limit of {} per {}", perEmail, window);
+        return new LoginRateLimitedException("Too many login attempts, try again later", counter.retryAfter(now));
+    }
+
+    private Cache<String, SlidingWindowCounter> counters() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window)
+                .build();
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(window, BUCKETS);
+    }
+}
@@ -0,0 +1,184 @@
+package com.kny.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kny.dto.CachedMarketResponse;
+import com.kny.dto.MarketResponse;
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of the stored part of each MarketResponse, keyed by market ID and
+ * validated against updatedAt. Entries keep the response and its JSON
+ * serialized once, so list endpoints only add the time-dependent fields per
+ * request. Entries are dropped when a {@link MarketChangedEvent} arrives and
+ * replaced whenever the row's updatedAt no longer matches.
+ */
+@Service
+public class MarketResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketResponseCache.class);
+
+    static final String CACHE_NAME = "marketResponses";
+
+    // Fields set per request, never part of the cached JSON
+    private static final List<String> REQUEST_FIELDS = List.of(
+            "id", "photos", "isOpen", "currentCrowdLevel", "distanceKm", "weather");
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.markets.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.markets.response-cache.max-size:20000}")
+    private long maxSize;
+
+    private Cache<Long, Snapshot> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Snapshot for a market already in memory; built from the entity on a miss
+    public Snapshot get(Market market) {
+        Snapshot cached = cache.getIfPresent(market.getId());
+        if (cached != null && cached.matches(market.getUpdatedAt())) {
+            return cached;
+        }
+        Snapshot built = build(market);
+        cache.put(market.getId(), built);
+        return built;
+    }
+
+    /**
+     * Snapshots for rows identified by ID and updatedAt, in the given order.
+     * Misses and stale entries are loaded with one findAllById; markets that
+     * have disappeared in the meantime are left out.
+     */
+    public List<Snapshot> getAll(List<Market> versions) {
+        Map<Long, Snapshot> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Market version : versions) {
+            Snapshot cached = cache.getIfPresent(version.getId());
+            if (cached != null && cached.matches(version.getUpdatedAt())) {
+                found.put(version.getId(), cached);
+            } else {
+                missing.add(version.getId());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Market market : marketRepository.findAllById(missing)) {
+                Snapshot built = build(market);
+                cache.put(market.getId(), built);
+                found.put(market.getId(), built);
+            }
+        }
+
+        List<Snapshot> snapshots = new ArrayList<>(versions.size());
+        for (Market version : versions) {
+            Snapshot snapshot = found.get(version.getId());
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMarketChanged(MarketChangedEvent event) {
+        if (event.getMarket().getId() != null) {
+            cache.invalidate(event.getMarket().getId());
+        }
+    }
+
+    private Snapshot build(Market market) {
+        MarketResponse base = new MarketResponse(market);
+        return new Snapshot(market.getUpdatedAt(), base, new SerializedString(storedFieldsJson(base)));
+    }
+
+    // The response's JSON without braces and request-time fields, prefixed with a comma
+    private String storedFieldsJson(MarketResponse base) {
+        ObjectNode node = objectMapper.valueToTree(base);
+        node.remove(REQUEST_FIELDS);
+        if (node.isEmpty()) {
+            return "";
+        }
+        try {
+            String json = objectMapper.writeValueAsString(node);
+            return "," + json.substring(1, json.length() - 1);
+        } catch (JsonProcessingException e) {
+            // Cannot happen for a tree built by the same mapper
+            log.warn("Could not serialize market {}: {}", base.getId(), e.getMessage());
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compare at millisecond precision; the database may round sub-millisecond digits
+    private static LocalDateTime normalize(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+
+    public static final class Snapshot {
+        private final LocalDateTime version;
+        private final MarketResponse base;
+        private final SerializedString storedFieldsJson;
+
+        Snapshot(LocalDateTime updatedAt, MarketResponse base, SerializedString storedFieldsJson) {
+            this.version = normalize(updatedAt);
+            this.base = base;
+            this.storedFieldsJson = storedFieldsJson;
+        }
+
+        boolean matches(LocalDateTime updatedAt) {
+            return version != null && Objects.equals(version, normalize(updatedAt));
+        }
+
+        // Read-only view of the cached stored fields
+        public MarketResponse getBase() { return base; }
+
+        // Fresh copy for one request; pre-serialized only when every field is wanted
+        public MarketResponse toResponse(boolean allFields) {
+            return allFields ? new CachedMarketResponse(base, storedFieldsJson) : new MarketResponse(base);
+        }
+    }
+}
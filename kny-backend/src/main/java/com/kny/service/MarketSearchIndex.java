@@ -0,0 +1,296 @@
+package com.kny.service;
+
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.TextUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over market name, specialties, highlights and
+ * description. Terms are accent-folded and lower-cased; every query term
+ * matches as a prefix, all terms must match, and results are ranked by
+ * field weight times inverse document frequency. Like the spatial index it
+ * loads at startup, is patched from {@link MarketChangedEvent}s and reloads
+ * on a schedule; callers use the LIKE queries while it is unavailable.
+ */
+@Service
+public class MarketSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSearchIndex.class);
+
+    public static final int NAME = 1;
+    public static final int SPECIALTIES = 1 << 1;
+    public static final int HIGHLIGHTS = 1 << 2;
+    public static final int DESCRIPTION = 1 << 3;
+    public static final int ALL_FIELDS = NAME | SPECIALTIES | HIGHLIGHTS | DESCRIPTION;
+
+    // A prefix match is worth less than the whole word
+    private static final double PREFIX_MATCH_FACTOR = 0.6;
+
+    // Longer queries add little and cost a subMap walk per term
+    private static final int MAX_QUERY_TERMS = 8;
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Value("${app.markets.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.markets.search-index.max-age:1h}")
+    private Duration maxAge;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (market ID -> bitmask of fields containing the term)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    // market ID -> terms indexed for it, so a market can be removed again
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+
+    // Changes seen while rebuild() reads the table, replayed over what it read; null outside a load
+    private Map<Long, MarketChangedEvent> changedDuringLoad;
+
+    private volatile Instant loadedAt;
+
+    // True when the index is enabled, loaded and recently refreshed
+    public boolean isAvailable() {
+        Instant loaded = loadedAt;
+        return enabled && loaded != null && !loaded.plus(maxAge).isBefore(Instant.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.markets.search-index.refresh-interval:PT15M}",
+               initialDelayString = "${app.markets.search-index.refresh-interval:PT15M}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<Market> markets = marketRepository.findAll();
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                documents.clear();
+                for (Market market : markets) {
+                    add(market);
+                }
+                // A market saved after findAll() read its row would otherwise revert to the old version
+                for (MarketChangedEvent event : changedDuringLoad.values()) {
+                    apply(event);
+                }
+                loadedAt = Instant.now();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Search index loaded with {} markets and {} terms", markets.size(), postings.size());
+        } catch (Exception e) {
+            log.warn("Search index rebuild failed, searches will use the database: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMarketChanged(MarketChangedEvent event) {
+        Market changed = event.getMarket();
+        if (!enabled || changed.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(changed.getId(), event);
+            }
+            if (loadedAt != null) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(MarketChangedEvent event) {
+        remove(event.getMarket().getId());
+        if (!event.isDeleted()) {
+            add(event.getMarket());
+        }
+    }
+
+    /**
+     * Ranked matches, best first. Each non-blank argument is a constraint that
+     * must hold: text may match any field, name only the name and specialty
+     * only the specialties. Scores of the constraints are added together.
+     */
+    public List<Hit> search(String text, String name, String specialty) {
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            scores = intersect(scores, text, ALL_FIELDS);
+            scores = intersect(scores, name, NAME);
+            scores = intersect(scores, specialty, SPECIALTIES);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        if (scores == null) {
+            return hits;
+        }
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            hits.add(new Hit(entry.getKey(), entry.getValue()));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparingLong(Hit::getMarketId));
+        return hits;
+    }
+
+    // Combine a constraint with the scores so far; null means no constraint has been applied yet
+    private Map<Long, Double> intersect(Map<Long, Double> scores, String query, int fields) {
+        List<String> terms = TextUtils.distinctWords(query);
+        if (terms.isEmpty()) {
+            return scores;
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        Map<Long, Double> combined = scores;
+        for (String term : terms) {
+            Map<Long, Double> termScores = scoreTerm(term, fields);
+            if (combined == null) {
+                combined = termScores;
+                continue;
+            }
+            Map<Long, Double> next = new HashMap<>();
+            for (Map.Entry<Long, Double> entry : combined.entrySet()) {
+                Double termScore = termScores.get(entry.getKey());
+                if (termScore != null) {
+                    next.put(entry.getKey(), entry.getValue() + termScore);
+                }
+            }
+            combined = next;
+        }
+        return combined;
+    }
+
+    // Best score per market for one query term across every indexed term it prefixes
+    private Map<Long, Double> scoreTerm(String queryTerm, int fields) {
+        Map<Long, Double> scores = new HashMap<>();
+        double documentCount = Math.max(1, documents.size());
+
+        NavigableMap<String, Map<Long, Integer>> matches =
+                postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+            Map<Long, Integer> posting = match.getValue();
+            double idf = Math.log(1.0 + documentCount / posting.size());
+            double factor = match.getKey().length() == queryTerm.length() ? 1.0 : PREFIX_MATCH_FACTOR;
+
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                int matchedFields = entry.getValue() & fields;
+                if (matchedFields == 0) {
+                    continue;
+                }
+                double score = fieldWeight(matchedFields) * idf * factor;
+                scores.merge(entry.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private double fieldWeight(int fields) {
+        double weight = 0.0;
+        if ((fields & NAME) != 0) weight += 3.0;
+        if ((fields & SPECIALTIES) != 0) weight += 2.0;
+        if ((fields & HIGHLIGHTS) != 0) weight += 1.0;
+        if ((fields & DESCRIPTION) != 0) weight += 0.5;
+        return weight;
+    }
+
+    // Callers hold the write lock
+    private void add(Market market) {
+        if (market.getId() == null) {
+            return;
+        }
+        Map<String, Integer> fieldsByTerm = new HashMap<>();
+        collect(fieldsByTerm, market.getName(), NAME);
+        collect(fieldsByTerm, market.getSpecialties(), SPECIALTIES);
+        collect(fieldsByTerm, market.getHighlights(), HIGHLIGHTS);
+        collect(fieldsByTerm, market.getDescription(), DESCRIPTION);
+
+        for (Map.Entry<String, Integer> entry : fieldsByTerm.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(market.getId(), entry.getValue());
+        }
+        documents.put(market.getId(), fieldsByTerm.keySet());
+    }
+
+    // Callers hold the write lock
+    private void remove(Long marketId) {
+        Set<String> terms = documents.remove(marketId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(marketId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private void collect(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String term : TextUtils.distinctWords(text)) {
+            fieldsByTerm.merge(term, field, (a, b) -> a | b);
+        }
+    }
+
+    public static class Hit {
+        private final long marketId;
+        private final double score;
+
+        public Hit(long marketId, double score) {
+            this.marketId = marketId;
+            this.score = score;
+        }
+
+        public long getMarketId() { return marketId; }
+        public double getScore() { return score; }
+    }
+}
@@ -1,118 +1,545 @@
 package com.kny.service;
 
+import com.kny.dto.MarketField;
+import com.kny.dto.MarketPage;
+import com.kny.dto.MarketPageRequest;
 import com.kny.dto.MarketResponse;
 import com.kny.dto.MarketPhotoResponse;
+import com.kny.dto.MarketSuggestion;
+import com.kny.dto.MarketWeatherResponse;
 import com.kny.model.Market;
+import com.kny.repository.CrowdPeriod;
+import com.kny.repository.MarketCursor;
+import com.kny.repository.MarketFilter;
 import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSort;
+import com.kny.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
 
 @Service
 public class MarketService {
     
+    private static final Logger log = LoggerFactory.getLogger(MarketService.class);
+    
     @Autowired
     private MarketRepository marketRepository;
     
     @Autowired
     private GooglePlacesService googlePlacesService;
     
-    // Get all markets 
-    public List<MarketResponse> getAllMarkets() {
-        List<Market> markets = marketRepository.findAllByOrderByNameAsc();
+    @Autowired
+    private PlacePhotoResolver placePhotoResolver;
+    
+    @Autowired
+    private MarketSpatialIndex marketSpatialIndex;
+    
+    @Autowired
+    private MarketSearchIndex marketSearchIndex;
+    
+    @Autowired
+    private MarketSuggestIndex marketSuggestIndex;
+    
+    @Autowired
+    private MarketResponseCache marketResponseCache;
+    
+    @Autowired
+    private MarketSyncEngine marketSyncEngine;
+    
+    @Autowired
+    private WeatherCache weatherCache;
+    
+    @Value("${app.markets.page.default-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.markets.page.max-size:200}")
+    private int maxPageSize;
+    
+    // Requests without size or cursor predate paging and still get every match in one response
+    private static final int UNPAGED_SIZE = Integer.MAX_VALUE - 1;
+    
+    private static final double CLOSEST_START_RADIUS_KM = 5.0;
+    private static final double CLOSEST_MAX_RADIUS_KM = 20000.0;
+    
+    // One keyset page of markets matching the filter, reading only the columns the requested fields need
+    public MarketPage getMarkets(MarketFilter filter, MarketPageRequest pageRequest) {
+        MarketSort sort = MarketSort.parse(pageRequest.getSort(), MarketSort.NAME);
+        if (sort == MarketSort.DISTANCE) {
+            throw new IllegalArgumentException("Sorting by distance is only available on /nearby");
+        }
+        if (sort == MarketSort.RELEVANCE) {
+            throw new IllegalArgumentException("Sorting by relevance is only available on /search");
+        }
+        MarketCursor after = MarketCursor.decode(pageRequest.getCursor(), sort);
+        CrowdPeriod period = crowdPeriodFor(after);
+        Set<MarketField> fields = MarketField.parse(pageRequest.getFields());
+        int size = pageSize(pageRequest);
+        
+        List<Map<String, Object>> rows = marketRepository.findPage(
+                filter, sort, period, after, pageAttributes(fields), size + 1);
+        
+        List<Market> markets = rows.stream()
+                .limit(size)
+                .map(this::toMarket)
+                .collect(Collectors.toList());
+        
+        List<MarketResponse> responses = pageResponses(markets, fields);
+        
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Market last = markets.get(markets.size() - 1);
+            nextCursor = new MarketCursor(sort, period, sortValue(last, 0.0, sort, period), last.getId()).encode();
+        }
+        return new MarketPage(responses, nextCursor);
+    }
+    
+    // Ranked search over name, specialties, highlights and description; LIKE queries while the index is unavailable
+    public MarketPage searchMarkets(String query, String name, String specialty, MarketPageRequest pageRequest) {
+        // Nothing to search for lists every market, whichever path would have answered
+        if (isBlank(query) && isBlank(name) && isBlank(specialty)) {
+            return getMarkets(MarketFilter.all(), withoutRelevanceSort(pageRequest));
+        }
+        if (!marketSearchIndex.isAvailable()) {
+            return getMarkets(likeFilter(query, name, specialty), withoutRelevanceSort(pageRequest));
+        }
+        
+        List<MarketSearchIndex.Hit> hits = marketSearchIndex.search(query, name, specialty);
+        MarketSort sort = MarketSort.parse(pageRequest.getSort(), MarketSort.RELEVANCE);
+        if (sort != MarketSort.RELEVANCE) {
+            if (hits.isEmpty()) {
+                return new MarketPage(new ArrayList<>(), null);
+            }
+            List<Long> ids = hits.stream().map(MarketSearchIndex.Hit::getMarketId).collect(Collectors.toList());
+            return getMarkets(MarketFilter.ids(ids), pageRequest);
+        }
+        
+        MarketCursor after = MarketCursor.decode(pageRequest.getCursor(), sort);
+        Set<MarketField> fields = MarketField.parse(pageRequest.getFields());
+        int size = pageSize(pageRequest);
+        
+        // Hits are ordered by score descending, then ID ascending
+        List<MarketSearchIndex.Hit> page = new ArrayList<>();
+        boolean hasMore = false;
+        for (MarketSearchIndex.Hit hit : hits) {
+            if (after != null) {
+                int byScore = Double.compare(Double.parseDouble(after.getValue()), hit.getScore());
+                if (byScore < 0 || (byScore == 0 && hit.getMarketId() <= after.getId())) {
+                    continue;
+                }
+            }
+            if (page.size() == size) {
+                hasMore = true;
+                break;
+            }
+            page.add(hit);
+        }
+        if (page.isEmpty()) {
+            return new MarketPage(new ArrayList<>(), null);
+        }
+        
+        List<Long> pageIds = page.stream().map(MarketSearchIndex.Hit::getMarketId).collect(Collectors.toList());
+        Map<Long, Market> marketsById = new HashMap<>();
+        for (Map<String, Object> row : marketRepository.findPage(MarketFilter.ids(pageIds), MarketSort.NAME,
+                CrowdPeriod.at(LocalTime.now()), null, pageAttributes(fields), size)) {
+            Market market = toMarket(row);
+            marketsById.put(market.getId(), market);
+        }
+        
+        // Keep the ranking order; markets deleted since indexing simply drop out
+        List<Market> markets = pageIds.stream()
+                .map(marketsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        List<MarketResponse> responses = pageResponses(markets, fields);
+        
+        String nextCursor = null;
+        if (hasMore) {
+            MarketSearchIndex.Hit last = page.get(page.size() - 1);
+            nextCursor = new MarketCursor(sort, null, Double.toString(last.getScore()), last.getMarketId()).encode();
+        }
+        return new MarketPage(responses, nextCursor);
+    }
+    
+    // Typeahead suggestions; a small name LIKE query while the index is unavailable
+    public List<MarketSuggestion> suggestMarkets(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (marketSuggestIndex.isAvailable()) {
+            return marketSuggestIndex.suggest(query, limit);
+        }
+        
+        List<MarketSuggestion> suggestions = new ArrayList<>();
+        for (Map<String, Object> row : marketRepository.findPage(MarketFilter.nameContains(query.trim()), MarketSort.NAME,
+                CrowdPeriod.at(LocalTime.now()), null, Set.of("name", "specialties"), limit)) {
+            suggestions.add(new MarketSuggestion((Long) row.get("id"), (String) row.get("name"),
+                    MarketSuggestIndex.shortSpecialties((String) row.get("specialties"))));
+        }
+        return suggestions;
+    }
+    
+    private MarketFilter likeFilter(String query, String name, String specialty) {
+        if (isBlank(name) && isBlank(specialty)) {
+            return MarketFilter.nameContains(query);
+        }
+        return MarketFilter.nameAndSpecialty(isBlank(name) ? null : name, isBlank(specialty) ? null : specialty);
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    // The LIKE fallback has no relevance score, so it falls back to the default name order
+    private MarketPageRequest withoutRelevanceSort(MarketPageRequest pageRequest) {
+        if (MarketSort.parse(pageRequest.getSort(), MarketSort.NAME) != MarketSort.RELEVANCE) {
+            return pageRequest;
+        }
+        return new MarketPageRequest(pageRequest.getSize(), null, null, pageRequest.getFields());
+    }
+    
+    // With the response cache on, page rows only need to say which version of each market to serve
+    private Set<String> pageAttributes(Set<MarketField> fields) {
+        return marketResponseCache.isEnabled() ? Set.of("updatedAt") : MarketField.attributesFor(fields);
+    }
+    
+    // Responses for page rows in order, read from the response cache when it is on
+    private List<MarketResponse> pageResponses(List<Market> markets, Set<MarketField> fields) {
+        if (marketResponseCache.isEnabled()) {
+            return toResponses(marketResponseCache.getAll(markets), fields);
+        }
+        List<MarketResponse> responses = convertToResponses(markets, fields);
+        responses.forEach(response -> MarketField.retainOnly(response, fields));
+        return responses;
+    }
+    
+    // Copy cached snapshots and overlay the fields that depend on the time of the request
+    private List<MarketResponse> toResponses(List<MarketResponseCache.Snapshot> snapshots, Set<MarketField> fields) {
+        boolean allFields = fields.containsAll(EnumSet.allOf(MarketField.class));
+        Map<String, List<String>> photosByPlaceId = Collections.emptyMap();
+        if (fields.contains(MarketField.PHOTOS)) {
+            photosByPlaceId = placePhotoResolver.resolve(snapshots.stream()
+                    .map(snapshot -> snapshot.getBase().getGooglePlaceId())
+                    .collect(Collectors.toList()));
+        }
+        
+        LocalTime now = LocalTime.now();
+        CrowdPeriod period = CrowdPeriod.at(now);
+        List<MarketResponse> responses = new ArrayList<>(snapshots.size());
+        for (MarketResponseCache.Snapshot snapshot : snapshots) {
+            MarketResponse base = snapshot.getBase();
+            MarketResponse response = snapshot.toResponse(allFields);
+            response.setIsOpen(isMarketOpen(base.getOpeningTime(), base.getClosingTime(), now));
+            response.setCurrentCrowdLevel(period.levelOf(base.getCrowdLevelMorning(),
+                    base.getCrowdLevelAfternoon(), base.getCrowdLevelEvening()).toString().toLowerCase());
+            response.setPhotos(toPhotoResponses(photosByPlaceId.get(base.getGooglePlaceId())));
+            response.setWeather(weatherAt(base.getLatitude(), base.getLongitude()));
+            if (!allFields) {
+                MarketField.retainOnly(response, fields);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+    
+    // Convert a result set, resolving all photos in one batch
+    private List<MarketResponse> convertToResponses(List<Market> markets) {
+        return convertToResponses(markets, EnumSet.allOf(MarketField.class));
+    }
+    
+    // Photos are only looked up when the caller asked for them
+    private List<MarketResponse> convertToResponses(List<Market> markets, Set<MarketField> fields) {
+        Map<String, List<String>> photosByPlaceId = Collections.emptyMap();
+        if (fields.contains(MarketField.PHOTOS)) {
+            photosByPlaceId = placePhotoResolver.resolve(
+                    markets.stream().map(Market::getGooglePlaceId).collect(Collectors.toList()));
+        }
+        
+        Map<String, List<String>> photos = photosByPlaceId;
         return markets.stream()
-                .map(this::convertToResponse)
+                .map(market -> convertToResponse(market, photos))
                 .collect(Collectors.toList());
     }
     
     // Convert market to response
-    private MarketResponse convertToResponse(Market market) {
+    private MarketResponse convertToResponse(Market market, Map<String, List<String>> photosByPlaceId) {
         MarketResponse response = new MarketResponse(market);
         
         // Set basic calculated fields
         response.setIsOpen(isMarketOpen(market));
         response.setCurrentCrowdLevel(getCurrentCrowdLevel(market));
         
-        // Get photos
-        List<MarketPhotoResponse> photos = getMarketPhotos(market.getGooglePlaceId());
+        // Attach photos resolved for this result set
+        List<MarketPhotoResponse> photos = toPhotoResponses(photosByPlaceId.get(market.getGooglePlaceId()));
         response.setPhotos(photos);
         
+        response.setWeather(weatherAt(market.getLatitude(), market.getLongitude()));
+        
         return response;
     }
     
+    // Prefetched weather for the market's grid cell; null rather than waiting on Open-Meteo
+    private MarketWeatherResponse weatherAt(BigDecimal latitude, BigDecimal longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return toMarketWeather(weatherCache.peek(latitude.doubleValue(), longitude.doubleValue()));
+    }
+    
+    MarketWeatherResponse toMarketWeather(WeatherService.WeatherData weather) {
+        if (weather == null) {
+            return null;
+        }
+        Integer rainChance = weather.forecast != null && !weather.forecast.isEmpty()
+                ? weather.forecast.get(0).rainChance : null;
+        return new MarketWeatherResponse(weather.currentTemp, weather.humidity, weather.condition,
+                rainChance, weather.time);
+    }
+    
+    // Rebuild a detached market from a projected row; columns that were not read stay unset
+    private Market toMarket(Map<String, Object> row) {
+        Market market = new Market();
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            Object value = column.getValue();
+            switch (column.getKey()) {
+                case "id": market.setId((Long) value); break;
+                case "googlePlaceId": market.setGooglePlaceId((String) value); break;
+                case "name": market.setName((String) value); break;
+                case "address": market.setAddress((String) value); break;
+                case "latitude": market.setLatitude((BigDecimal) value); break;
+                case "longitude": market.setLongitude((BigDecimal) value); break;
+                case "openingTime": market.setOpeningTime((LocalTime) value); break;
+                case "closingTime": market.setClosingTime((LocalTime) value); break;
+                case "description": market.setDescription((String) value); break;
+                case "specialties": market.setSpecialties((String) value); break;
+                case "highlights": market.setHighlights((String) value); break;
+                case "isCovered": market.setIsCovered((Boolean) value); break;
+                case "crowdLevelMorning": market.setCrowdLevelMorning((Market.CrowdLevel) value); break;
+                case "crowdLevelAfternoon": market.setCrowdLevelAfternoon((Market.CrowdLevel) value); break;
+                case "crowdLevelEvening": market.setCrowdLevelEvening((Market.CrowdLevel) value); break;
+                case "dataSource": market.setDataSource((Market.DataSource) value); break;
+                case "phoneNumber": market.setPhoneNumber((String) value); break;
+                case "website": market.setWebsite((String) value); break;
+                case "updatedAt": market.setUpdatedAt((LocalDateTime) value); break;
+                default: break;
+            }
+        }
+        return market;
+    }
+    
     // Get market by ID 
     public Optional<MarketResponse> getMarketById(Long id) {
+        return getMarketById(id, EnumSet.allOf(MarketField.class));
+    }
+    
+    // Single market with only the given fields; the reactive endpoint leaves out photos and fills them itself
+    public Optional<MarketResponse> getMarketById(Long id, Set<MarketField> fields) {
         return marketRepository.findById(id)
-                .map(this::convertToResponse);
+                .map(market -> {
+                    if (marketResponseCache.isEnabled()) {
+                        return toResponses(List.of(marketResponseCache.get(market)), fields).get(0);
+                    }
+                    MarketResponse response = convertToResponses(List.of(market), fields).get(0);
+                    MarketField.retainOnly(response, fields);
+                    return response;
+                });
     }
     
-
-    public List<MarketResponse> getMarketsByName(String name) {
-        List<Market> markets = marketRepository.findByNameContainingIgnoreCase(name);
-        return markets.stream().map(this::convertToResponse).collect(Collectors.toList());
+    // Nearby markets, nearest first unless another sort is requested; paged in memory
+    public MarketPage getMarketsWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm,
+                                             MarketPageRequest pageRequest) {
+        MarketSort sort = MarketSort.parse(pageRequest.getSort(), MarketSort.DISTANCE);
+        MarketCursor after = MarketCursor.decode(pageRequest.getCursor(), sort);
+        CrowdPeriod period = crowdPeriodFor(after);
+        Set<MarketField> fields = MarketField.parse(pageRequest.getFields());
+        int size = pageSize(pageRequest);
+        
+        double lat = latitude.doubleValue();
+        double lon = longitude.doubleValue();
+        List<MarketSpatialIndex.Hit> hits = marketSpatialIndex.isAvailable()
+                ? marketSpatialIndex.withinRadius(lat, lon, radiusKm)
+                : findWithinRadiusFromDatabase(lat, lon, radiusKm);
+        
+        List<MarketSpatialIndex.Hit> ordered = new ArrayList<>(hits);
+        ordered.sort((a, b) -> compareHits(a, b, sort, period));
+        
+        List<MarketSpatialIndex.Hit> page = new ArrayList<>();
+        boolean hasMore = false;
+        for (MarketSpatialIndex.Hit hit : ordered) {
+            if (after != null && compareToCursor(hit, after, sort, period) <= 0) {
+                continue;
+            }
+            if (page.size() == size) {
+                hasMore = true;
+                break;
+            }
+            page.add(hit);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            MarketSpatialIndex.Hit last = page.get(page.size() - 1);
+            nextCursor = new MarketCursor(sort, period,
+                    sortValue(last.getMarket(), last.getDistanceKm(), sort, period), last.getMarket().getId()).encode();
+        }
+        return new MarketPage(convertHits(page, fields), nextCursor);
     }
     
-    public List<MarketResponse> getMarketsWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
-        List<Market> markets = marketRepository.findMarketsWithinRadius(latitude, longitude, radiusKm);
-        return markets.stream().map(this::convertToResponse).collect(Collectors.toList());
+    // The closest markets to a point regardless of distance
+    public List<MarketResponse> getClosestMarkets(BigDecimal latitude, BigDecimal longitude, int limit, String fields) {
+        Set<MarketField> selected = MarketField.parse(fields);
+        double lat = latitude.doubleValue();
+        double lon = longitude.doubleValue();
+        
+        if (marketSpatialIndex.isAvailable()) {
+            return convertHits(marketSpatialIndex.nearest(lat, lon, limit), selected);
+        }
+        
+        // Widen the search circle until it holds enough markets or covers the globe
+        List<MarketSpatialIndex.Hit> hits = new ArrayList<>();
+        for (double radiusKm = CLOSEST_START_RADIUS_KM; ; radiusKm *= 4) {
+            hits = findWithinRadiusFromDatabase(lat, lon, radiusKm);
+            if (hits.size() >= limit || radiusKm >= CLOSEST_MAX_RADIUS_KM) {
+                break;
+            }
+        }
+        return convertHits(hits.subList(0, Math.min(limit, hits.size())), selected);
     }
     
-    public List<MarketResponse> getMarketsBySpecialty(String specialty) {
-        List<Market> markets = marketRepository.findBySpecialtiesContaining(specialty);
-        return markets.stream().map(this::convertToResponse).collect(Collectors.toList());
+    // Indexed bounding-box query, then exact distance in memory
+    private List<MarketSpatialIndex.Hit> findWithinRadiusFromDatabase(double lat, double lon, double radiusKm) {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lon, radiusKm);
+        
+        List<Market> candidates = marketRepository.findWithinBoundingBox(
+                BigDecimal.valueOf(box.getMinLatitude()), BigDecimal.valueOf(box.getMaxLatitude()),
+                BigDecimal.valueOf(box.getMinLongitude()), BigDecimal.valueOf(box.getMaxLongitude()));
+        
+        List<MarketSpatialIndex.Hit> hits = new ArrayList<>();
+        for (Market market : candidates) {
+            double distance = GeoUtils.distanceKm(lat, lon,
+                    market.getLatitude().doubleValue(), market.getLongitude().doubleValue());
+            if (distance <= radiusKm) {
+                hits.add(new MarketSpatialIndex.Hit(market, distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(MarketSpatialIndex.Hit::getDistanceKm));
+        return hits;
     }
     
-    public List<MarketResponse> getCoveredMarkets() {
-        List<Market> markets = marketRepository.findByIsCoveredTrue();
-        return markets.stream().map(this::convertToResponse).collect(Collectors.toList());
+    // Convert hits, keeping their order and distance
+    private List<MarketResponse> convertHits(List<MarketSpatialIndex.Hit> hits, Set<MarketField> fields) {
+        List<MarketResponse> responses;
+        if (marketResponseCache.isEnabled()) {
+            responses = toResponses(hits.stream()
+                    .map(hit -> marketResponseCache.get(hit.getMarket()))
+                    .collect(Collectors.toList()), fields);
+        } else {
+            responses = convertToResponses(hits.stream()
+                    .map(MarketSpatialIndex.Hit::getMarket)
+                    .collect(Collectors.toList()), fields);
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            responses.get(i).setDistanceKm(hits.get(i).getDistanceKm());
+            MarketField.retainOnly(responses.get(i), fields);
+        }
+        return responses;
     }
     
-    public List<MarketResponse> getMarketsByCrowdLevel(String timeOfDay, Market.CrowdLevel crowdLevel) {
-        List<Market> markets;
-        switch (timeOfDay.toLowerCase()) {
-            case "morning":
-                markets = marketRepository.findByCrowdLevelMorning(crowdLevel);
+    // Hit ordering for in-memory sorts; ties fall back to ID like the database queries
+    private int compareHits(MarketSpatialIndex.Hit a, MarketSpatialIndex.Hit b, MarketSort sort, CrowdPeriod period) {
+        Market market = a.getMarket();
+        Market other = b.getMarket();
+        int result;
+        switch (sort) {
+            case NAME:
+                result = String.CASE_INSENSITIVE_ORDER.compare(market.getName(), other.getName());
                 break;
-            case "afternoon":
-                markets = marketRepository.findByCrowdLevelAfternoon(crowdLevel);
+            case CROWD_LEVEL:
+                result = Integer.compare(period.levelOf(market).ordinal(), period.levelOf(other).ordinal());
                 break;
-            case "evening":
-                markets = marketRepository.findByCrowdLevelEvening(crowdLevel);
+            default:
+                result = Double.compare(a.getDistanceKm(), b.getDistanceKm());
+        }
+        return result != 0 ? result : Long.compare(market.getId(), other.getId());
+    }
+    
+    private int compareToCursor(MarketSpatialIndex.Hit hit, MarketCursor after, MarketSort sort, CrowdPeriod period) {
+        Market market = hit.getMarket();
+        int result;
+        switch (sort) {
+            case NAME:
+                result = String.CASE_INSENSITIVE_ORDER.compare(market.getName(), after.getValue());
+                break;
+            case CROWD_LEVEL:
+                result = Integer.compare(period.levelOf(market).ordinal(), Integer.parseInt(after.getValue()));
                 break;
             default:
-                markets = marketRepository.findByCrowdLevelMorning(crowdLevel);
+                result = Double.compare(hit.getDistanceKm(), Double.parseDouble(after.getValue()));
         }
-        return markets.stream().map(this::convertToResponse).collect(Collectors.toList());
+        return result != 0 ? result : Long.compare(market.getId(), after.getId());
     }
     
-
+    private String sortValue(Market market, double distanceKm, MarketSort sort, CrowdPeriod period) {
+        switch (sort) {
+            case NAME:
+                return market.getName();
+            case CROWD_LEVEL:
+                return String.valueOf(period.levelOf(market).ordinal());
+            default:
+                return Double.toString(distanceKm);
+        }
+    }
     
-    // Get market photos
-    private List<MarketPhotoResponse> getMarketPhotos(String placeId) {
+    // Later pages keep ranking crowds by the period the first page used
+    private CrowdPeriod crowdPeriodFor(MarketCursor after) {
+        if (after != null && after.getCrowdPeriod() != null) {
+            return after.getCrowdPeriod();
+        }
+        return CrowdPeriod.at(LocalTime.now());
+    }
+    
+    private int pageSize(MarketPageRequest pageRequest) {
+        Integer requested = pageRequest.getSize();
+        if (requested == null && pageRequest.getCursor() == null) {
+            return UNPAGED_SIZE;
+        }
+        if (requested == null || requested <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(requested, maxPageSize);
+    }
+    
+    // Build photo responses from resolved URLs
+    List<MarketPhotoResponse> toPhotoResponses(List<String> photoUrls) {
         List<MarketPhotoResponse> photoResponses = new ArrayList<>();
         
-        if (placeId == null || placeId.trim().isEmpty()) {
+        if (photoUrls == null) {
             return photoResponses;
         }
         
-        try {
-            List<String> photoUrls = googlePlacesService.getPlacePhotos(placeId, 3);
-            
-            for (int i = 0; i < photoUrls.size(); i++) {
-                MarketPhotoResponse photo = new MarketPhotoResponse();
-                photo.setId((long) i);
-                photo.setPhotoUrl(photoUrls.get(i));
-                photo.setIsPrimary(i == 0);
-                photoResponses.add(photo);
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading photos: " + e.getMessage());
+        for (int i = 0; i < photoUrls.size(); i++) {
+            MarketPhotoResponse photo = new MarketPhotoResponse();
+            photo.setId((long) i);
+            photo.setPhotoUrl(photoUrls.get(i));
+            photo.setIsPrimary(i == 0);
+            photoResponses.add(photo);
         }
         
         return photoResponses;
@@ -120,14 +547,14 @@ public class MarketService {
     
     //Check if market is open
     private Boolean isMarketOpen(Market market) {
-        if (market.getOpeningTime() == null || market.getClosingTime() == null) {
+        return isMarketOpen(market.getOpeningTime(), market.getClosingTime(), LocalTime.now());
+    }
+    
+    private Boolean isMarketOpen(LocalTime opening, LocalTime closing, LocalTime now) {
+        if (opening == null || closing == null) {
             return null;
         }
         
-        LocalTime now = LocalTime.now();
-        LocalTime opening = market.getOpeningTime();
-        LocalTime closing = market.getClosingTime();
-        
         if (closing.isBefore(opening)) {
             // Market is open overnight
             return now.isAfter(opening) || now.isBefore(closing);
@@ -139,18 +566,7 @@ public class MarketService {
     
     //Get current crowd level
     private String getCurrentCrowdLevel(Market market) {
-        LocalTime now = LocalTime.now();
-        
-        if (now.isAfter(LocalTime.of(6, 0)) && now.isBefore(LocalTime.of(12, 0))) {
-            return market.getCrowdLevelMorning() != null ? 
-                   market.getCrowdLevelMorning().toString().toLowerCase() : "medium";
-        } else if (now.isAfter(LocalTime.of(12, 0)) && now.isBefore(LocalTime.of(18, 0))) {
-            return market.getCrowdLevelAfternoon() != null ? 
-                   market.getCrowdLevelAfternoon().toString().toLowerCase() : "medium";
-        } else {
-            return market.getCrowdLevelEvening() != null ? 
-                   market.getCrowdLevelEvening().toString().toLowerCase() : "low";
-        }
+        return CrowdPeriod.at(LocalTime.now()).levelOf(market).toString().toLowerCase();
     }
     
     //Sync with Google Places
@@ -161,31 +577,16 @@ public class MarketService {
                 Market market = marketOpt.get();
                 googlePlacesService.updateMarketWithGoogle(market);
                 marketRepository.save(market);
-                System.out.println("Synced market: " + market.getName());
+                log.debug("Synced market {} with Google Places", marketId);
             }
         } catch (Exception e) {
-            System.err.println("Sync failed: " + e.getMessage());
+            log.warn("Google Places sync failed for market {}: {}", marketId, e.getMessage());
         }
     }
     
-    //Sync all markets
-    public void syncAllMarkets() {
-        List<Market> markets = marketRepository.findAll();
-        
-        for (Market market : markets) {
-            if (market.getGooglePlaceId() != null) {
-                try {
-                    googlePlacesService.updateMarketWithGoogle(market);
-                    marketRepository.save(market);
-                    System.out.println("Synced: " + market.getName());
-                    
-                    // Small delay to avoid rate limits
-                    Thread.sleep(200);
-                } catch (Exception e) {
-                    System.err.println("Error syncing " + market.getName() + ": " + e.getMessage());
-                }
-            }
-        }
+    // Sync every stale market with Google Places; see MarketSyncEngine
+    public MarketSyncEngine.SyncResult syncAllMarkets() {
+        return marketSyncEngine.syncStaleMarkets();
     }
     
     // Get market statistics
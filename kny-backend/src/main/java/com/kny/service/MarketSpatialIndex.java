@@ -0,0 +1,364 @@
+package com.kny.service;
+
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.GeoUtils;
+import com.kny.util.WorkerThreads;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory grid index over market coordinates for radius and k-nearest
+ * queries. Coordinates live in primitive arrays bucketed into fixed-size
+ * lat/lon cells. The index is loaded once at startup and fully reloaded on a
+ * schedule. {@link MarketChangedEvent}s are queued and applied together by a
+ * background thread, so a bulk sync costs one rebuild rather than one per
+ * market and queries keep reading the current snapshot while it runs.
+ * Callers fall back to the database whenever {@link #isAvailable()} is false.
+ */
+@Service
+public class MarketSpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSpatialIndex.class);
+
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_KM;
+
+    // Past this many cells a ring search costs more than scanning every point
+    private static final int MAX_RING_CELLS = 4096;
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Value("${app.markets.spatial-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.markets.spatial-index.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    @Value("${app.markets.spatial-index.max-age:1h}")
+    private Duration maxAge;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    // Latest change per market not yet applied to the snapshot
+    private final Map<Long, MarketChangedEvent> pending = new ConcurrentHashMap<>();
+
+    // Changes seen while rebuild() reads the table, queued again once its snapshot is in place
+    private volatile Map<Long, MarketChangedEvent> changedDuringLoad;
+
+    private final AtomicBoolean applyScheduled = new AtomicBoolean();
+
+    private final ExecutorService applier = Executors.newSingleThreadExecutor(
+            WorkerThreads.factory("spatial-index-", false));
+
+    // True when the index is enabled, loaded and recently refreshed
+    public boolean isAvailable() {
+        Snapshot current = snapshot;
+        return enabled && current != null && !current.isStale(maxAge);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.markets.spatial-index.refresh-interval:PT15M}",
+               initialDelayString = "${app.markets.spatial-index.refresh-interval:PT15M}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, MarketChangedEvent> changed = new ConcurrentHashMap<>();
+        changedDuringLoad = changed;
+        try {
+            List<Market> markets = marketRepository.findAll();
+            writeLock.lock();
+            try {
+                snapshot = new Snapshot(markets, cellSizeDegrees, Instant.now());
+            } finally {
+                writeLock.unlock();
+            }
+            log.info("Spatial index loaded with {} markets", markets.size());
+        } catch (Exception e) {
+            log.warn("Spatial index rebuild failed, nearby queries will use the database: {}", e.getMessage());
+        } finally {
+            changedDuringLoad = null;
+        }
+        // findAll() may have read a row before its change was saved, and the swap dropped any
+        // change already applied to the old snapshot; anything newer is still in pending
+        changed.forEach(pending::putIfAbsent);
+        scheduleApply();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMarketChanged(MarketChangedEvent event) {
+        Market changed = event.getMarket();
+        if (!enabled || changed.getId() == null) {
+            return;
+        }
+        Map<Long, MarketChangedEvent> loading = changedDuringLoad;
+        if (loading != null) {
+            loading.put(changed.getId(), event);
+        }
+        pending.put(changed.getId(), event);
+        scheduleApply();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        applier.shutdownNow();
+    }
+
+    // At most one apply waits to run; changes arriving while it runs start the next one
+    private void scheduleApply() {
+        if (pending.isEmpty() || !applyScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            applier.execute(() -> {
+                applyScheduled.set(false);
+                applyPending();
+            });
+        } catch (RejectedExecutionException e) {
+            applyScheduled.set(false);
+        }
+    }
+
+    // Copy the snapshot with the queued changes; readers use the old one until it is swapped in
+    void applyPending() {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null || pending.isEmpty()) {
+                return;
+            }
+            Map<Long, MarketChangedEvent> batch = new HashMap<>(pending);
+            List<Market> markets = new ArrayList<>(current.markets.length + batch.size());
+            for (Market market : current.markets) {
+                if (!batch.containsKey(market.getId())) {
+                    markets.add(market);
+                }
+            }
+            for (MarketChangedEvent event : batch.values()) {
+                if (!event.isDeleted()) {
+                    markets.add(event.getMarket());
+                }
+            }
+            // Keep the original load time so periodic full reloads still happen
+            snapshot = new Snapshot(markets, cellSizeDegrees, current.loadedAt);
+            // Changes queued while rebuilding stay for the next batch
+            batch.forEach(pending::remove);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Markets within radiusKm, nearest first
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        Snapshot current = snapshot;
+        List<Hit> hits = new ArrayList<>();
+        if (current == null) {
+            return hits;
+        }
+
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radiusKm);
+        int minRow = current.row(box.getMinLatitude());
+        int maxRow = current.row(box.getMaxLatitude());
+        int minCol = current.col(box.getMinLongitude());
+        // A box spanning every longitude must not reach the first column again after wrapping
+        int maxCol = Math.min(current.col(box.getMaxLongitude()), minCol + current.columns - 1);
+
+        if ((long) (maxRow - minRow + 1) * (maxCol - minCol + 1) > MAX_RING_CELLS) {
+            for (int i = 0; i < current.markets.length; i++) {
+                addIfWithin(current, i, latitude, longitude, radiusKm, hits);
+            }
+        } else {
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    int[] members = current.cells.get(current.cellKey(row, col));
+                    if (members != null) {
+                        for (int i : members) {
+                            addIfWithin(current, i, latitude, longitude, radiusKm, hits);
+                        }
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits;
+    }
+
+    // The k markets closest to the given point, nearest first
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        Snapshot current = snapshot;
+        List<Hit> hits = new ArrayList<>();
+        if (current == null || k <= 0) {
+            return hits;
+        }
+
+        // Max-heap on distance holding the best k candidates seen so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        int centreRow = current.row(latitude);
+        int centreCol = current.col(longitude);
+
+        // Height of a cell in km
+        double cellKm = cellSizeDegrees * KM_PER_DEGREE;
+
+        boolean exhausted = false;
+        for (int ring = 0; ; ring++) {
+            int side = 2 * ring + 1;
+            // Columns wrap at the antimeridian; a ring wider than the globe would visit cells twice
+            if ((long) side * side > MAX_RING_CELLS || (long) side * side > 4L * current.cells.size() + 16
+                    || side > current.columns) {
+                exhausted = true;
+                break;
+            }
+            for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+                for (int col = centreCol - ring; col <= centreCol + ring; col++) {
+                    if (Math.abs(row - centreRow) != ring && Math.abs(col - centreCol) != ring) {
+                        continue;
+                    }
+                    int[] members = current.cells.get(current.cellKey(row, col));
+                    if (members != null) {
+                        for (int i : members) {
+                            offer(best, k, new Hit(current.markets[i],
+                                    GeoUtils.distanceKm(latitude, longitude, current.latitudes[i], current.longitudes[i])));
+                        }
+                    }
+                }
+            }
+            // Anything outside the rings searched so far is at least this far away
+            // (small safety margin because great circles are slightly shorter than parallels)
+            double lowerBoundKm = 0.99 * ring * cellKm * Math.cos(Math.toRadians(Math.min(89.0,
+                    Math.abs(latitude) + (ring + 1) * cellSizeDegrees)));
+            if (best.size() == k && best.peek().getDistanceKm() <= lowerBoundKm) {
+                break;
+            }
+        }
+
+        if (exhausted) {
+            best.clear();
+            for (int i = 0; i < current.markets.length; i++) {
+                offer(best, k, new Hit(current.markets[i],
+                        GeoUtils.distanceKm(latitude, longitude, current.latitudes[i], current.longitudes[i])));
+            }
+        }
+
+        hits.addAll(best);
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits;
+    }
+
+    private void addIfWithin(Snapshot current, int i, double latitude, double longitude, double radiusKm, List<Hit> hits) {
+        double distance = GeoUtils.distanceKm(latitude, longitude, current.latitudes[i], current.longitudes[i]);
+        if (distance <= radiusKm) {
+            hits.add(new Hit(current.markets[i], distance));
+        }
+    }
+
+    private void offer(PriorityQueue<Hit> best, int k, Hit hit) {
+        if (best.size() < k) {
+            best.add(hit);
+        } else if (hit.getDistanceKm() < best.peek().getDistanceKm()) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    // Immutable view of the index; replaced wholesale on every change
+    private static final class Snapshot {
+        private final Market[] markets;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final Map<Long, int[]> cells;
+        private final double cellSize;
+        private final int columns;
+        private final Instant loadedAt;
+
+        Snapshot(List<Market> source, double cellSize, Instant loadedAt) {
+            List<Market> located = new ArrayList<>(source.size());
+            for (Market market : source) {
+                if (market.getId() != null && market.getLatitude() != null && market.getLongitude() != null) {
+                    located.add(market);
+                }
+            }
+
+            this.cellSize = cellSize;
+            // With a cell size that does not divide 360 the last column is narrower than the rest
+            this.columns = (int) Math.ceil(360.0 / cellSize);
+            this.loadedAt = loadedAt;
+            this.markets = located.toArray(new Market[0]);
+            this.latitudes = new double[markets.length];
+            this.longitudes = new double[markets.length];
+
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < markets.length; i++) {
+                latitudes[i] = markets[i].getLatitude().doubleValue();
+                longitudes[i] = markets[i].getLongitude().doubleValue();
+                buckets.computeIfAbsent(cellKey(row(latitudes[i]), col(longitudes[i])), key -> new ArrayList<>()).add(i);
+            }
+
+            this.cells = new HashMap<>(buckets.size() * 2);
+            for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+                this.cells.put(bucket.getKey(), bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        int row(double latitude) {
+            return (int) Math.floor((latitude + 90.0) / cellSize);
+        }
+
+        int col(double longitude) {
+            return (int) Math.floor((longitude + 180.0) / cellSize);
+        }
+
+        // Column indexes wrap, so cells either side of the antimeridian are neighbours
+        long cellKey(int row, int col) {
+            return ((long) row << 32) | Math.floorMod(col, columns);
+        }
+
+        boolean isStale(Duration maxAge) {
+            return loadedAt.plus(maxAge).isBefore(Instant.now());
+        }
+    }
+
+    public static class Hit {
+        private final Market market;
+        private final double distanceKm;
+
+        public Hit(Market market, double distanceKm) {
+            this.market = market;
+            this.distanceKm = distanceKm;
+        }
+
+        public Market getMarket() { return market; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
@@ -0,0 +1,288 @@
+package com.kny.service;
+
+import com.kny.dto.MarketSuggestion;
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.TextUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Typeahead over market names and specialties. Each market contributes
+ * folded keys for its full name, every word-start of its name and every
+ * word-start of each comma-separated specialty; keys live in sorted arrays
+ * searched with a binary search, so a lookup costs O(log n + limit).
+ * Saved markets are queued and merged into fresh arrays together on the next
+ * lookup, without a full reload.
+ */
+@Service
+public class MarketSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSuggestIndex.class);
+
+    private static final int MAX_SNIPPET_LENGTH = 60;
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+            Comparator.comparing((Entry entry) -> entry.key).thenComparingLong(entry -> entry.marketId);
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Value("${app.markets.suggest-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.markets.suggest-index.max-age:1h}")
+    private Duration maxAge;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    // Latest change per market not yet merged into the snapshot
+    private final Map<Long, MarketChangedEvent> pending = new ConcurrentHashMap<>();
+
+    // True when the index is enabled, loaded and recently refreshed
+    public boolean isAvailable() {
+        Snapshot current = snapshot;
+        return enabled && current != null && !current.loadedAt.plus(maxAge).isBefore(Instant.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.markets.suggest-index.refresh-interval:PT15M}",
+               initialDelayString = "${app.markets.suggest-index.refresh-interval:PT15M}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Market> markets = marketRepository.findAll();
+            List<List<Entry>> kinds = emptyKinds();
+            for (Market market : markets) {
+                addEntries(kinds, market);
+            }
+            Entry[][] sorted = new Entry[Kind.values().length][];
+            for (int k = 0; k < sorted.length; k++) {
+                sorted[k] = kinds.get(k).toArray(new Entry[0]);
+                Arrays.sort(sorted[k], ENTRY_ORDER);
+            }
+            writeLock.lock();
+            try {
+                snapshot = new Snapshot(sorted, Instant.now());
+            } finally {
+                writeLock.unlock();
+            }
+            log.info("Suggestion index loaded with {} markets", markets.size());
+        } catch (Exception e) {
+            log.warn("Suggestion index rebuild failed, suggestions will use the database: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMarketChanged(MarketChangedEvent event) {
+        Market changed = event.getMarket();
+        if (!enabled || changed.getId() == null) {
+            return;
+        }
+        pending.put(changed.getId(), event);
+    }
+
+    // The snapshot with queued changes merged in
+    private Snapshot current() {
+        if (!pending.isEmpty()) {
+            applyPending();
+        }
+        return snapshot;
+    }
+
+    private void applyPending() {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null || pending.isEmpty()) {
+                return;
+            }
+            Map<Long, MarketChangedEvent> batch = new HashMap<>(pending);
+            List<List<Entry>> added = emptyKinds();
+            for (MarketChangedEvent event : batch.values()) {
+                if (!event.isDeleted()) {
+                    addEntries(added, event.getMarket());
+                }
+            }
+            Entry[][] merged = new Entry[current.kinds.length][];
+            for (int k = 0; k < merged.length; k++) {
+                List<Entry> additions = added.get(k);
+                additions.sort(ENTRY_ORDER);
+                merged[k] = merge(current.kinds[k], batch.keySet(), additions);
+            }
+            // Keep the original load time so periodic full reloads still happen
+            snapshot = new Snapshot(merged, current.loadedAt);
+            // Changes queued while merging stay for the next batch
+            batch.forEach(pending::remove);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Up to limit distinct markets whose name or a specialty has a word starting with the prefix
+    public List<MarketSuggestion> suggest(String prefix, int limit) {
+        List<MarketSuggestion> suggestions = new ArrayList<>();
+        String key = TextUtils.fold(prefix);
+        Snapshot current = current();
+        if (key.isEmpty() || current == null || limit <= 0) {
+            return suggestions;
+        }
+
+        // Kinds are searched in priority order: name starts, name words, then specialties
+        Map<Long, Entry> matches = new LinkedHashMap<>();
+        for (Entry[] entries : current.kinds) {
+            for (int i = lowerBound(entries, key); i < entries.length && matches.size() < limit; i++) {
+                Entry entry = entries[i];
+                if (!entry.key.startsWith(key)) {
+                    break;
+                }
+                matches.putIfAbsent(entry.marketId, entry);
+            }
+        }
+
+        for (Entry entry : matches.values()) {
+            suggestions.add(new MarketSuggestion(entry.marketId, entry.name, entry.snippet));
+        }
+        return suggestions;
+    }
+
+    // First comma-separated specialties, cut to fit a suggestion row
+    static String shortSpecialties(String specialties) {
+        if (specialties == null || specialties.isBlank()) {
+            return null;
+        }
+        String trimmed = specialties.trim();
+        if (trimmed.length() <= MAX_SNIPPET_LENGTH) {
+            return trimmed;
+        }
+        int cut = trimmed.lastIndexOf(',', MAX_SNIPPET_LENGTH);
+        return (cut > 0 ? trimmed.substring(0, cut) : trimmed.substring(0, MAX_SNIPPET_LENGTH)).trim() + "...";
+    }
+
+    private void addEntries(List<List<Entry>> kinds, Market market) {
+        if (market.getId() == null || market.getName() == null) {
+            return;
+        }
+        long id = market.getId();
+        String name = market.getName();
+        String nameSnippet = shortSpecialties(market.getSpecialties());
+
+        List<String> nameWords = TextUtils.words(name);
+        for (int i = 0; i < nameWords.size(); i++) {
+            String key = String.join(" ", nameWords.subList(i, nameWords.size()));
+            kinds.get((i == 0 ? Kind.NAME_START : Kind.NAME_WORD).ordinal()).add(new Entry(key, id, name, nameSnippet));
+        }
+
+        if (market.getSpecialties() != null) {
+            for (String specialty : market.getSpecialties().split(",")) {
+                List<String> words = TextUtils.words(specialty);
+                for (int i = 0; i < words.size(); i++) {
+                    String key = String.join(" ", words.subList(i, words.size()));
+                    kinds.get(Kind.SPECIALTY.ordinal()).add(new Entry(key, id, name, specialty.trim()));
+                }
+            }
+        }
+    }
+
+    // Drop the changed markets' old entries and merge in their new ones, both inputs sorted
+    private Entry[] merge(Entry[] existing, Set<Long> marketIds, List<Entry> additions) {
+        Entry[] merged = new Entry[existing.length + additions.size()];
+        int size = 0;
+        int a = 0;
+        for (Entry entry : existing) {
+            if (marketIds.contains(entry.marketId)) {
+                continue;
+            }
+            while (a < additions.size() && ENTRY_ORDER.compare(additions.get(a), entry) < 0) {
+                merged[size++] = additions.get(a++);
+            }
+            merged[size++] = entry;
+        }
+        while (a < additions.size()) {
+            merged[size++] = additions.get(a++);
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private int lowerBound(Entry[] entries, String key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private List<List<Entry>> emptyKinds() {
+        List<List<Entry>> kinds = new ArrayList<>();
+        for (int k = 0; k < Kind.values().length; k++) {
+            kinds.add(new ArrayList<>());
+        }
+        return kinds;
+    }
+
+    private enum Kind {
+        NAME_START,
+        NAME_WORD,
+        SPECIALTY
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final long marketId;
+        private final String name;
+        private final String snippet;
+
+        Entry(String key, long marketId, String name, String snippet) {
+            this.key = key;
+            this.marketId = marketId;
+            this.name = name;
+            this.snippet = snippet;
+        }
+    }
+
+    // Immutable view of the index; replaced wholesale on every change
+    private static final class Snapshot {
+        private final Entry[][] kinds;
+        private final Instant loadedAt;
+
+        Snapshot(Entry[][] kinds, Instant loadedAt) {
+            this.kinds = kinds;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.kny.service;
+
+import com.kny.model.Market;
+import com.kny.model.MarketSyncState;
+import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSyncStateRepository;
+import com.kny.util.TokenBucket;
+import com.kny.util.WorkerThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk Google Places sync. Details are fetched by a pool of workers sharing
+ * one token bucket, so the outbound rate stays under the Places quota however
+ * many workers run. Transient failures are retried with exponential backoff.
+ * Results are written back on the calling thread in batches of the Hibernate
+ * JDBC batch size, one transaction per batch, together with each market's
+ * {@link MarketSyncState} so failing markets back off instead of being
+ * retried on every run.
+ */
+@Service
+public class MarketSyncEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSyncEngine.class);
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private GooglePlacesService googlePlacesService;
+
+    @Autowired
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.google.sync.stale-after:P30D}")
+    private Duration staleAfter;
+
+    @Value("${app.google.sync.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    @Value("${app.google.sync.burst:10}")
+    private int burst;
+
+    @Value("${app.google.sync.workers:8}")
+    private int workers;
+
+    @Value("${app.google.sync.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.google.sync.initial-backoff:PT1S}")
+    private Duration initialBackoff;
+
+    @Value("${app.google.sync.failure-backoff:PT1H}")
+    private Duration failureBackoff;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Markets left in the current run
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private TokenBucket rateLimiter;
+    private Counter synced;
+    private Counter notFound;
+    private Counter failed;
+    private Counter retries;
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        this.rateLimiter = new TokenBucket(requestsPerSecond, Math.max(1, burst));
+        this.synced = Counter.builder("market.sync.markets").tag("result", "synced").register(meterRegistry);
+        this.notFound = Counter.builder("market.sync.markets").tag("result", "not_found").register(meterRegistry);
+        this.failed = Counter.builder("market.sync.markets").tag("result", "failed").register(meterRegistry);
+        this.retries = Counter.builder("market.sync.retries").register(meterRegistry);
+        this.runTimer = Timer.builder("market.sync.run").register(meterRegistry);
+        meterRegistry.gauge("market.sync.pending", pending);
+    }
+
+    // Sync every market whose last Google sync is missing or older than stale-after
+    public SyncResult syncStaleMarkets() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        return sync(marketRepository.findMarketsNeedingGoogleSync(cutoff));
+    }
+
+    /**
+     * Fetch and store Places details for the given markets. Markets without a
+     * place ID are skipped. Only one sync runs at a time; a call made while
+     * another is in progress returns a skipped result straight away.
+     */
+    public SyncResult sync(List<Market> markets) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Google sync already running, skipping this run");
+            return SyncResult.skipped();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long start = System.nanoTime();
+        try {
+            return run(markets.stream()
+                    .filter(market -> market.getGooglePlaceId() != null)
+                    .collect(Collectors.toList()), start);
+        } finally {
+            pending.set(0);
+            sample.stop(runTimer);
+            running.set(false);
+        }
+    }
+
+    private SyncResult run(List<Market> markets, long start) {
+        if (markets.isEmpty()) {
+            return new SyncResult(0, 0, 0, Duration.ZERO);
+        }
+        pending.set(markets.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(workers, markets.size())), WorkerThreads.factory("market-sync-", virtualThreads));
+        CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+        int syncedCount = 0;
+        int notFoundCount = 0;
+        int failedCount = 0;
+        try {
+            for (Market market : markets) {
+                completion.submit(() -> fetch(market));
+            }
+
+            List<Outcome> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < markets.size(); i++) {
+                Outcome outcome = completion.take().get();
+                pending.decrementAndGet();
+                if (outcome.failed) {
+                    failedCount++;
+                    failed.increment();
+                } else if (outcome.details != null) {
+                    syncedCount++;
+                    synced.increment();
+                } else {
+                    notFoundCount++;
+                    notFound.increment();
+                }
+                batch.add(outcome);
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            write(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Google sync interrupted");
+        } catch (ExecutionException e) {
+            // fetch() catches everything, so this only happens on a bug
+            log.error("Google sync worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        SyncResult result = new SyncResult(syncedCount, notFoundCount, failedCount, elapsed);
+        log.info("Google sync finished: {} synced, {} not found, {} failed in {} ms ({} markets/s)",
+                syncedCount, notFoundCount, failedCount, elapsed.toMillis(), String.format("%.1f", result.getThroughput()));
+        return result;
+    }
+
+    // Runs on a worker: rate-limited Places call with retries for transient errors
+    private Outcome fetch(Market market) {
+        Duration backoff = initialBackoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                return Outcome.fetched(market.getId(), googlePlacesService.fetchPlaceDetails(market.getGooglePlaceId()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Outcome.failed(market.getId(), "Interrupted");
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    log.warn("Google sync failed for market {} after {} attempt(s): {}", market.getId(), attempt, e.getMessage());
+                    return Outcome.failed(market.getId(), e.getMessage());
+                }
+                retries.increment();
+                try {
+                    // Full jitter keeps retrying workers from hitting the API in lockstep
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(backoff.toMillis() / 2, backoff.toMillis() + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return Outcome.failed(market.getId(), "Interrupted");
+                }
+                backoff = backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    // Timeouts, 429 and 5xx responses, and quota statuses in the body are retried
+    private boolean isTransient(Exception e) {
+        if (e instanceof GooglePlacesService.PlacesStatusException) {
+            return ((GooglePlacesService.PlacesStatusException) e).isTransient();
+        }
+        if (e instanceof HttpStatusCodeException) {
+            HttpStatusCodeException statusError = (HttpStatusCodeException) e;
+            return statusError.getStatusCode().is5xxServerError()
+                    || statusError.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    // Apply a batch of results to freshly loaded markets; the changes flush as one JDBC batch on commit
+    private void write(List<Outcome> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> ids = batch.stream().map(outcome -> outcome.marketId).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, Market> managed = marketRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Market::getId, Function.identity()));
+            Map<Long, MarketSyncState> states = marketSyncStateRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(MarketSyncState::getMarketId, Function.identity()));
+
+            List<MarketSyncState> changed = new ArrayList<>(batch.size());
+            for (Outcome outcome : batch) {
+                Market market = managed.get(outcome.marketId);
+                if (market == null) {
+                    // Deleted while its details were being fetched
+                    continue;
+                }
+                MarketSyncState state = states.computeIfAbsent(outcome.marketId, MarketSyncState::new);
+                state.setLastAttemptAt(now);
+                if (outcome.failed) {
+                    int failures = state.getConsecutiveFailures() + 1;
+                    state.setStatus(MarketSyncState.Status.FAILED);
+                    state.setConsecutiveFailures(failures);
+                    state.setLastError(truncate(outcome.error));
+                    state.setNextAttemptAt(now.plus(backoffAfter(failures)));
+                } else {
+                    if (outcome.details != null) {
+                        googlePlacesService.applyPlaceDetails(market, outcome.details);
+                        state.setStatus(MarketSyncState.Status.SYNCED);
+                    } else {
+                        // Google no longer knows the place; wait a full interval before asking again
+                        market.setLastGoogleSync(now);
+                        state.setStatus(MarketSyncState.Status.NOT_FOUND);
+                    }
+                    state.setConsecutiveFailures(0);
+                    state.setLastError(null);
+                    state.setNextAttemptAt(null);
+                }
+                changed.add(state);
+            }
+            marketSyncStateRepository.saveAll(changed);
+        });
+    }
+
+    // failure-backoff doubled per failure in a row, never longer than stale-after
+    private Duration backoffAfter(int failures) {
+        Duration backoff = failureBackoff.multipliedBy(1L << Math.min(failures - 1, 20));
+        return backoff.compareTo(staleAfter) > 0 ? staleAfter : backoff;
+    }
+
+    private String truncate(String error) {
+        return error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    private static final class Outcome {
+        private final Long marketId;
+        private final GooglePlacesService.PlaceDetails details;
+        private final boolean failed;
+        private final String error;
+
+        private Outcome(Long marketId, GooglePlacesService.PlaceDetails details, boolean failed, String error) {
+            this.marketId = marketId;
+            this.details = details;
+            this.failed = failed;
+            this.error = error;
+        }
+
+        // Details are null when Google no longer knows the place
+        static Outcome fetched(Long marketId, GooglePlacesService.PlaceDetails details) {
+            return new Outcome(marketId, details, false, null);
+        }
+
+        static Outcome failed(Long marketId, String error) {
+            return new Outcome(marketId, null, true, error);
+        }
+    }
+
+    public static class SyncResult {
+        private final int synced;
+        private final int notFound;
+        private final int failed;
+        private final Duration elapsed;
+        private final boolean skipped;
+
+        public SyncResult(int synced, int notFound, int failed, Duration elapsed) {
+            this(synced, notFound, failed, elapsed, false);
+        }
+
+        private SyncResult(int synced, int notFound, int failed, Duration elapsed, boolean skipped) {
+            this.synced = synced;
+            this.notFound = notFound;
+            this.failed = failed;
+            this.elapsed = elapsed;
+            this.skipped = skipped;
+        }
+
+        // Another sync was already running, so nothing was attempted
+        static SyncResult skipped() {
+            return new SyncResult(0, 0, 0, Duration.ZERO, true);
+        }
+
+        public int getSynced() { return synced; }
+        public int getNotFound() { return notFound; }
+        public int getFailed() { return failed; }
+        public Duration getElapsed() { return elapsed; }
+        public boolean isSkipped() { return skipped; }
+
+        // Markets the engine fetched, whatever the outcome
+        public int getAttempted() {
+            return synced + notFound + failed;
+        }
+
+        // Markets processed per second
+        public double getThroughput() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds > 0 ? getAttempted() / seconds : 0.0;
+        }
+    }
+}
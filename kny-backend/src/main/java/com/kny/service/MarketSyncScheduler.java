@@ -0,0 +1,159 @@
+package com.kny.service;
+
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSyncStateRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives {@link MarketSyncEngine} on a schedule. Every tick takes a share of
+ * the daily request budget, so outbound calls are spread evenly over the day
+ * instead of arriving as one burst. Stale markets are read in keyset chunks:
+ * never-synced markets by ID first, then the rest oldest lastGoogleSync first.
+ * Progress lives in the database (lastGoogleSync and market_sync_state are
+ * committed per batch), so after a restart the next tick simply continues
+ * with whatever is still stale.
+ */
+@Service
+public class MarketSyncScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSyncScheduler.class);
+
+    // Keyset start for the lastGoogleSync phase; earlier than any real sync time
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @Autowired
+    private MarketSyncEngine marketSyncEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.google.sync.schedule.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.google.sync.schedule.interval:PT15M}")
+    private Duration interval;
+
+    @Value("${app.google.sync.schedule.daily-budget:2000}")
+    private int dailyBudget;
+
+    @Value("${app.google.sync.schedule.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${app.google.sync.stale-after:P30D}")
+    private Duration staleAfter;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong backingOff = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    private Timer tickTimer;
+
+    @PostConstruct
+    public void init() {
+        this.tickTimer = Timer.builder("market.sync.schedule.run").register(meterRegistry);
+        // Refreshed at the end of every tick rather than queried on each scrape
+        Gauge.builder("market.sync.queue.depth", queueDepth, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("market.sync.queue.backing.off", backingOff, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("market.sync.lag", lagSeconds, AtomicLong::get).baseUnit("seconds").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.google.sync.schedule.interval:PT15M}",
+               initialDelayString = "${app.google.sync.schedule.interval:PT15M}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        tickTimer.record(() -> {
+            try {
+                int synced = runOnce(budgetPerTick());
+                log.info("Scheduled Google sync processed {} markets, {} still stale", synced, queueDepth.get());
+            } catch (Exception e) {
+                log.warn("Scheduled Google sync failed, will retry next tick: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Process up to budget stale markets in chunks and refresh the queue
+     * gauges. Returns the number of markets the engine attempted. Stops early
+     * when the engine refuses a chunk because another sync is running; the
+     * markets stay stale and are picked up by a later tick.
+     */
+    public int runOnce(int budget) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(staleAfter);
+        int processed = 0;
+        boolean skipped = false;
+
+        // Phase one: markets that were never synced, by ID
+        long afterId = 0L;
+        while (!skipped && processed < budget) {
+            List<Market> chunk = marketRepository.findNeverSyncedChunk(afterId, now,
+                    PageRequest.of(0, Math.min(chunkSize, budget - processed)));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            MarketSyncEngine.SyncResult result = marketSyncEngine.sync(chunk);
+            skipped = result.isSkipped();
+            processed += result.getAttempted();
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+
+        // Phase two: synced markets past stale-after, oldest first
+        LocalDateTime afterSync = EPOCH;
+        afterId = 0L;
+        while (!skipped && processed < budget) {
+            List<Market> chunk = marketRepository.findStaleChunk(cutoff, afterSync, afterId, now,
+                    PageRequest.of(0, Math.min(chunkSize, budget - processed)));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            // Remember the position before the engine moves lastGoogleSync forward
+            Market last = chunk.get(chunk.size() - 1);
+            afterSync = last.getLastGoogleSync();
+            afterId = last.getId();
+            MarketSyncEngine.SyncResult result = marketSyncEngine.sync(chunk);
+            skipped = result.isSkipped();
+            processed += result.getAttempted();
+        }
+
+        refreshGauges();
+        return processed;
+    }
+
+    // Share of the daily budget for one tick, at least one market
+    int budgetPerTick() {
+        double ticksPerDay = (double) Duration.ofDays(1).toMillis() / Math.max(1, interval.toMillis());
+        return Math.max(1, (int) Math.ceil(dailyBudget / ticksPerDay));
+    }
+
+    private void refreshGauges() {
+        LocalDateTime now = LocalDateTime.now();
+        queueDepth.set(marketRepository.countMarketsNeedingGoogleSync(now.minus(staleAfter)));
+        backingOff.set(marketSyncStateRepository.countBackingOff(now));
+        LocalDateTime oldest = marketRepository.findOldestGoogleSync();
+        lagSeconds.set(oldest != null ? Math.max(0, Duration.between(oldest, now).getSeconds()) : 0);
+    }
+}
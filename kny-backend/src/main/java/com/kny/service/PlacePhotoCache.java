@@ -0,0 +1,155 @@
+package com.kny.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.kny.model.PlacePhotoCacheEntry;
+import com.kny.repository.PlacePhotoCacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache of Google Places photo references keyed by place ID and photo count.
+ * Places without photos are cached with a shorter TTL, and entries can be
+ * mirrored to the place_photo_cache table so a restart starts warm.
+ */
+@Service
+public class PlacePhotoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PlacePhotoCache.class);
+
+    static final String CACHE_NAME = "placePhotos";
+
+    @Autowired
+    private PlacePhotoCacheRepository cacheRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.google.places.photo-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.google.places.photo-cache.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${app.google.places.photo-cache.negative-ttl:6h}")
+    private Duration negativeTtl;
+
+    @Value("${app.google.places.photo-cache.persistent:false}")
+    private boolean persistent;
+
+    private Cache<String, CachedPhotos> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPhotos>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPhotos value, long currentTime) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPhotos value, long currentTime, long currentDuration) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPhotos value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    // Return cached photo references, calling the fetcher only on a miss
+    public List<String> get(String placeId, int maxPhotos, Supplier<List<String>> fetcher) {
+        String key = placeId + "|" + maxPhotos;
+        return cache.get(key, k -> load(k, placeId, maxPhotos, fetcher)).references();
+    }
+
+    // Memory-only lookup for non-blocking callers; the persistent mirror is not consulted
+    public Optional<List<String>> getIfPresent(String placeId, int maxPhotos) {
+        CachedPhotos cached = cache.getIfPresent(placeId + "|" + maxPhotos);
+        return cached != null ? Optional.of(cached.references()) : Optional.empty();
+    }
+
+    // Store references fetched outside get(); writes the persistent mirror, so call off the event loop
+    public void put(String placeId, int maxPhotos, List<String> references) {
+        String key = placeId + "|" + maxPhotos;
+        CachedPhotos fetched = new CachedPhotos(List.copyOf(references), LocalDateTime.now());
+        cache.put(key, fetched);
+        if (persistent) {
+            writeStored(key, placeId, maxPhotos, fetched);
+        }
+    }
+
+    private CachedPhotos load(String key, String placeId, int maxPhotos, Supplier<List<String>> fetcher) {
+        if (persistent) {
+            Optional<CachedPhotos> stored = readStored(key);
+            if (stored.isPresent() && remainingNanos(stored.get()) > 0) {
+                return stored.get();
+            }
+        }
+
+        // Fetch errors propagate so that failures are never cached as "no photos"
+        CachedPhotos fetched = new CachedPhotos(List.copyOf(fetcher.get()), LocalDateTime.now());
+
+        if (persistent) {
+            writeStored(key, placeId, maxPhotos, fetched);
+        }
+        return fetched;
+    }
+
+    private Optional<CachedPhotos> readStored(String key) {
+        try {
+            return cacheRepository.findById(key).map(entry -> new CachedPhotos(
+                    splitReferences(entry.getPhotoReferences()), entry.getFetchedAt()));
+        } catch (Exception e) {
+            log.warn("Could not read persisted photo cache entry {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeStored(String key, String placeId, int maxPhotos, CachedPhotos photos) {
+        try {
+            cacheRepository.save(new PlacePhotoCacheEntry(
+                    key, placeId, maxPhotos, String.join("\n", photos.references()), photos.fetchedAt()));
+        } catch (Exception e) {
+            log.warn("Could not persist photo cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private List<String> splitReferences(String stored) {
+        if (stored == null || stored.isEmpty()) {
+            return List.of();
+        }
+        return List.copyOf(Arrays.asList(stored.split("\n")));
+    }
+
+    private long remainingNanos(CachedPhotos photos) {
+        Duration lifetime = photos.references().isEmpty() ? negativeTtl : ttl;
+        Duration age = Duration.between(photos.fetchedAt(), LocalDateTime.now());
+        return Math.max(0L, lifetime.minus(age).toNanos());
+    }
+
+    private record CachedPhotos(List<String> references, LocalDateTime fetchedAt) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.kny.service;
+
+import com.kny.util.WorkerThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resolves Google Places photos for a whole result set at once.
+ * Lookups run in parallel on a bounded pool and share one deadline per call,
+ * so a slow Places response only drops that market's photos instead of
+ * holding up the whole listing.
+ */
+@Service
+public class PlacePhotoResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(PlacePhotoResolver.class);
+
+    @Autowired
+    private GooglePlacesService googlePlacesService;
+
+    @Value("${app.google.places.photos.max-per-place:3}")
+    private int maxPhotos;
+
+    @Value("${app.google.places.photos.parallelism:8}")
+    private int parallelism;
+
+    @Value("${app.google.places.photos.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.google.places.photos.timeout-ms:1500}")
+    private long timeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                WorkerThreads.factory("place-photos-", virtualThreads));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Resolve photos for every distinct place ID; places that miss the deadline are left out
+    public Map<String, List<String>> resolve(Collection<String> placeIds) {
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String placeId : placeIds) {
+            if (placeId != null && !placeId.trim().isEmpty()) {
+                distinctIds.add(placeId);
+            }
+        }
+        if (distinctIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<String, Future<List<String>>> pending = new LinkedHashMap<>();
+        for (String placeId : distinctIds) {
+            try {
+                pending.put(placeId, executor.submit(() -> googlePlacesService.getPlacePhotos(placeId, maxPhotos)));
+            } catch (RejectedExecutionException e) {
+                log.warn("Photo lookup queue full, skipping place {}", placeId);
+            }
+        }
+
+        Map<String, List<String>> photos = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        int timedOut = 0;
+
+        for (Map.Entry<String, Future<List<String>>> entry : pending.entrySet()) {
+            Future<List<String>> future = entry.getValue();
+            try {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                photos.put(entry.getKey(), future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timedOut++;
+            } catch (ExecutionException e) {
+                log.warn("Photo lookup failed for place {}: {}", entry.getKey(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.values().forEach(f -> f.cancel(true));
+                break;
+            }
+        }
+
+        if (timedOut > 0) {
+            log.debug("Photo lookup deadline of {} ms reached, {} of {} places unresolved",
+                    timeoutMs, timedOut, distinctIds.size());
+        }
+        return photos;
+    }
+}
@@ -0,0 +1,71 @@
+package com.kny.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * WebClient version of {@link GooglePlacesService#getPlacePhotos(String, int)}.
+ * Lookups go through the same photo-reference cache; a miss calls Places
+ * details without holding a thread, and a slow or failing place yields no
+ * photos instead of failing the response, like {@link PlacePhotoResolver}.
+ */
+@Service
+public class ReactiveGooglePlacesService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveGooglePlacesService.class);
+
+    @Autowired
+    @Qualifier("googlePlacesWebClient")
+    private WebClient webClient;
+
+    @Autowired
+    private GooglePlacesService googlePlacesService;
+
+    @Autowired
+    private PlacePhotoCache placePhotoCache;
+
+    @Value("${app.google.places.photos.timeout-ms:1500}")
+    private long timeoutMs;
+
+    public Mono<List<String>> getPlacePhotos(String placeId, int maxPhotos) {
+        if (placeId == null || placeId.trim().isEmpty() || !googlePlacesService.isConfigured()) {
+            return Mono.just(List.of());
+        }
+
+        Optional<List<String>> cached = placePhotoCache.getIfPresent(placeId, maxPhotos);
+        if (cached.isPresent()) {
+            return Mono.just(toPhotoUrls(cached.get()));
+        }
+
+        return webClient.get().uri(googlePlacesService.photoDetailsUrl(placeId))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(root -> googlePlacesService.photoReferences(root, maxPhotos))
+                .timeout(Duration.ofMillis(timeoutMs))
+                // The cache may write its database mirror, which must not run on a Netty thread
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(references -> placePhotoCache.put(placeId, maxPhotos, references))
+                .map(this::toPhotoUrls)
+                .onErrorResume(e -> {
+                    log.warn("Photo lookup failed for place {}: {}", placeId, e.getMessage());
+                    return Mono.just(List.of());
+                });
+    }
+
+    private List<String> toPhotoUrls(List<String> references) {
+        return references.stream().map(googlePlacesService::photoUrl).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,75 @@
+package com.kny.service;
+
+import com.kny.dto.MarketField;
+import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketWeatherResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Market detail composed without blocking a request thread. JPA is still
+ * blocking, so the lookup runs on the bounded elastic scheduler; photos and
+ * weather are then fetched side by side through WebClient. Either one
+ * failing leaves its field empty rather than failing the response.
+ */
+@Service
+public class ReactiveMarketService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMarketService.class);
+
+    // Photos are resolved reactively below instead of through PlacePhotoResolver
+    private static final Set<MarketField> STORED_FIELDS =
+            Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(MarketField.PHOTOS)));
+
+    @Autowired
+    private MarketService marketService;
+
+    @Autowired
+    private ReactiveGooglePlacesService reactiveGooglePlacesService;
+
+    @Autowired
+    private ReactiveWeatherService reactiveWeatherService;
+
+    @Value("${app.google.places.photos.max-per-place:3}")
+    private int maxPhotos;
+
+    public Mono<MarketResponse> getMarketById(Long id) {
+        return Mono.fromCallable(() -> marketService.getMarketById(id, STORED_FIELDS))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty)
+                .flatMap(response -> Mono.zip(photos(response), weather(response))
+                        .map(enrichment -> {
+                            response.setPhotos(marketService.toPhotoResponses(enrichment.getT1()));
+                            enrichment.getT2().ifPresent(response::setWeather);
+                            return response;
+                        }));
+    }
+
+    private Mono<List<String>> photos(MarketResponse response) {
+        return reactiveGooglePlacesService.getPlacePhotos(response.getGooglePlaceId(), maxPhotos);
+    }
+
+    // Prefetched weather is already on the response; otherwise ask the cache, which may go upstream
+    private Mono<Optional<MarketWeatherResponse>> weather(MarketResponse response) {
+        if (response.getWeather() != null || response.getLatitude() == null || response.getLongitude() == null) {
+            return Mono.just(Optional.ofNullable(response.getWeather()));
+        }
+        return reactiveWeatherService.getWeather(response.getLatitude().doubleValue(), response.getLongitude().doubleValue())
+                .map(weather -> Optional.ofNullable(marketService.toMarketWeather(weather)))
+                .onErrorResume(e -> {
+                    log.warn("Weather lookup failed for market {}: {}", response.getId(), e.getMessage());
+                    return Mono.just(Optional.empty());
+                });
+    }
+}
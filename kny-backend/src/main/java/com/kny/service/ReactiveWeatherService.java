@@ -0,0 +1,64 @@
+package com.kny.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * WebClient version of {@link WeatherService#getWeather(double, double)}.
+ * It shares the grid-cell cache, URL and decoder with the blocking service,
+ * so both return the same data and one warm cache serves both. Only a cache
+ * miss goes upstream, and it ties up no thread while it waits.
+ */
+@Service
+public class ReactiveWeatherService {
+
+    @Autowired
+    @Qualifier("weatherWebClient")
+    private WebClient webClient;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private WeatherCache weatherCache;
+
+    @Value("${app.weather.default.latitude:5.4164}")
+    private double defaultLat;
+
+    @Value("${app.weather.default.longitude:100.3327}")
+    private double defaultLon;
+
+    public Mono<WeatherService.WeatherData> getWeather() {
+        return getWeather(defaultLat, defaultLon);
+    }
+
+    public Mono<WeatherService.WeatherData> getWeather(double lat, double lon) {
+        return Mono.fromFuture(() -> weatherCache.getAsync(lat, lon,
+                        (cellLat, cellLon) -> fetchWeather(cellLat, cellLon).toFuture()))
+                .onErrorMap(e -> new RuntimeException("Failed to get weather: " + e.getMessage(), e));
+    }
+
+    private Mono<WeatherService.WeatherData> fetchWeather(double lat, double lon) {
+        String url = weatherService.forecastUrl(List.of(lat), List.of(lon));
+        // Buffers are joined and decoded in one pass; the stream releases them when closed
+        return DataBufferUtils.join(webClient.get().uri(url).retrieve().bodyToFlux(DataBuffer.class))
+                .map(body -> {
+                    try (InputStream in = body.asInputStream(true)) {
+                        return weatherService.checkLocationCount(weatherService.decodeForecasts(in), 1).get(0);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+}
@@ -0,0 +1,83 @@
+package com.kny.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kny.event.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Cache of the UserDetails that CustomUserDetailsService builds for password
+ * logins, keyed by lower-cased email so every spelling of an address shares
+ * one entry. Every write to a user row (profile updates, password changes,
+ * deactivation, OAuth2 sign-ins, hash upgrades) arrives as a
+ * {@link UserChangedEvent} and drops the entry. Lookups that fail are not
+ * cached.
+ *
+ * Callers get a copy: Spring Security erases the password of the principal
+ * after authentication, which would otherwise blank the cached entry.
+ */
+@Service
+public class UserDetailsCache {
+
+    static final String CACHE_NAME = "userDetails";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.details-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.details-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.users.details-cache.ttl:PT5M}")
+    private Duration ttl;
+
+    private Cache<String, UserDetails> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        if (!enabled || email == null) {
+            return loader.apply(email);
+        }
+        UserDetails cached = cache.get(key(email), key -> loader.apply(email));
+        return User.withUserDetails(cached).build();
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(key(email));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUser().getEmail());
+    }
+
+    private String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.kny.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kny.event.UserChangedEvent;
+import com.kny.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of user rows keyed by email, for the profile lookups the
+ * frontend repeats on every route change. Entries are dropped when a
+ * {@link UserChangedEvent} arrives, so updates, password changes and
+ * deactivation show up on the next request; the TTL only bounds how long a
+ * change made outside JPA can go unnoticed. Missing users are not cached.
+ */
+@Service
+public class UserProfileCache {
+
+    static final String CACHE_NAME = "userProfiles";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.profile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.profile-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.users.profile-cache.ttl:PT5M}")
+    private Duration ttl;
+
+    private Cache<String, User> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    // The cached user is shared between requests: read it, never modify it
+    public User get(String email, Function<String, User> loader) {
+        if (!enabled || email == null) {
+            return loader.apply(email);
+        }
+        return cache.get(key(email), key -> loader.apply(email));
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(key(email));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUser().getEmail());
+    }
+
+    // Same key as UserDetailsCache, so a save invalidates however the email was typed
+    private String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -18,6 +18,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     public User findByEmail(String email) {
         try {
             Optional<User> userOpt = userRepository.findByEmail(email);
@@ -31,6 +34,12 @@ public class UserService {
         }
     }
 
+    // Read-only lookup for displaying the signed-in user, served from UserProfileCache.
+    // Use findByEmail for a user that is going to be modified and saved.
+    public User findProfileByEmail(String email) {
+        return userProfileCache.get(email, this::findByEmail);
+    }
+
     public User findById(Long id) {
         try {
             Optional<User> userOpt = userRepository.findById(id);
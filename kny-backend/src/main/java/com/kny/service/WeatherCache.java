@@ -0,0 +1,337 @@
+package com.kny.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kny.util.WorkerThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * Cache of Open-Meteo forecasts keyed by a lat/lon grid cell, so users a few
+ * kilometres apart share one upstream call. Concurrent misses for a cell wait
+ * on a single fetch, and entries older than the TTL are still served while a
+ * background refresh replaces them. Only after max-stale without a successful
+ * refresh does a caller wait on Open-Meteo again.
+ */
+@Service
+public class WeatherCache {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherCache.class);
+
+    static final String CACHE_NAME = "weather";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.weather.cache.enabled:true}")
+    private boolean enabled;
+
+    // Cell edge in degrees; 0.05 is roughly 5.5 km
+    @Value("${app.weather.cache.cell-size:0.05}")
+    private double cellSize;
+
+    @Value("${app.weather.cache.ttl:PT15M}")
+    private Duration ttl;
+
+    @Value("${app.weather.cache.max-stale:PT6H}")
+    private Duration maxStale;
+
+    @Value("${app.weather.cache.max-size:5000}")
+    private long maxSize;
+
+    @Value("${app.weather.cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // One pending fetch per cell, shared by misses and background refreshes
+    private final ConcurrentMap<GridCell, CompletableFuture<CachedWeather>> inFlight = new ConcurrentHashMap<>();
+
+    private Cache<GridCell, CachedWeather> cache;
+    private ExecutorService refreshExecutor;
+
+    private Counter hits;
+    private Counter staleHits;
+    private Counter misses;
+    private Counter coalesced;
+    private Counter upstreamCalls;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxStale)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads),
+                WorkerThreads.factory("weather-refresh-", virtualThreads));
+
+        this.hits = requests("hit");
+        this.staleHits = requests("stale");
+        this.misses = requests("miss");
+        this.coalesced = requests("coalesced");
+        this.upstreamCalls = Counter.builder("weather.upstream.calls").register(meterRegistry);
+
+        // Served without waiting on Open-Meteo: fresh hits plus stale hits
+        Gauge.builder("weather.cache.hit.ratio", this, WeatherCache::hitRatio).register(meterRegistry);
+        // Requests answered minus calls made, background refreshes included
+        FunctionCounter.builder("weather.upstream.saved", this,
+                        c -> Math.max(0, c.requestCount() - c.upstreamCalls.count()))
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Return the forecast for the cell containing lat/lon. The fetcher is
+     * called with the cell centre, so every caller in a cell sees the same
+     * data regardless of which of them triggered the fetch.
+     */
+    public WeatherService.WeatherData get(double lat, double lon,
+                                          BiFunction<Double, Double, WeatherService.WeatherData> fetcher) {
+        if (!enabled) {
+            return fetcher.apply(lat, lon);
+        }
+
+        GridCell cell = cellOf(lat, lon);
+        CachedWeather cached = cache.getIfPresent(cell);
+        if (cached != null) {
+            if (cached.isFresh(ttl)) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                refreshAsync(cell, fetcher);
+            }
+            return cached.data();
+        }
+
+        CompletableFuture<CachedWeather> pending = new CompletableFuture<>();
+        CompletableFuture<CachedWeather> existing = inFlight.putIfAbsent(cell, pending);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing).data();
+        }
+
+        // Another caller may have filled the cell between the lookup and claiming it
+        cached = cache.getIfPresent(cell);
+        if (cached != null) {
+            inFlight.remove(cell, pending);
+            pending.complete(cached);
+            hits.increment();
+            return cached.data();
+        }
+
+        misses.increment();
+        fetch(cell, fetcher, pending);
+        return await(pending).data();
+    }
+
+    /**
+     * Non-blocking counterpart of get for WebClient callers. Hits and stale
+     * hits complete at once; a miss joins or starts the cell's in-flight
+     * fetch and completes with it, so no thread waits on Open-Meteo.
+     */
+    public CompletableFuture<WeatherService.WeatherData> getAsync(double lat, double lon,
+            BiFunction<Double, Double, CompletableFuture<WeatherService.WeatherData>> fetcher) {
+        if (!enabled) {
+            return fetcher.apply(lat, lon);
+        }
+
+        GridCell cell = cellOf(lat, lon);
+        CachedWeather cached = cache.getIfPresent(cell);
+        if (cached != null) {
+            if (cached.isFresh(ttl)) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                CompletableFuture<CachedWeather> refresh = new CompletableFuture<>();
+                if (inFlight.putIfAbsent(cell, refresh) == null) {
+                    logRefreshFailure(cell, refresh);
+                    fetchAsync(cell, fetcher, refresh);
+                }
+            }
+            return CompletableFuture.completedFuture(cached.data());
+        }
+
+        CompletableFuture<CachedWeather> pending = new CompletableFuture<>();
+        CompletableFuture<CachedWeather> existing = inFlight.putIfAbsent(cell, pending);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.thenApply(CachedWeather::data);
+        }
+
+        cached = cache.getIfPresent(cell);
+        if (cached != null) {
+            inFlight.remove(cell, pending);
+            pending.complete(cached);
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.data());
+        }
+
+        misses.increment();
+        fetchAsync(cell, fetcher, pending);
+        return pending.thenApply(CachedWeather::data);
+    }
+
+    // Cached forecast for the cell containing lat/lon, or null; never calls Open-Meteo
+    public WeatherService.WeatherData peek(double lat, double lon) {
+        if (!enabled) {
+            return null;
+        }
+        CachedWeather cached = cache.getIfPresent(cellOf(lat, lon));
+        return cached != null ? cached.data() : null;
+    }
+
+    // Store a forecast fetched elsewhere, e.g. by WeatherPrefetcher
+    void put(GridCell cell, WeatherService.WeatherData data) {
+        cache.put(cell, new CachedWeather(data, System.nanoTime()));
+    }
+
+    GridCell cellOf(double lat, double lon) {
+        return GridCell.of(lat, lon, cellSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void refreshAsync(GridCell cell, BiFunction<Double, Double, WeatherService.WeatherData> fetcher) {
+        CompletableFuture<CachedWeather> refresh = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(cell, refresh) != null) {
+            return;
+        }
+        logRefreshFailure(cell, refresh);
+        try {
+            refreshExecutor.execute(() -> fetch(cell, fetcher, refresh));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(cell, refresh);
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    private void fetch(GridCell cell, BiFunction<Double, Double, WeatherService.WeatherData> fetcher,
+                       CompletableFuture<CachedWeather> pending) {
+        try {
+            upstreamCalls.increment();
+            CachedWeather fetched = new CachedWeather(fetcher.apply(cell.latitude(), cell.longitude()), System.nanoTime());
+            cache.put(cell, fetched);
+            pending.complete(fetched);
+        } catch (RuntimeException e) {
+            // Failures are handed to the waiting callers but never cached
+            pending.completeExceptionally(e);
+        } finally {
+            inFlight.remove(cell, pending);
+        }
+    }
+
+    private void fetchAsync(GridCell cell,
+                            BiFunction<Double, Double, CompletableFuture<WeatherService.WeatherData>> fetcher,
+                            CompletableFuture<CachedWeather> pending) {
+        upstreamCalls.increment();
+        CompletableFuture<WeatherService.WeatherData> fetch;
+        try {
+            fetch = fetcher.apply(cell.latitude(), cell.longitude());
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        fetch.whenComplete((data, e) -> {
+            if (e != null) {
+                inFlight.remove(cell, pending);
+                pending.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            // Cached before the claim is released, as in fetch
+            CachedWeather fetched = new CachedWeather(data, System.nanoTime());
+            cache.put(cell, fetched);
+            inFlight.remove(cell, pending);
+            pending.complete(fetched);
+        });
+    }
+
+    private void logRefreshFailure(GridCell cell, CompletableFuture<CachedWeather> refresh) {
+        refresh.whenComplete((fetched, e) -> {
+            if (e != null) {
+                log.warn("Weather refresh for {} failed, serving stale data: {}", cell, e.getMessage());
+            }
+        });
+    }
+
+    private CachedWeather await(CompletableFuture<CachedWeather> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("weather.cache.requests").tag("result", result).register(meterRegistry);
+    }
+
+    private double requestCount() {
+        return hits.count() + staleHits.count() + misses.count() + coalesced.count();
+    }
+
+    private double hitRatio() {
+        double total = requestCount();
+        return total == 0 ? 0.0 : (hits.count() + staleHits.count()) / total;
+    }
+
+    // Grid indices rather than rounded doubles, so equality is exact
+    record GridCell(long latIndex, long lonIndex, double size) {
+
+        static GridCell of(double lat, double lon, double size) {
+            return new GridCell(Math.round(lat / size), Math.round(lon / size), size);
+        }
+
+        double latitude() {
+            return centre(latIndex);
+        }
+
+        double longitude() {
+            return centre(lonIndex);
+        }
+
+        private double centre(long index) {
+            return Math.round(index * size * 10_000) / 10_000.0;
+        }
+    }
+
+    private record CachedWeather(WeatherService.WeatherData data, long fetchedAtNanos) {
+
+        boolean isFresh(Duration ttl) {
+            return System.nanoTime() - fetchedAtNanos < ttl.toNanos();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.kny.service;
+
+import com.kny.repository.MarketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the weather cache warm for every market. Market coordinates are
+ * grouped into {@link WeatherCache} grid cells and each cell is refreshed on
+ * a fixed cadence, batch-size cells per Open-Meteo request. Market responses
+ * then read weather straight from the cache and never wait on the upstream.
+ */
+@Service
+public class WeatherPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherPrefetcher.class);
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private WeatherCache weatherCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.weather.prefetch.enabled:true}")
+    private boolean enabled;
+
+    // Locations per Open-Meteo request
+    @Value("${app.weather.prefetch.batch-size:50}")
+    private int batchSize;
+
+    private Timer runTimer;
+    private Counter cellsFetched;
+    private Counter cellsFailed;
+
+    @PostConstruct
+    public void init() {
+        this.runTimer = Timer.builder("weather.prefetch.run").register(meterRegistry);
+        this.cellsFetched = Counter.builder("weather.prefetch.cells").tag("result", "fetched").register(meterRegistry);
+        this.cellsFailed = Counter.builder("weather.prefetch.cells").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.weather.prefetch.interval:PT15M}",
+               initialDelayString = "${app.weather.prefetch.initial-delay:PT30S}")
+    public void tick() {
+        if (!enabled || !weatherCache.isEnabled()) {
+            return;
+        }
+        runTimer.record(() -> {
+            try {
+                int fetched = runOnce();
+                log.info("Prefetched weather for {} market grid cells", fetched);
+            } catch (Exception e) {
+                log.warn("Weather prefetch failed, will retry next tick: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Refresh every grid cell that holds at least one market. A failed batch
+     * is skipped and its cells keep serving their previous forecast. Returns
+     * the number of cells refreshed.
+     */
+    public int runOnce() {
+        List<WeatherCache.GridCell> cells = new ArrayList<>(marketCells());
+        int fetched = 0;
+        for (int start = 0; start < cells.size(); start += batchSize) {
+            List<WeatherCache.GridCell> batch = cells.subList(start, Math.min(start + batchSize, cells.size()));
+            List<Double> latitudes = new ArrayList<>(batch.size());
+            List<Double> longitudes = new ArrayList<>(batch.size());
+            for (WeatherCache.GridCell cell : batch) {
+                latitudes.add(cell.latitude());
+                longitudes.add(cell.longitude());
+            }
+            try {
+                List<WeatherService.WeatherData> forecasts = weatherService.fetchWeather(latitudes, longitudes);
+                for (int i = 0; i < batch.size(); i++) {
+                    weatherCache.put(batch.get(i), forecasts.get(i));
+                }
+                cellsFetched.increment(batch.size());
+                fetched += batch.size();
+            } catch (Exception e) {
+                cellsFailed.increment(batch.size());
+                log.warn("Weather prefetch for {} cells failed: {}", batch.size(), e.getMessage());
+            }
+        }
+        return fetched;
+    }
+
+    private Set<WeatherCache.GridCell> marketCells() {
+        Set<WeatherCache.GridCell> cells = new LinkedHashSet<>();
+        for (Object[] row : marketRepository.findDistinctCoordinates()) {
+            double latitude = ((BigDecimal) row[0]).doubleValue();
+            double longitude = ((BigDecimal) row[1]).doubleValue();
+            cells.add(weatherCache.cellOf(latitude, longitude));
+        }
+        return cells;
+    }
+}
@@ -1,21 +1,36 @@
 package com.kny.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Service
 public class WeatherService {
 
+    private static final Logger log = LoggerFactory.getLogger(WeatherService.class);
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Pooled client with timeouts; see HttpClientConfig
     @Autowired
+    @Qualifier("weatherRestTemplate")
     private RestTemplate restTemplate;
 
     // Fixed property names to match application.properties
@@ -31,83 +46,195 @@ public class WeatherService {
     @Value("${app.weather.timezone:Asia/Kuala_Lumpur}")
     private String timezone;
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    @Autowired
+    private WeatherCache weatherCache;
+
+    // Only its factory is used; responses are read token by token
+    private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
 
     public WeatherData getWeather() {
         return getWeather(defaultLat, defaultLon);
     }
 
+    // Served from the grid-cell cache; Open-Meteo is only called on a miss or background refresh
     public WeatherData getWeather(double lat, double lon) {
+        return weatherCache.get(lat, lon, this::fetchWeather);
+    }
+
+    private WeatherData fetchWeather(double lat, double lon) {
         try {
-            // Build OpenMeteo API URL with timezone
-            String url = String.format("%s?latitude=%.4f&longitude=%.4f&current=temperature_2m,relative_humidity_2m,weather_code&daily=temperature_2m_max,temperature_2m_min,weather_code,precipitation_probability_max&forecast_days=7&timezone=%s",
-                    apiUrl, lat, lon, timezone);
-            
-            System.out.println("Calling OpenMeteo API: " + url);
-            
-            // Call OpenMeteo API
-            String response = restTemplate.getForObject(url, String.class);
-            System.out.println("OpenMeteo Response: " + response);
-            
-            JsonNode root = mapper.readTree(response);
-            
-            WeatherData weather = new WeatherData();
-            
-            // Current weather-
-            JsonNode current = root.get("current");
-            weather.currentTemp = current.get("temperature_2m").asDouble();
-            weather.humidity = current.get("relative_humidity_2m").asInt();
-            weather.condition = getCondition(current.get("weather_code").asInt());
-            
-            // Parse time properly and convert to local timezone
-            String timeString = current.get("time").asText();
-            weather.time = formatTime(timeString);
-            
-            // Daily forecast
-            JsonNode daily = root.get("daily");
-            weather.forecast = parseForecast(daily);
-            
-            System.out.println("Weather data created: " + weather.currentTemp + "°C, " + weather.condition + ", " + weather.time);
-            
+            List<WeatherData> results = requestForecasts(List.of(lat), List.of(lon));
+            WeatherData weather = results.get(0);
+            log.debug("Weather for {},{}: {}", lat, lon, weather);
             return weather;
             
         } catch (Exception e) {
-            System.err.println("Error fetching weather: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Error fetching weather for {},{}: {}", lat, lon, e.getMessage());
             throw new RuntimeException("Failed to get weather: " + e.getMessage());
         }
     }
 
+    /**
+     * Fetch several locations in one Open-Meteo request; the API accepts
+     * comma separated coordinate lists and answers with one entry per
+     * location, in the same order. Used by the market weather prefetcher.
+     */
+    public List<WeatherData> fetchWeather(List<Double> latitudes, List<Double> longitudes) {
+        if (latitudes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return requestForecasts(latitudes, longitudes);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get weather: " + e.getMessage());
+        }
+    }
+
+    // The body is decoded straight off the connection, with no String copy or JsonNode tree in between
+    private List<WeatherData> requestForecasts(List<Double> latitudes, List<Double> longitudes) {
+        List<WeatherData> results = restTemplate.execute(forecastUrl(latitudes, longitudes), HttpMethod.GET, null,
+                response -> decodeForecasts(response.getBody()));
+        return checkLocationCount(results, latitudes.size());
+    }
+
+    // Shared with ReactiveWeatherService so both clients ask for and decode the same thing
+    String forecastUrl(List<Double> latitudes, List<Double> longitudes) {
+        return String.format("%s?latitude=%s&longitude=%s&current=temperature_2m,relative_humidity_2m,weather_code&daily=temperature_2m_max,temperature_2m_min,weather_code,precipitation_probability_max&forecast_days=7&timezone=%s",
+                apiUrl, joinCoordinates(latitudes), joinCoordinates(longitudes), timezone);
+    }
+
+    List<WeatherData> decodeForecasts(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readForecasts(parser);
+        }
+    }
+
+    List<WeatherData> checkLocationCount(List<WeatherData> results, int expected) {
+        if (results == null || results.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " locations but got "
+                    + (results == null ? 0 : results.size()));
+        }
+        return results;
+    }
+
+    private String joinCoordinates(List<Double> coordinates) {
+        StringBuilder joined = new StringBuilder();
+        for (Double coordinate : coordinates) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(String.format(Locale.ROOT, "%.4f", coordinate));
+        }
+        return joined.toString();
+    }
+
+    // A single location comes back as a plain object, several as an array of them
+    List<WeatherData> readForecasts(JsonParser parser) throws IOException {
+        List<WeatherData> results = new ArrayList<>();
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                results.add(readWeather(parser));
+            }
+        } else if (token == JsonToken.START_OBJECT) {
+            results.add(readWeather(parser));
+        } else {
+            throw new IOException("Unexpected weather response");
+        }
+        return results;
+    }
+
+    // Positioned on the START_OBJECT of one location
+    private WeatherData readWeather(JsonParser parser) throws IOException {
+        WeatherData weather = new WeatherData();
+        boolean hasCurrent = false;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("current".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                readCurrent(parser, weather);
+                hasCurrent = true;
+            } else if ("daily".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                weather.forecast = readDaily(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!hasCurrent) {
+            throw new IOException("Weather response has no current conditions");
+        }
+        if (weather.forecast == null) {
+            weather.forecast = new ArrayList<>();
+        }
+        return weather;
+    }
+
+    private void readCurrent(JsonParser parser, WeatherData weather) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "temperature_2m": weather.currentTemp = parser.getValueAsDouble(); break;
+                case "relative_humidity_2m": weather.humidity = parser.getValueAsInt(); break;
+                case "weather_code": weather.condition = getCondition(parser.getValueAsInt()); break;
+                // Parse time properly and convert to local timezone
+                case "time": weather.time = formatTime(parser.getValueAsString()); break;
+                default: parser.skipChildren(); break;
+            }
+        }
+    }
+
+    // Open-Meteo sends one array per variable; each array fills its field on the matching day
+    private List<DailyWeather> readDaily(JsonParser parser) throws IOException {
+        List<DailyWeather> forecast = new ArrayList<>(7);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            int i = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                DailyWeather day = day(forecast, i++);
+                switch (field) {
+                    case "time": day.date = parser.getValueAsString(); break;
+                    case "temperature_2m_max": day.maxTemp = parser.getValueAsDouble(); break;
+                    case "temperature_2m_min": day.minTemp = parser.getValueAsDouble(); break;
+                    case "precipitation_probability_max": day.rainChance = parser.getValueAsInt(); break;
+                    case "weather_code": day.condition = getCondition(parser.getValueAsInt()); break;
+                    default: parser.skipChildren(); break;
+                }
+            }
+        }
+        return forecast;
+    }
+
+    private DailyWeather day(List<DailyWeather> forecast, int index) {
+        while (forecast.size() <= index) {
+            forecast.add(new DailyWeather());
+        }
+        return forecast.get(index);
+    }
+
     private String formatTime(String timeString) {
+        // Open-Meteo sends local times without an offset; those are kept as they are
+        // without going through a parse exception on every call
+        if (timeString == null || !hasZone(timeString)) {
+            return timeString;
+        }
         try {
             // Parse the ISO datetime string and format it nicely
             ZonedDateTime dateTime = ZonedDateTime.parse(timeString);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            return dateTime.format(formatter);
+            return dateTime.format(TIME_FORMAT);
         } catch (Exception e) {
-            System.err.println("Error parsing time: " + timeString + " - " + e.getMessage());
             return timeString; // Return original if parsing fails
         }
     }
 
-    private List<DailyWeather> parseForecast(JsonNode daily) {
-        List<DailyWeather> forecast = new ArrayList<>();
-        JsonNode dates = daily.get("time");
-        JsonNode maxTemps = daily.get("temperature_2m_max");
-        JsonNode minTemps = daily.get("temperature_2m_min");
-        JsonNode rainChance = daily.get("precipitation_probability_max");
-        JsonNode weatherCodes = daily.get("weather_code");
-
-        for (int i = 0; i < dates.size(); i++) {
-            DailyWeather day = new DailyWeather();
-            day.date = dates.get(i).asText();
-            day.maxTemp = maxTemps.get(i).asDouble();
-            day.minTemp = minTemps.get(i).asDouble();
-            day.rainChance = rainChance != null ? rainChance.get(i).asInt() : 0;
-            day.condition = getCondition(weatherCodes.get(i).asInt());
-            forecast.add(day);
-        }
-        return forecast;
+    private boolean hasZone(String timeString) {
+        int t = timeString.indexOf('T');
+        return t >= 0 && (timeString.endsWith("Z") || timeString.indexOf('+', t) > 0 || timeString.indexOf('-', t) > 0);
     }
 
     private String getCondition(int code) {
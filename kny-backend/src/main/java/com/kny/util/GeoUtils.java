@@ -0,0 +1,61 @@
+package com.kny.util;
+
+/**
+ * Great-circle helpers shared by the nearby-market queries.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    private GeoUtils() {}
+
+    // Haversine distance between two points in kilometres
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // Smallest lat/lon box that contains every point within radiusKm of the centre
+    public static BoundingBox boundingBox(double latitude, double longitude, double radiusKm) {
+        double latDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = latitude - latDelta;
+        double maxLat = latitude + latDelta;
+
+        // Near the poles or across the antimeridian every longitude can be in range
+        if (minLat <= -90 || maxLat >= 90) {
+            return new BoundingBox(Math.max(minLat, -90), Math.min(maxLat, 90), -180, 180);
+        }
+
+        double lonDelta = Math.toDegrees(Math.asin(Math.sin(radiusKm / EARTH_RADIUS_KM)
+                / Math.cos(Math.toRadians(latitude))));
+        double minLon = longitude - lonDelta;
+        double maxLon = longitude + lonDelta;
+        if (minLon < -180 || maxLon > 180) {
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        return new BoundingBox(minLat, maxLat, minLon, maxLon);
+    }
+
+    public static class BoundingBox {
+        private final double minLatitude;
+        private final double maxLatitude;
+        private final double minLongitude;
+        private final double maxLongitude;
+
+        public BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+            this.minLatitude = minLatitude;
+            this.maxLatitude = maxLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLongitude = maxLongitude;
+        }
+
+        public double getMinLatitude() { return minLatitude; }
+        public double getMaxLatitude() { return maxLatitude; }
+        public double getMinLongitude() { return minLongitude; }
+        public double getMaxLongitude() { return maxLongitude; }
+    }
+}
@@ -0,0 +1,110 @@
+package com.kny.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count of events over a sliding window. The window is split into
+ * a ring of equal buckets; each slot packs its bucket number and count into
+ * one long, so a slot left over from an earlier lap is reset by the same CAS
+ * that counts the new event. The total covers the last window to within one
+ * bucket. Times are System.nanoTime() readings, taken once by the caller.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final long bucketNanos;
+    private final long originNanos;
+
+    public SlidingWindowCounter(Duration window, int buckets) {
+        if (window.isNegative() || window.isZero() || buckets < 1) {
+            throw new IllegalArgumentException("Window must be positive and buckets at least 1");
+        }
+        this.slots = new AtomicLongArray(buckets);
+        this.bucketNanos = Math.max(1, window.toNanos() / buckets);
+        this.originNanos = System.nanoTime();
+    }
+
+    // Count one event unless the window already holds limit; returns whether it was counted
+    public boolean tryIncrement(int limit, long nowNanos) {
+        long bucket = bucket(nowNanos);
+        if (countInWindow(bucket) >= limit) {
+            return false;
+        }
+        int index = index(bucket);
+        while (true) {
+            long packed = slots.get(index);
+            long next = bucketOf(packed) == bucket ? packed + 1 : pack(bucket, 1);
+            if (slots.compareAndSet(index, packed, next)) {
+                break;
+            }
+        }
+        // Concurrent callers may all have passed the check above; the ones past the limit back out
+        if (countInWindow(bucket) > limit) {
+            slots.getAndUpdate(index, packed -> bucketOf(packed) == bucket ? packed - 1 : packed);
+            return false;
+        }
+        return true;
+    }
+
+    // Take back one event counted at the same nowNanos, when the attempt it belonged to was refused elsewhere
+    public void decrement(long nowNanos) {
+        long bucket = bucket(nowNanos);
+        slots.getAndUpdate(index(bucket),
+                packed -> bucketOf(packed) == bucket && (packed & COUNT_MASK) > 0 ? packed - 1 : packed);
+    }
+
+    public int count(long nowNanos) {
+        return countInWindow(bucket(nowNanos));
+    }
+
+    // Time until the oldest counted bucket leaves the window, freeing room for one more event
+    public Duration retryAfter(long nowNanos) {
+        long bucket = bucket(nowNanos);
+        long oldest = bucket;
+        for (int i = 0; i < slots.length(); i++) {
+            long packed = slots.get(i);
+            if (isLive(packed, bucket) && (packed & COUNT_MASK) > 0) {
+                oldest = Math.min(oldest, bucketOf(packed));
+            }
+        }
+        long freedAt = originNanos + (oldest + slots.length()) * bucketNanos;
+        return Duration.ofNanos(Math.max(0, freedAt - nowNanos));
+    }
+
+    private int countInWindow(long bucket) {
+        int total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long packed = slots.get(i);
+            if (isLive(packed, bucket)) {
+                total += (int) (packed & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+
+    private boolean isLive(long packed, long bucket) {
+        long age = bucket - bucketOf(packed);
+        return age >= 0 && age < slots.length();
+    }
+
+    private long bucket(long nowNanos) {
+        // Relative to creation, so bucket numbers are small and never negative
+        return Math.max(0, nowNanos - originNanos) / bucketNanos;
+    }
+
+    private int index(long bucket) {
+        return (int) (bucket % slots.length());
+    }
+
+    private static long bucketOf(long packed) {
+        return packed >>> COUNT_BITS;
+    }
+
+    private static long pack(long bucket, long count) {
+        return (bucket << COUNT_BITS) | count;
+    }
+}
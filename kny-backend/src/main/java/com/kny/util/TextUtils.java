@@ -0,0 +1,46 @@
+package com.kny.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text folding shared by the in-memory search and suggestion indexes.
+ */
+public final class TextUtils {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextUtils() {}
+
+    // Accent-folded, lower-cased words joined by single spaces ("Café  Corner!" -> "cafe corner")
+    public static String fold(String text) {
+        return String.join(" ", words(text));
+    }
+
+    // Accent-folded, lower-cased words in order of appearance
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return words;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String word : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Like words() but without duplicates
+    public static List<String> distinctWords(String text) {
+        Set<String> distinct = new LinkedHashSet<>(words(text));
+        return new ArrayList<>(distinct);
+    }
+}
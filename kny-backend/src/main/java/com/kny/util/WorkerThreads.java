@@ -0,0 +1,33 @@
+package com.kny.util;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the app's own worker pools. In virtual-thread mode
+ * (spring.threads.virtual.enabled on JDK 21+) a worker blocked on Google
+ * Places, Open-Meteo or MySQL gives its carrier thread back; the pool sizes
+ * still cap how many calls are in flight. On JDK 17 the flag is ignored, the
+ * same as Spring Boot does for Tomcat and the scheduler.
+ */
+public final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    // Daemon platform threads named prefix + counter, or virtual threads named the same way
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual && isVirtualSupported()) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    public static boolean isVirtualSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+}
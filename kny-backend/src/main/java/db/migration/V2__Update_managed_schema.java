@@ -0,0 +1,74 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The tables and indexes that ddl-auto=update used to add on top of kny_market_hub.sql. A
+ * database that ran the app before migrations existed already has some or all of them, so each
+ * one is created only when missing. This is Java rather than SQL because MySQL has no
+ * CREATE INDEX IF NOT EXISTS; Flyway picks it up from db/migration like the SQL files.
+ */
+public class V2__Update_managed_schema extends BaseJavaMigration {
+
+    private static final String[] TABLES = {
+            "CREATE TABLE IF NOT EXISTS market_sync_state (" +
+                    "market_id BIGINT NOT NULL, " +
+                    "status ENUM('SYNCED','NOT_FOUND','FAILED') NOT NULL, " +
+                    "consecutive_failures INT NOT NULL, " +
+                    "last_error VARCHAR(500) DEFAULT NULL, " +
+                    "last_attempt_at DATETIME(6) NOT NULL, " +
+                    "next_attempt_at DATETIME(6) DEFAULT NULL, " +
+                    "PRIMARY KEY (market_id))",
+            "CREATE TABLE IF NOT EXISTS place_photo_cache (" +
+                    "cache_key VARCHAR(300) NOT NULL, " +
+                    "place_id VARCHAR(255) NOT NULL, " +
+                    "max_photos INT NOT NULL, " +
+                    "photo_references TEXT DEFAULT NULL, " +
+                    "fetched_at DATETIME(6) NOT NULL, " +
+                    "PRIMARY KEY (cache_key))"
+    };
+
+    // Name, table and columns, as declared on the entities
+    private static final String[][] INDEXES = {
+            {"idx_markets_lat_lon", "markets", "latitude, longitude"},
+            {"idx_markets_last_google_sync", "markets", "last_google_sync, id"},
+            {"idx_market_sync_state_next_attempt", "market_sync_state", "next_attempt_at"},
+            {"idx_users_oauth_provider_id", "users", "oauth_provider, oauth_id"}
+    };
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute(table);
+            }
+            for (String[] index : INDEXES) {
+                if (!indexExists(connection, index[1], index[0])) {
+                    statement.execute("CREATE INDEX " + index[0] + " ON " + index[1] + " (" + index[2] + ")");
+                }
+            }
+        }
+    }
+
+    private boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                tableName, false, true)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
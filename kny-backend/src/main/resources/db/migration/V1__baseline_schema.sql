@@ -0,0 +1,51 @@
+-- Schema of kny_market_hub.sql. Databases imported from that dump are baselined at this
+-- version, so it only runs on an empty database.
+
+CREATE TABLE markets (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    google_place_id VARCHAR(255) DEFAULT NULL,
+    name VARCHAR(255) NOT NULL,
+    address TEXT NOT NULL,
+    latitude DECIMAL(10,8) NOT NULL,
+    longitude DECIMAL(11,8) NOT NULL,
+    opening_time TIME DEFAULT NULL,
+    closing_time TIME DEFAULT NULL,
+    description TEXT DEFAULT NULL,
+    specialties TEXT DEFAULT NULL,
+    highlights TEXT DEFAULT NULL,
+    is_covered BOOLEAN DEFAULT FALSE,
+    crowd_level_morning ENUM('LOW','MEDIUM','HIGH') DEFAULT 'MEDIUM',
+    crowd_level_afternoon ENUM('LOW','MEDIUM','HIGH') DEFAULT 'MEDIUM',
+    crowd_level_evening ENUM('LOW','MEDIUM','HIGH') DEFAULT 'LOW',
+    data_source ENUM('LOCAL','GOOGLE','HYBRID') DEFAULT 'HYBRID',
+    last_google_sync TIMESTAMP NULL DEFAULT NULL,
+    google_rating DECIMAL(2,1) DEFAULT NULL,
+    google_total_ratings INT DEFAULT NULL,
+    phone_number VARCHAR(20) DEFAULT NULL,
+    website VARCHAR(500) DEFAULT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT google_place_id UNIQUE (google_place_id)
+);
+
+CREATE INDEX idx_google_place_id ON markets (google_place_id);
+CREATE INDEX idx_data_source ON markets (data_source);
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) DEFAULT NULL,
+    name VARCHAR(255) NOT NULL,
+    provider VARCHAR(20) DEFAULT NULL,
+    provider_id VARCHAR(255) DEFAULT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    is_active BOOLEAN DEFAULT NULL,
+    oauth_id VARCHAR(255) DEFAULT NULL,
+    oauth_provider VARCHAR(255) DEFAULT NULL,
+    phone_number VARCHAR(255) DEFAULT NULL,
+    profile_picture VARCHAR(255) DEFAULT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT email UNIQUE (email)
+);
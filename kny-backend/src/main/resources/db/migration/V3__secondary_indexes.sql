@@ -0,0 +1,16 @@
+-- Indexes for the filters and sort orders in MarketRepository, MarketQueryRepositoryImpl and
+-- UserRepository. RepositoryQueryPlanTest fails when one of their queries scans a whole table.
+
+-- findAllByOrderByNameAsc and name-sorted keyset pages (name, id)
+CREATE INDEX idx_markets_name ON markets (name, id);
+
+-- findByIsCoveredTrue and the covered-only filter
+CREATE INDEX idx_markets_is_covered ON markets (is_covered);
+
+-- findByCrowdLevel* and the crowd level filter
+CREATE INDEX idx_markets_crowd_morning ON markets (crowd_level_morning);
+CREATE INDEX idx_markets_crowd_afternoon ON markets (crowd_level_afternoon);
+CREATE INDEX idx_markets_crowd_evening ON markets (crowd_level_evening);
+
+-- findByIsActiveTrue and countActiveUsers
+CREATE INDEX idx_users_is_active ON users (is_active);
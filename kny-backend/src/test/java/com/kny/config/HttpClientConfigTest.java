@@ -0,0 +1,138 @@
+package com.kny.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.Configurable;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HttpClientConfig Unit Tests")
+class HttpClientConfigTest {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration POOL_TIMEOUT = Duration.ofMillis(200);
+    private static final Duration KEEP_ALIVE = Duration.ofSeconds(30);
+
+    private HttpClientConfig httpClientConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        httpClientConfig = new HttpClientConfig();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should keep the API key and coordinates out of the uri tag")
+    void testUriTag_DropsQueryString() {
+        // Given
+        ClientRequestObservationContext context = observationContext(
+                "https://maps.googleapis.com/maps/api/place/details/json?place_id=abc123&key=secret-key");
+
+        // When
+        KeyValue uri = new HttpClientConfig.PathOnlyObservationConvention().uri(context);
+
+        // Then
+        assertEquals("uri", uri.getKey());
+        assertEquals("/maps/api/place/details/json", uri.getValue());
+    }
+
+    @Test
+    @DisplayName("Should leave a uri tag without a query string unchanged")
+    void testUriTag_WithoutQueryString() {
+        // Given
+        ClientRequestObservationContext context = observationContext("https://api.open-meteo.com/v1/forecast");
+
+        // When
+        KeyValue uri = new HttpClientConfig.PathOnlyObservationConvention().uri(context);
+
+        // Then
+        assertEquals("/v1/forecast", uri.getValue());
+    }
+
+    @Test
+    @DisplayName("Should give each upstream its own pool size and request timeouts")
+    void testPooledClients_PerUpstreamSettings() throws Exception {
+        // When
+        try (CloseableHttpClient google = httpClientConfig.googlePlacesHttpClient(meterRegistry, 20,
+                CONNECT_TIMEOUT, READ_TIMEOUT, POOL_TIMEOUT, KEEP_ALIVE);
+             CloseableHttpClient weather = httpClientConfig.weatherHttpClient(meterRegistry, 10,
+                     Duration.ofSeconds(1), Duration.ofSeconds(3), POOL_TIMEOUT, KEEP_ALIVE)) {
+
+            // Then - pool gauges are tagged per upstream
+            assertEquals(20.0, poolMax("google-places"));
+            assertEquals(10.0, poolMax("open-meteo"));
+
+            PoolingHttpClientConnectionManager googlePool = connectionManager(google);
+            assertEquals(20, googlePool.getMaxTotal());
+            assertEquals(20, googlePool.getDefaultMaxPerRoute());
+
+            RequestConfig requestConfig = ((Configurable) weather).getConfig();
+            assertEquals(Timeout.of(POOL_TIMEOUT), requestConfig.getConnectionRequestTimeout());
+            assertEquals(Timeout.ofSeconds(3), requestConfig.getResponseTimeout());
+
+            ConnectionConfig connectionConfig = ReflectionTestUtils.invokeMethod(connectionManager(weather),
+                    "resolveConnectionConfig", new HttpRoute(new HttpHost("https", "api.open-meteo.com", 443)));
+            assertNotNull(connectionConfig);
+            assertEquals(Timeout.ofSeconds(1), connectionConfig.getConnectTimeout());
+            assertEquals(Timeout.ofSeconds(3), connectionConfig.getSocketTimeout());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail after the pool timeout instead of queueing when the pool is exhausted")
+    void testPooledClient_FailsFastWhenPoolExhausted() throws Exception {
+        // Given - the only connection is already leased
+        HttpHost target = new HttpHost("http", "localhost", 9);
+        try (CloseableHttpClient google = httpClientConfig.googlePlacesHttpClient(meterRegistry, 1,
+                CONNECT_TIMEOUT, READ_TIMEOUT, POOL_TIMEOUT, KEEP_ALIVE)) {
+            ConnectionEndpoint held = connectionManager(google)
+                    .lease("held", new HttpRoute(target), null)
+                    .get(Timeout.ofSeconds(1));
+
+            // When / Then
+            long start = System.nanoTime();
+            assertThrows(ConnectionRequestTimeoutException.class,
+                    () -> google.execute(new HttpGet(target.toURI() + "/"), response -> null));
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+            held.close();
+        }
+    }
+
+    private ClientRequestObservationContext observationContext(String uriTemplate) {
+        ClientRequestObservationContext context = new ClientRequestObservationContext(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create(uriTemplate)));
+        context.setUriTemplate(uriTemplate);
+        return context;
+    }
+
+    private double poolMax(String upstream) {
+        return meterRegistry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", upstream).gauge().value();
+    }
+
+    private PoolingHttpClientConnectionManager connectionManager(CloseableHttpClient client) {
+        return (PoolingHttpClientConnectionManager) ReflectionTestUtils.getField(client, "connManager");
+    }
+}
@@ -0,0 +1,77 @@
+package com.kny.config;
+
+import com.kny.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JwtAuthenticationFilter Unit Tests")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private Claims claims;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate a request with a valid bearer token")
+    void testValidToken_Authenticates() throws Exception {
+        // Given
+        when(jwtService.verifyAccessToken("good-token")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("john@example.com");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/user");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer good-token");
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+
+        // When
+        new JwtAuthenticationFilter(jwtService).doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+
+        // Then
+        assertNotNull(seen.get());
+        assertTrue(seen.get().isAuthenticated());
+        assertEquals("john@example.com", ((UserDetails) seen.get().getPrincipal()).getUsername());
+        assertNull(request.getSession(false));
+    }
+
+    @Test
+    @DisplayName("Should pass an invalid token through unauthenticated")
+    void testInvalidToken_LeavesRequestUnauthenticated() throws Exception {
+        // Given
+        when(jwtService.verifyAccessToken("bad-token")).thenThrow(new JwtException("Expired"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/user");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer bad-token");
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        new JwtAuthenticationFilter(jwtService).doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
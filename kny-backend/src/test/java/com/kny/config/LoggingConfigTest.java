@@ -0,0 +1,77 @@
+package com.kny.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoggingConfig Unit Tests")
+class LoggingConfigTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Should mark sampled requests in the MDC only while they run")
+    void testDebugSamplingFilter_MarksSampledRequest() throws Exception {
+        // Given
+        LoggingConfig.DebugSamplingFilter filter = new LoggingConfig.DebugSamplingFilter(1.0);
+        AtomicReference<String> duringRequest = new AtomicReference<>();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), new MockHttpServletResponse(),
+                (request, response) -> duringRequest.set(MDC.get(SampledDebugTurboFilter.MDC_KEY)));
+
+        // Then
+        assertEquals("true", duringRequest.get());
+        assertNull(MDC.get(SampledDebugTurboFilter.MDC_KEY));
+    }
+
+    @Test
+    @DisplayName("Should leave requests unmarked when sampling is off")
+    void testDebugSamplingFilter_Disabled() throws Exception {
+        // Given
+        LoggingConfig.DebugSamplingFilter filter = new LoggingConfig.DebugSamplingFilter(0);
+        AtomicReference<String> duringRequest = new AtomicReference<>("unset");
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), new MockHttpServletResponse(),
+                (request, response) -> duringRequest.set(MDC.get(SampledDebugTurboFilter.MDC_KEY)));
+
+        // Then
+        assertNull(duringRequest.get());
+    }
+
+    @Test
+    @DisplayName("Should enable app debug logging only for sampled requests")
+    void testTurboFilter_AcceptsSampledAppDebug() {
+        // Given
+        SampledDebugTurboFilter turboFilter = new SampledDebugTurboFilter();
+        turboFilter.setLoggerPrefix("com.kny");
+        turboFilter.start();
+        Logger appLogger = loggerContext.getLogger("com.kny.service.MarketService");
+        Logger hibernateLogger = loggerContext.getLogger("org.hibernate.SQL");
+
+        // When / Then - unsampled requests keep the configured level
+        assertEquals(FilterReply.NEUTRAL, turboFilter.decide(null, appLogger, Level.DEBUG, "msg", null, null));
+
+        MDC.put(SampledDebugTurboFilter.MDC_KEY, "true");
+        assertEquals(FilterReply.ACCEPT, turboFilter.decide(null, appLogger, Level.DEBUG, "msg", null, null));
+        assertEquals(FilterReply.NEUTRAL, turboFilter.decide(null, appLogger, Level.WARN, "msg", null, null));
+        assertEquals(FilterReply.NEUTRAL, turboFilter.decide(null, hibernateLogger, Level.DEBUG, "msg", null, null));
+    }
+}
@@ -0,0 +1,136 @@
+package com.kny.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PasswordEncoderConfig Unit Tests")
+class PasswordEncoderConfigTest {
+
+    @Test
+    @DisplayName("Should match legacy bcrypt hashes and flag them for upgrade")
+    void testDelegatingEncoder_LegacyHashes() {
+        // Given - a hash stored before {id} prefixes, at the old default cost
+        PasswordEncoder encoder = PasswordEncoderConfig.delegatingEncoder("bcrypt", 4, 1024, 1);
+        String legacy = new BCryptPasswordEncoder(4).encode("password123");
+        String current = encoder.encode("password123");
+
+        // When / Then
+        assertTrue(encoder.matches("password123", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertTrue(current.startsWith("{bcrypt}"));
+        assertFalse(encoder.upgradeEncoding(current));
+        assertTrue(PasswordEncoderConfig.delegatingEncoder("bcrypt", 5, 1024, 1).upgradeEncoding(current));
+    }
+
+    @Test
+    @DisplayName("Should re-hash with the configured algorithm on a successful login")
+    void testLogin_UpgradesHash() {
+        // Given - switching from bcrypt to argon2
+        String stored = new BCryptPasswordEncoder(4).encode("password123");
+        PasswordEncoder argon2 = PasswordEncoderConfig.delegatingEncoder("argon2", 4, 1024, 1);
+        AtomicReference<String> saved = new AtomicReference<>();
+        UserDetailsPasswordService passwordService = (user, newPassword) -> {
+            saved.set(newPassword);
+            return User.withUserDetails(user).password(newPassword).build();
+        };
+        UserDetails user = User.withUsername("john@example.com").password(stored).roles("USER").build();
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(username -> user);
+        provider.setPasswordEncoder(argon2);
+        provider.setUserDetailsPasswordService(passwordService);
+
+        // When
+        provider.authenticate(new UsernamePasswordAuthenticationToken("john@example.com", "password123"));
+
+        // Then
+        assertNotNull(saved.get());
+        assertTrue(saved.get().startsWith("{argon2}"));
+        assertTrue(argon2.matches("password123", saved.get()));
+    }
+
+    @Test
+    @DisplayName("Should hash on the pool and record hash time and queue wait")
+    void testOffloading_RecordsMetrics() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(
+                PasswordEncoderConfig.delegatingEncoder("bcrypt", 4, 1024, 1), pool(1, 4),
+                Duration.ofSeconds(5), meterRegistry);
+
+        // When
+        String hash = encoder.encode("password123");
+        boolean matches = encoder.matches("password123", hash);
+
+        // Then
+        assertTrue(matches);
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash.queue.wait").timer().count());
+        encoder.destroy();
+    }
+
+    @Test
+    @DisplayName("Should reject straight away once the hashing queue is full")
+    void testOffloading_RejectsWhenQueueFull() throws Exception {
+        // Given - one thread busy with a slow hash and one hash already queued
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                running.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OffloadingPasswordEncoder encoder =
+                new OffloadingPasswordEncoder(slow, pool(1, 1), Duration.ofSeconds(5), meterRegistry);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        waitForQueueDepth(encoder, 1);
+
+        // When / Then
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("third"));
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        encoder.destroy();
+    }
+
+    private ThreadPoolExecutor pool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    private void waitForQueueDepth(OffloadingPasswordEncoder encoder, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, encoder.getQueueDepth());
+    }
+}
@@ -0,0 +1,53 @@
+package com.kny.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Time per password hash for each candidate app.security.password setting,
+ * the cost one login or registration pays on the hashing pool. Not part of
+ * the normal build; run it with {@code mvn test -Dtest=PasswordHashingBenchmark}
+ * on the target hardware and pick the strongest setting that stays near
+ * 100 ms. Each setting runs benchmark.iterations (default 20) matches after
+ * a few warm-up rounds.
+ */
+@DisplayName("Password hashing benchmark")
+class PasswordHashingBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20);
+
+    @Test
+    @DisplayName("Verify a password with each encoder setting")
+    void benchmarkEncoders() {
+        Map<String, PasswordEncoder> settings = new LinkedHashMap<>();
+        for (int strength = 10; strength <= 13; strength++) {
+            settings.put("bcrypt strength " + strength,
+                    PasswordEncoderConfig.delegatingEncoder("bcrypt", strength, 16384, 2));
+        }
+        settings.put("argon2 16 MiB x 2", PasswordEncoderConfig.delegatingEncoder("argon2", 10, 16384, 2));
+        settings.put("argon2 32 MiB x 3", PasswordEncoderConfig.delegatingEncoder("argon2", 10, 32768, 3));
+        settings.put("argon2 64 MiB x 3", PasswordEncoderConfig.delegatingEncoder("argon2", 10, 65536, 3));
+
+        System.out.println();
+        for (Map.Entry<String, PasswordEncoder> setting : settings.entrySet()) {
+            PasswordEncoder encoder = setting.getValue();
+            String hash = encoder.encode("password123");
+            for (int i = 0; i < 3; i++) {
+                assertTrue(encoder.matches("password123", hash));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                assertTrue(encoder.matches("password123", hash));
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+            System.out.printf("%-20s %7.1f ms/hash  %5.1f logins/s per core%n", setting.getKey(), millis, 1000 / millis);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.kny.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.data.redis.RedisIndexedSessionRepository;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Redis session store Tests")
+class RedisSessionStoreTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisIndexedSessionRepository redisRepository;
+    private static WriteBehindSessionRepository<?> sessionRepository;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        SessionStoreConfig.RedisSessionStore store = new SessionStoreConfig.RedisSessionStore();
+        redisRepository = store.redisIndexedSessionRepository(connectionFactory, new ServerProperties());
+        sessionRepository = store.sessionRepository(redisRepository);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    @DisplayName("Should keep the login in Redis and defer last-access writes to the flush")
+    void testSessionRoundTrip_DefersLastAccessWrite() {
+        // Given
+        String id = createSession(sessionRepository);
+        Instant stored = redisRepository.findById(id).getLastAccessedTime();
+        Instant touchedAt = Instant.now().plusSeconds(5).truncatedTo(ChronoUnit.MILLIS);
+
+        // When
+        touch(sessionRepository, id, touchedAt);
+
+        // Then
+        assertEquals("john@example.com", sessionRepository.findById(id).getAttribute("user"));
+        assertEquals(stored, redisRepository.findById(id).getLastAccessedTime());
+
+        // When
+        sessionRepository.flush();
+
+        // Then
+        assertEquals(touchedAt, redisRepository.findById(id).getLastAccessedTime());
+    }
+
+    @Test
+    @DisplayName("Should leave the same keys and TTLs as a save through the repository")
+    void testFlush_MatchesRepositorySave() {
+        // Given - one session flushed in the batch, one saved directly, both touched at the same time
+        String flushed = createSession(sessionRepository);
+        String saved = createSession(sessionRepository);
+        Instant touchedAt = Instant.now().plus(3, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.MILLIS);
+        long previousMinute = expirationMinute(redisRepository.findById(flushed));
+
+        // When
+        touch(sessionRepository, flushed, touchedAt);
+        sessionRepository.flush();
+        var session = redisRepository.findById(saved);
+        session.setLastAccessedTime(touchedAt);
+        redisRepository.save(session);
+
+        // Then
+        var redis = redisRepository.getSessionRedisOperations();
+        assertEquals(touchedAt, redisRepository.findById(flushed).getLastAccessedTime());
+        assertEquals(redis.getExpire("spring:session:sessions:" + saved),
+                redis.getExpire("spring:session:sessions:" + flushed), 1);
+        assertEquals(redis.getExpire("spring:session:sessions:expires:" + saved),
+                redis.getExpire("spring:session:sessions:expires:" + flushed), 1);
+        long nextMinute = expirationMinute(redisRepository.findById(flushed));
+        assertNotEquals(previousMinute, nextMinute);
+        assertEquals(Boolean.TRUE, redis.opsForSet().isMember("spring:session:expirations:" + nextMinute, "expires:" + flushed));
+        assertEquals(Boolean.TRUE, redis.opsForSet().isMember("spring:session:expirations:" + nextMinute, "expires:" + saved));
+        assertEquals(Boolean.FALSE, redis.opsForSet().isMember("spring:session:expirations:" + previousMinute, "expires:" + flushed));
+    }
+
+    @Test
+    @DisplayName("Should not move last access backwards or recreate deleted sessions")
+    void testFlush_SkipsNewerAndDeletedSessions() {
+        // Given - another node wrote a later access, and a second session was deleted before the flush
+        String touchedElsewhere = createSession(sessionRepository);
+        String deleted = createSession(sessionRepository);
+        Instant later = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MILLIS);
+        touch(sessionRepository, touchedElsewhere, Instant.now().plusSeconds(5));
+        touch(sessionRepository, deleted, Instant.now().plusSeconds(5));
+        var session = redisRepository.findById(touchedElsewhere);
+        session.setLastAccessedTime(later);
+        redisRepository.save(session);
+        var redis = redisRepository.getSessionRedisOperations();
+        Object deletedLastAccess = redis.opsForHash().get("spring:session:sessions:" + deleted, "lastAccessedTime");
+        redisRepository.deleteById(deleted);
+
+        // When
+        sessionRepository.flush();
+
+        // Then
+        assertEquals(later, redisRepository.findById(touchedElsewhere).getLastAccessedTime());
+        assertNull(redisRepository.findById(deleted));
+        assertEquals(deletedLastAccess, redis.opsForHash().get("spring:session:sessions:" + deleted, "lastAccessedTime"));
+    }
+
+    @Test
+    @DisplayName("Should find a user's sessions across nodes and delete them")
+    void testFindByPrincipalName_AndDelete() {
+        // Given
+        String id = createSession(sessionRepository);
+
+        // When
+        var sessions = sessionRepository.findByPrincipalName("john@example.com");
+        sessionRepository.deleteById(id);
+
+        // Then
+        assertTrue(sessions.containsKey(id));
+        assertNull(sessionRepository.findById(id));
+        assertTrue(sessionRepository.findByPrincipalName("john@example.com").isEmpty());
+    }
+
+    // Minute bucket of the repository's expiration set, as RedisIndexedSessionRepository rounds it
+    private static long expirationMinute(Session session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).plus(1, ChronoUnit.MINUTES)
+                .truncatedTo(ChronoUnit.MINUTES).toEpochMilli();
+    }
+
+    private static <S extends Session> String createSession(WriteBehindSessionRepository<S> repository) {
+        WriteBehindSessionRepository.WriteBehindSession<S> session = repository.createSession();
+        session.setAttribute("user", "john@example.com");
+        session.setAttribute(FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME, "john@example.com");
+        repository.save(session);
+        return session.getId();
+    }
+
+    private static <S extends Session> void touch(WriteBehindSessionRepository<S> repository, String id, Instant touchedAt) {
+        WriteBehindSessionRepository.WriteBehindSession<S> session = repository.findById(id);
+        session.setLastAccessedTime(touchedAt);
+        repository.save(session);
+    }
+}
@@ -0,0 +1,79 @@
+package com.kny.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VirtualThreadConfig Unit Tests")
+class VirtualThreadConfigTest {
+
+    @Test
+    @DisplayName("Should pass requests through and release the slot afterwards")
+    void testConcurrencyLimitFilter_PassesThrough() throws Exception {
+        // Given
+        VirtualThreadConfig.ConcurrencyLimitFilter filter =
+                new VirtualThreadConfig.ConcurrencyLimitFilter(1, Duration.ofMillis(100));
+
+        // When - the second request only gets in if the first released its slot
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockFilterChain firstChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), first, firstChain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockFilterChain secondChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), second, secondChain);
+
+        // Then
+        assertNotNull(firstChain.getRequest());
+        assertNotNull(secondChain.getRequest());
+        assertEquals(200, second.getStatus());
+        assertEquals(0, filter.getWaiting());
+    }
+
+    @Test
+    @DisplayName("Should reject with 503 when no slot frees up in time")
+    void testConcurrencyLimitFilter_RejectsWhenBusy() throws Exception {
+        // Given - one slot, held by a request that is still running
+        VirtualThreadConfig.ConcurrencyLimitFilter filter =
+                new VirtualThreadConfig.ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slowRequest = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            running.countDown();
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/markets"), response, chain);
+        release.countDown();
+        slowRequest.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+    }
+}
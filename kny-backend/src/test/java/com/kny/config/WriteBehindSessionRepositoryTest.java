@@ -0,0 +1,131 @@
+package com.kny.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.session.Session;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WriteBehindSessionRepository JDBC Tests")
+class WriteBehindSessionRepositoryTest {
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private WriteBehindSessionRepository<?> sessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        SessionStoreConfig.JdbcSessionStore store = new SessionStoreConfig.JdbcSessionStore();
+        JdbcIndexedSessionRepository jdbcRepository = store.jdbcIndexedSessionRepository(
+                dataSource, new DataSourceTransactionManager(dataSource), new ServerProperties(), false);
+        sessionRepository = store.sessionRepository(jdbcRepository, dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should not write the store when a session is only read")
+    void testReadOnlyRequest_DefersLastAccessWrite() {
+        // Given
+        String id = createSession(sessionRepository, Instant.now().minusSeconds(60), Duration.ofMinutes(30));
+        long storedLastAccess = lastAccessTime(id);
+        Instant touchedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // When - what SessionRepositoryFilter does on every request
+        touch(sessionRepository, id, touchedAt);
+
+        // Then
+        assertEquals(storedLastAccess, lastAccessTime(id));
+        assertEquals(1, sessionRepository.pendingCount());
+        assertEquals(touchedAt, sessionRepository.findById(id).getLastAccessedTime());
+    }
+
+    @Test
+    @DisplayName("Should write pending last-access times and expiry in one flush")
+    void testFlush_WritesLastAccessAndExpiry() {
+        // Given
+        String first = createSession(sessionRepository, Instant.now().minusSeconds(60), Duration.ofMinutes(30));
+        String second = createSession(sessionRepository, Instant.now().minusSeconds(60), Duration.ofMinutes(30));
+        Instant touchedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        touch(sessionRepository, first, touchedAt.minusSeconds(1));
+        touch(sessionRepository, first, touchedAt);
+        touch(sessionRepository, second, touchedAt);
+
+        // When
+        sessionRepository.flush();
+
+        // Then
+        assertEquals(0, sessionRepository.pendingCount());
+        assertEquals(touchedAt.toEpochMilli(), lastAccessTime(first));
+        assertEquals(touchedAt.toEpochMilli(), lastAccessTime(second));
+        assertEquals(touchedAt.plus(Duration.ofMinutes(30)).toEpochMilli(), jdbcTemplate.queryForObject(
+                "SELECT EXPIRY_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?", Long.class, first));
+    }
+
+    @Test
+    @DisplayName("Should delete expired sessions in batches and keep recently used ones")
+    void testCleanup_DeletesExpiredInBatches() {
+        // Given - five expired sessions, and one that was used since it was stored
+        for (int i = 0; i < 5; i++) {
+            createSession(sessionRepository, Instant.now().minusSeconds(120), Duration.ofMinutes(1));
+        }
+        String active = createSession(sessionRepository, Instant.now().minusSeconds(50), Duration.ofMinutes(1));
+        touch(sessionRepository, active, Instant.now());
+        SessionStoreConfig.JdbcSessionCleaner cleaner =
+                new SessionStoreConfig.JdbcSessionCleaner(new NamedParameterJdbcTemplate(dataSource), sessionRepository, 2);
+
+        // When
+        cleaner.cleanUpExpiredSessions();
+
+        // Then
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SPRING_SESSION", Integer.class));
+        assertEquals(0, sessionRepository.pendingCount());
+        assertNotNull(sessionRepository.findById(active));
+    }
+
+    private long lastAccessTime(String id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT LAST_ACCESS_TIME FROM SPRING_SESSION WHERE SESSION_ID = ?", Long.class, id);
+    }
+
+    private static <S extends Session> String createSession(
+            WriteBehindSessionRepository<S> repository, Instant lastAccessedTime, Duration maxInactiveInterval) {
+        WriteBehindSessionRepository.WriteBehindSession<S> session = repository.createSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        session.setLastAccessedTime(lastAccessedTime);
+        session.setAttribute("user", "john@example.com");
+        repository.save(session);
+        return session.getId();
+    }
+
+    private static <S extends Session> void touch(
+            WriteBehindSessionRepository<S> repository, String id, Instant touchedAt) {
+        WriteBehindSessionRepository.WriteBehindSession<S> session = repository.findById(id);
+        session.setLastAccessedTime(touchedAt);
+        repository.save(session);
+    }
+}
@@ -1,11 +1,19 @@
 package com.kny.controller;
 
+import com.kny.config.PasswordHashingBusyException;
 import com.kny.dto.LoginRequest;
+import com.kny.dto.RefreshTokenRequest;
 import com.kny.dto.RegisterRequest;
 import com.kny.dto.UserResponse;
+import com.kny.model.User;
 import com.kny.service.AuthService;
+import com.kny.service.JwtService;
+import com.kny.service.LoginRateLimitedException;
+import com.kny.service.LoginRateLimiter;
 import com.kny.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -15,9 +23,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +44,9 @@ class AuthControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
     @InjectMocks
     private AuthController authController;
 
@@ -87,6 +102,40 @@ class AuthControllerTest {
         verify(authService).authenticate(any(LoginRequest.class));
     }
 
+    @Test
+    @DisplayName("Should answer 429 with Retry-After without authenticating when rate limited")
+    void testLoginRateLimited() throws Exception {
+        // Given
+        doThrow(new LoginRateLimitedException("Too many login attempts, try again later", Duration.ofSeconds(42)))
+                .when(loginRateLimiter).acquire(any(), eq("test@example.com"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "42"))
+                .andExpect(jsonPath("$.message").value("Too many login attempts, try again later"));
+
+        verify(authService, never()).authenticate(any(LoginRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After when password hashing is saturated")
+    void testLoginHashingBusy() throws Exception {
+        // Given
+        when(authService.authenticate(any(LoginRequest.class)))
+                .thenThrow(new PasswordHashingBusyException("Too many sign-ins in progress, try again shortly"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many sign-ins in progress, try again shortly"));
+    }
+
     @Test
     @DisplayName("Should register successfully")
     void testRegisterSuccess() throws Exception {
@@ -139,4 +188,68 @@ class AuthControllerTest {
 
         verify(authService, never()).authenticate(any(LoginRequest.class));
     }
+
+    @Test
+    @DisplayName("Should return tokens instead of creating a session in stateless mode")
+    void testLoginStateless_ReturnsTokens() throws Exception {
+        // Given
+        JwtService jwtService = mock(JwtService.class);
+        ReflectionTestUtils.setField(authController, "jwtService", jwtService);
+        when(authService.authenticate(any(LoginRequest.class))).thenReturn(userResponse);
+        when(jwtService.createAccessToken("john@example.com")).thenReturn("access-token");
+        when(jwtService.createRefreshToken("john@example.com")).thenReturn("refresh-token");
+        when(jwtService.getAccessExpirationSeconds()).thenReturn(900L);
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user.token").value("access-token"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-token"))
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andExpect(request().sessionAttributeDoesNotExist("SPRING_SECURITY_CONTEXT"));
+    }
+
+    @Test
+    @DisplayName("Should exchange a refresh token for a new token pair")
+    void testRefresh_IssuesNewTokens() throws Exception {
+        // Given
+        JwtService jwtService = mock(JwtService.class);
+        Claims claims = mock(Claims.class);
+        ReflectionTestUtils.setField(authController, "jwtService", jwtService);
+        User user = new User("John Doe", "john@example.com");
+        when(jwtService.verifyRefreshToken("refresh-token")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("john@example.com");
+        when(userService.findProfileByEmail("john@example.com")).thenReturn(user);
+        when(jwtService.createAccessToken("john@example.com")).thenReturn("new-access-token");
+        when(jwtService.createRefreshToken("john@example.com")).thenReturn("new-refresh-token");
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("new-access-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid refresh token")
+    void testRefresh_InvalidToken() throws Exception {
+        // Given
+        JwtService jwtService = mock(JwtService.class);
+        ReflectionTestUtils.setField(authController, "jwtService", jwtService);
+        when(jwtService.verifyRefreshToken("expired-token")).thenThrow(new JwtException("Expired"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("expired-token"))))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid refresh token"));
+
+        verify(jwtService, never()).createAccessToken(any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.kny.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The per-IP login limit behind a reverse proxy. Requests arrive from
+ * loopback, which Tomcat trusts as a proxy, so the limit must count the
+ * addresses in X-Forwarded-For rather than the proxy itself.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.autoconfigure.exclude=", "app.auth.rate-limit.per-ip=3"})
+@DisplayName("Login rate limit behind a proxy")
+class LoginRateLimitProxyTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    @DisplayName("Should count each forwarded client separately")
+    void testPerIpLimit_UsesForwardedAddress() throws Exception {
+        // When - more clients than the per-IP limit log in through the same proxy
+        for (int i = 1; i <= 5; i++) {
+            assertNotEquals(429, login("198.51.100." + i, "user" + i + "@example.com"));
+        }
+
+        // Then - one forwarded client is still limited on its own
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(429, login("203.0.113.7", "guess" + i + "@example.com"));
+        }
+        assertEquals(429, login("203.0.113.7", "guess3@example.com"));
+    }
+
+    private int login(String clientIp, String email) throws Exception {
+        String credentials = "{\"email\":\"" + email + "\",\"password\":\"wrong-password\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", clientIp)
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -1,7 +1,12 @@
 package com.kny.controller;
 
+import com.kny.dto.MarketPage;
+import com.kny.dto.MarketPageRequest;
 import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketSuggestion;
+import com.kny.repository.MarketFilter;
 import com.kny.service.MarketService;
+import com.kny.service.ReactiveMarketService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,7 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
@@ -32,6 +39,9 @@ class MarketControllerTest {
     @Mock
     private MarketService marketService;
 
+    @Mock
+    private ReactiveMarketService reactiveMarketService;
+
     @InjectMocks
     private MarketController marketController;
 
@@ -56,16 +66,53 @@ class MarketControllerTest {
     @DisplayName("Should get all markets successfully")
     void testGetAllMarkets() throws Exception {
         // Given
-        when(marketService.getAllMarkets()).thenReturn(marketsList);
+        when(marketService.getMarkets(any(MarketFilter.class), any(MarketPageRequest.class)))
+                .thenReturn(new MarketPage(marketsList, null));
 
         // When & Then
         mockMvc.perform(get("/api/markets"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(2))
                 .andExpect(jsonPath("$[0].name").value("Test Market 1"))
-                .andExpect(jsonPath("$[1].name").value("Test Market 2"));
+                .andExpect(jsonPath("$[1].name").value("Test Market 2"))
+                .andExpect(header().doesNotExist(MarketController.NEXT_CURSOR_HEADER));
+
+        verify(marketService).getMarkets(any(MarketFilter.class), any(MarketPageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should bind paging parameters and return the next cursor in a header")
+    void testGetAllMarkets_Paged() throws Exception {
+        // Given
+        when(marketService.getMarkets(any(MarketFilter.class), any(MarketPageRequest.class)))
+                .thenReturn(new MarketPage(List.of(marketResponse1), "next-token"));
+
+        // When & Then
+        mockMvc.perform(get("/api/markets")
+                .param("size", "1")
+                .param("cursor", "abc")
+                .param("sort", "crowd")
+                .param("fields", "name,photos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(header().string(MarketController.NEXT_CURSOR_HEADER, "next-token"));
+
+        verify(marketService).getMarkets(any(MarketFilter.class), argThat(page ->
+                page.getSize() == 1 && "abc".equals(page.getCursor())
+                        && "crowd".equals(page.getSort()) && "name,photos".equals(page.getFields())));
+    }
+
+    @Test
+    @DisplayName("Should return 400 for invalid paging parameters")
+    void testGetAllMarkets_InvalidParameters() throws Exception {
+        // Given
+        when(marketService.getMarkets(any(MarketFilter.class), any(MarketPageRequest.class)))
+                .thenThrow(new IllegalArgumentException("Unknown field: rating"));
 
-        verify(marketService).getAllMarkets();
+        // When & Then
+        mockMvc.perform(get("/api/markets").param("fields", "rating"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field: rating"));
     }
 
     @Test
@@ -96,11 +143,46 @@ class MarketControllerTest {
         verify(marketService).getMarketById(999L);
     }
 
+    @Test
+    @DisplayName("Should serve a market asynchronously from the reactive endpoint")
+    void testGetMarketByIdReactive_Found() throws Exception {
+        // Given
+        when(reactiveMarketService.getMarketById(1L)).thenReturn(Mono.just(marketResponse1));
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/markets/reactive/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Test Market 1"));
+        verifyNoInteractions(marketService);
+    }
+
+    @Test
+    @DisplayName("Should return 404 from the reactive endpoint when market not found")
+    void testGetMarketByIdReactive_NotFound() throws Exception {
+        // Given
+        when(reactiveMarketService.getMarketById(999L)).thenReturn(Mono.empty());
+
+        // When
+        MvcResult started = mockMvc.perform(get("/api/markets/reactive/999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Should search markets by name")
     void testSearchMarketsByName() throws Exception {
         // Given
-        when(marketService.getMarketsByName("Test")).thenReturn(marketsList);
+        when(marketService.searchMarkets(isNull(), eq("Test"), isNull(), any(MarketPageRequest.class)))
+                .thenReturn(new MarketPage(marketsList, null));
 
         // When & Then
         mockMvc.perform(get("/api/markets/search")
@@ -108,9 +190,42 @@ class MarketControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(2));
 
-        verify(marketService).getMarketsByName("Test");
-        verify(marketService, never()).getMarketsBySpecialty(any());
-        verify(marketService, never()).getAllMarkets();
+        verify(marketService).searchMarkets(isNull(), eq("Test"), isNull(), any(MarketPageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should search every field and combine name with specialty")
+    void testSearchMarkets_Combined() throws Exception {
+        // Given
+        when(marketService.searchMarkets(eq("night"), eq("Batu"), eq("food"), any(MarketPageRequest.class)))
+                .thenReturn(new MarketPage(List.of(marketResponse1), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/markets/search")
+                .param("q", "night")
+                .param("name", "Batu")
+                .param("specialty", "food"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1));
+    }
+
+    @Test
+    @DisplayName("Should return capped typeahead suggestions")
+    void testSuggestMarkets() throws Exception {
+        // Given
+        when(marketService.suggestMarkets("cho", 20))
+                .thenReturn(List.of(new MarketSuggestion(1L, "Chowrasta Market", "Nutmeg")));
+
+        // When & Then
+        mockMvc.perform(get("/api/markets/suggest")
+                .param("q", "cho")
+                .param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Chowrasta Market"))
+                .andExpect(jsonPath("$[0].snippet").value("Nutmeg"));
+
+        verify(marketService).suggestMarkets("cho", 20);
     }
 
     @Test
@@ -118,8 +233,8 @@ class MarketControllerTest {
     void testGetNearbyMarkets() throws Exception {
         // Given
         when(marketService.getMarketsWithinRadius(
-                any(BigDecimal.class), any(BigDecimal.class), eq(10.0)))
-                .thenReturn(marketsList);
+                any(BigDecimal.class), any(BigDecimal.class), eq(10.0), any(MarketPageRequest.class)))
+                .thenReturn(new MarketPage(marketsList, null));
 
         // When & Then
         mockMvc.perform(get("/api/markets/nearby")
@@ -130,7 +245,25 @@ class MarketControllerTest {
                 .andExpect(jsonPath("$.size()").value(2));
 
         verify(marketService).getMarketsWithinRadius(
-                any(BigDecimal.class), any(BigDecimal.class), eq(10.0));
+                any(BigDecimal.class), any(BigDecimal.class), eq(10.0), any(MarketPageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should cap the closest markets limit")
+    void testGetClosestMarkets() throws Exception {
+        // Given
+        when(marketService.getClosestMarkets(any(BigDecimal.class), any(BigDecimal.class), eq(50), isNull()))
+                .thenReturn(marketsList);
+
+        // When & Then
+        mockMvc.perform(get("/api/markets/closest")
+                .param("latitude", "5.4164")
+                .param("longitude", "100.3327")
+                .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2));
+
+        verify(marketService).getClosestMarkets(any(BigDecimal.class), any(BigDecimal.class), eq(50), isNull());
     }
 
     @Test
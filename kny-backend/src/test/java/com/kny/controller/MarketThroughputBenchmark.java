@@ -0,0 +1,237 @@
+package com.kny.controller;
+
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.WorkerThreads;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of GET /api/markets with 1,000 concurrent clients against the
+ * embedded Tomcat. Not part of the normal build because of its run time; run
+ * it once per thread mode and compare the printed numbers:
+ * {@code mvn test -Dtest=MarketThroughputBenchmark} for the platform-thread
+ * pool, {@code mvn test -Pvirtual-threads -Dtest=MarketThroughputBenchmark}
+ * for virtual threads.
+ *
+ * H2 answers in microseconds, so each JDBC statement is held for
+ * benchmark.db-latency-ms (default 5) with its connection checked out, to
+ * stand in for the MySQL round trip request threads really wait on. Warm-up
+ * and measurement windows are benchmark.warm-up and benchmark.measurement;
+ * give the JIT longer on small machines, where it competes for the CPU.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.autoconfigure.exclude=", "spring.datasource.hikari.maximum-pool-size=20"})
+@Import(MarketThroughputBenchmark.SlowDatabaseConfig.class)
+@DisplayName("Market listing throughput benchmark")
+class MarketThroughputBenchmark {
+
+    private static final int CLIENTS = 1_000;
+    private static final int MARKETS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${benchmark.db-latency-ms:5}")
+    private long dbLatencyMs;
+
+    @Value("${benchmark.warm-up:PT10S}")
+    private Duration warmUp;
+
+    @Value("${benchmark.measurement:PT15S}")
+    private Duration measurement;
+
+    @Test
+    @DisplayName("GET /api/markets under 1,000 concurrent clients")
+    void benchmarkListMarkets() throws Exception {
+        List<Market> markets = new ArrayList<>();
+        for (int i = 0; i < MARKETS; i++) {
+            markets.add(new Market("Market " + i, i + " Jalan Pasar",
+                    new BigDecimal("5.4164"), new BigDecimal("100.3327")));
+        }
+        marketRepository.saveAll(markets);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest listMarkets = HttpRequest.newBuilder(uri("/api/markets?size=20"))
+                .header("Cookie", login(client))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        // Virtual client threads where the JDK has them, so 1,000 clients do
+        // not crowd the server's carrier threads out of the CPU
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS,
+                WorkerThreads.factory("bench-client-", WorkerThreads.isVirtualSupported()));
+        List<Future<ClientResult>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> runClient(client, listMarkets, measuring, stopped)));
+        }
+
+        Thread.sleep(warmUp.toMillis());
+        measuring.set(true);
+        Thread.sleep(measurement.toMillis());
+        measuring.set(false);
+        stopped.set(true);
+
+        List<Long> latencies = new ArrayList<>();
+        long errors = 0;
+        for (Future<ClientResult> result : results) {
+            ClientResult clientResult = result.get(1, TimeUnit.MINUTES);
+            latencies.addAll(clientResult.latencies);
+            errors += clientResult.errors;
+        }
+        clients.shutdown();
+        Collections.sort(latencies);
+
+        String mode = virtualThreads && WorkerThreads.isVirtualSupported() ? "virtual threads" : "platform threads";
+        System.out.printf("%n%s, %d clients, %d ms per statement: %.0f req/s, p50 %.1f ms, p99 %.1f ms, %d errors%n",
+                mode, CLIENTS, dbLatencyMs, latencies.size() / (double) measurement.toSeconds(),
+                percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99), errors);
+        assertFalse(latencies.isEmpty());
+    }
+
+    private ClientResult runClient(HttpClient client, HttpRequest request,
+                                   AtomicBoolean measuring, AtomicBoolean stopped) {
+        ClientResult result = new ClientResult();
+        while (!stopped.get()) {
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (measuring.get()) {
+                if (ok) {
+                    result.latencies.add(System.nanoTime() - start);
+                } else {
+                    result.errors++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private String login(HttpClient client) throws Exception {
+        String credentials = "{\"name\":\"Bench\",\"email\":\"bench@example.com\",\"password\":\"password123\"}";
+        client.send(post("/api/auth/register", credentials), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = client.send(post("/api/auth/login", credentials),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, response.statusCode());
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(cookie -> cookie.split(";", 2)[0])
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private double percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(sorted.size() * percentile))) / 1_000_000.0;
+    }
+
+    private static class ClientResult {
+        private final List<Long> latencies = new ArrayList<>();
+        private long errors;
+    }
+
+    @TestConfiguration
+    static class SlowDatabaseConfig {
+
+        // Delay every statement execution while the pooled connection is held
+        @Bean
+        static BeanPostProcessor slowDataSource(@Value("${benchmark.db-latency-ms:5}") long latencyMs) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource) || latencyMs <= 0) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return slow(super.getConnection(), Connection.class, latencyMs);
+                        }
+                    };
+                }
+            };
+        }
+
+        private static <T> T slow(T target, Class<T> type, long latencyMs) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(latencyMs);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                // Statements created from a slow connection are slow too
+                if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                    @SuppressWarnings("unchecked")
+                    Class<Statement> statementType = (Class<Statement>) method.getReturnType();
+                    return slow(statement, statementType, latencyMs);
+                }
+                return result;
+            });
+            return type.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.kny.controller;
+
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.WorkerThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET /api/markets/{id} against GET /api/markets/reactive/{id} with 1,000
+ * concurrent clients, the same load as {@link MarketThroughputBenchmark}.
+ * Not part of the normal build because of its run time:
+ * {@code mvn test -Dtest=ReactiveMarketBenchmark}.
+ *
+ * Google Places and Open-Meteo are replaced by a local stub that answers
+ * after benchmark.upstream-latency-ms (default 200) without holding a
+ * thread, and the photo cache keeps nothing, so every request makes the
+ * upstream call the endpoints exist to overlap. A response counts as complete
+ * when it carries photos; the others hit the photo timeout or a full pool
+ * and were served without them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.autoconfigure.exclude=",
+                "app.google.places.photo-cache.ttl=0s",
+                "app.google.places.photo-cache.negative-ttl=0s",
+                "app.weather.prefetch.enabled=false"})
+@Import(ReactiveMarketBenchmark.StubUpstreamConfig.class)
+@DisplayName("Reactive market detail benchmark")
+class ReactiveMarketBenchmark {
+
+    private static final int CLIENTS = 1_000;
+    private static final int MARKETS = 200;
+
+    private static final SlowUpstream UPSTREAM = new SlowUpstream(
+            Long.getLong("benchmark.upstream-latency-ms", 200));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Value("${benchmark.warm-up:PT10S}")
+    private Duration warmUp;
+
+    @Value("${benchmark.measurement:PT15S}")
+    private Duration measurement;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.openmeteo.api.url", () -> UPSTREAM.uri() + "/v1/forecast");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.stop();
+    }
+
+    @Test
+    @DisplayName("GET /api/markets/{id} and /api/markets/reactive/{id} under 1,000 concurrent clients")
+    void benchmarkMarketDetail() throws Exception {
+        List<Market> markets = new ArrayList<>();
+        for (int i = 0; i < MARKETS; i++) {
+            Market market = new Market("Market " + i, i + " Jalan Pasar",
+                    new BigDecimal("5.4164"), new BigDecimal("100.3327"));
+            market.setGooglePlaceId("place-" + i);
+            markets.add(market);
+        }
+        List<Long> ids = marketRepository.saveAll(markets).stream().map(Market::getId).toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String cookie = login(client);
+
+        for (String path : List.of("/api/markets/", "/api/markets/reactive/")) {
+            int upstreamBefore = UPSTREAM.requests();
+            Result result = measure(client, cookie, path, ids);
+            System.out.printf("%nGET %s{id}, %d clients, %d ms upstream: %.0f req/s, p50 %.1f ms, p99 %.1f ms, "
+                            + "%.1f%% with photos, %d errors, %d upstream calls%n",
+                    path, CLIENTS, UPSTREAM.latencyMs, result.latencies.size() / (double) measurement.toSeconds(),
+                    percentileMillis(result.latencies, 0.50), percentileMillis(result.latencies, 0.99),
+                    100.0 * result.complete / Math.max(1, result.latencies.size()), result.errors,
+                    UPSTREAM.requests() - upstreamBefore);
+            assertFalse(result.latencies.isEmpty());
+        }
+    }
+
+    private Result measure(HttpClient client, String cookie, String path, List<Long> ids) throws Exception {
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS,
+                WorkerThreads.factory("bench-client-", WorkerThreads.isVirtualSupported()));
+        List<Future<Result>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> runClient(client, cookie, path, ids, next, measuring, stopped)));
+        }
+
+        Thread.sleep(warmUp.toMillis());
+        measuring.set(true);
+        Thread.sleep(measurement.toMillis());
+        measuring.set(false);
+        stopped.set(true);
+
+        Result total = new Result();
+        for (Future<Result> result : results) {
+            Result clientResult = result.get(1, TimeUnit.MINUTES);
+            total.latencies.addAll(clientResult.latencies);
+            total.complete += clientResult.complete;
+            total.errors += clientResult.errors;
+        }
+        clients.shutdown();
+        Collections.sort(total.latencies);
+        return total;
+    }
+
+    private Result runClient(HttpClient client, String cookie, String path, List<Long> ids, AtomicInteger next,
+                             AtomicBoolean measuring, AtomicBoolean stopped) {
+        Result result = new Result();
+        while (!stopped.get()) {
+            java.net.http.HttpRequest request = java.net.http.HttpRequest
+                    .newBuilder(uri(path + ids.get(Math.floorMod(next.getAndIncrement(), ids.size()))))
+                    .header("Cookie", cookie)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (Exception e) {
+                response = null;
+            }
+            if (measuring.get()) {
+                if (response != null && response.statusCode() == 200) {
+                    result.latencies.add(System.nanoTime() - start);
+                    if (response.body().contains("photoUrl")) {
+                        result.complete++;
+                    }
+                } else {
+                    result.errors++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private String login(HttpClient client) throws Exception {
+        String credentials = "{\"name\":\"Bench\",\"email\":\"bench@example.com\",\"password\":\"password123\"}";
+        client.send(post("/api/auth/register", credentials), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = client.send(post("/api/auth/login", credentials),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, response.statusCode());
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(cookie -> cookie.split(";", 2)[0])
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow();
+    }
+
+    private java.net.http.HttpRequest post(String path, String json) {
+        return java.net.http.HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(java.net.http.HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private double percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(sorted.size() * percentile))) / 1_000_000.0;
+    }
+
+    private static class Result {
+        private final List<Long> latencies = new ArrayList<>();
+        private long complete;
+        private long errors;
+    }
+
+    // Answers Places details and Open-Meteo forecasts after a fixed delay, from a timer rather than a parked thread
+    private static class SlowUpstream {
+
+        private static final String PLACE_DETAILS = "{\"status\":\"OK\",\"result\":{\"photos\":["
+                + "{\"photo_reference\":\"ref-1\"},{\"photo_reference\":\"ref-2\"},{\"photo_reference\":\"ref-3\"}]}}";
+
+        private static final String FORECAST = "{\"current\":{\"temperature_2m\":29.5,\"relative_humidity_2m\":78,"
+                + "\"weather_code\":2,\"time\":\"2025-07-03T10:00\"},\"daily\":{\"time\":[\"2025-07-03\"],"
+                + "\"temperature_2m_max\":[32.0],\"temperature_2m_min\":[25.0],\"weather_code\":[2],"
+                + "\"precipitation_probability_max\":[20]}}";
+
+        private final long latencyMs;
+        private final HttpServer server;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+                WorkerThreads.factory("bench-upstream-", false));
+        private final AtomicInteger requests = new AtomicInteger();
+
+        SlowUpstream(long latencyMs) {
+            this.latencyMs = latencyMs;
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            server.createContext("/", exchange -> {
+                requests.incrementAndGet();
+                String body = exchange.getRequestURI().getPath().contains("forecast") ? FORECAST : PLACE_DETAILS;
+                timer.schedule(() -> respond(exchange, body), latencyMs, TimeUnit.MILLISECONDS);
+            });
+            server.setExecutor(Executors.newFixedThreadPool(4, WorkerThreads.factory("bench-upstream-io-", false)));
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        int requests() {
+            return requests.get();
+        }
+
+        void stop() {
+            server.stop(0);
+            timer.shutdownNow();
+        }
+
+        private static void respond(HttpExchange exchange, String body) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = exchange.getResponseBody()) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                out.write(bytes);
+            } catch (IOException e) {
+                // The caller gave up waiting
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StubUpstreamConfig {
+
+        // Send the Places clients to the stub; the Google URLs are fixed in GooglePlacesService
+        @Bean
+        static BeanPostProcessor stubGooglePlaces() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if ("googlePlacesRestTemplate".equals(beanName) && bean instanceof RestTemplate restTemplate) {
+                        restTemplate.getInterceptors().add((request, body, execution) ->
+                                execution.execute(new HttpRequestWrapper(request) {
+                                    @Override
+                                    public URI getURI() {
+                                        return toStub(request.getURI());
+                                    }
+                                }, body));
+                    }
+                    if ("googlePlacesWebClient".equals(beanName) && bean instanceof WebClient webClient) {
+                        return webClient.mutate()
+                                .filter((request, next) -> next.exchange(
+                                        ClientRequest.from(request).url(toStub(request.url())).build()))
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static URI toStub(URI uri) {
+            URI stub = URI.create(UPSTREAM.uri());
+            return UriComponentsBuilder.fromUri(uri)
+                    .scheme(stub.getScheme()).host(stub.getHost()).port(stub.getPort())
+                    .build(true).toUri();
+        }
+    }
+}
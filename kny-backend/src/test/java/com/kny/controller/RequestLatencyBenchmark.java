@@ -0,0 +1,166 @@
+package com.kny.controller;
+
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-request latency of GET /api/auth/user and GET /api/markets under the
+ * logging setup of the active profile. Not part of the normal build; run it
+ * once per profile and compare the printed percentiles:
+ * {@code mvn test -Dtest=RequestLatencyBenchmark -Dspring.profiles.active=dev}
+ * and the same with {@code prod}.
+ *
+ * A small fixed set of clients keeps the server below saturation, so the
+ * numbers show the time each request spends logging rather than queueing.
+ * Client count, warm-up and measurement are benchmark.clients,
+ * benchmark.warm-up and benchmark.measurement.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.autoconfigure.exclude=")
+@DisplayName("Request latency benchmark")
+class RequestLatencyBenchmark {
+
+    private static final int MARKETS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${benchmark.clients:8}")
+    private int clients;
+
+    @Value("${benchmark.warm-up:PT10S}")
+    private Duration warmUp;
+
+    @Value("${benchmark.measurement:PT15S}")
+    private Duration measurement;
+
+    @Test
+    @DisplayName("GET /api/auth/user and GET /api/markets latency")
+    void benchmarkLatency() throws Exception {
+        List<Market> markets = new ArrayList<>();
+        for (int i = 0; i < MARKETS; i++) {
+            markets.add(new Market("Market " + i, i + " Jalan Pasar",
+                    new BigDecimal("5.4164"), new BigDecimal("100.3327")));
+        }
+        marketRepository.saveAll(markets);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String cookie = login(client);
+
+        String profiles = Arrays.toString(environment.getActiveProfiles());
+        for (String path : List.of("/api/auth/user", "/api/markets?size=20")) {
+            HttpRequest request = HttpRequest.newBuilder(uri(path))
+                    .header("Cookie", cookie)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            List<Long> latencies = measure(client, request);
+            System.out.printf("%nprofiles %s, %d clients, GET %s: %.0f req/s, p50 %.2f ms, p99 %.2f ms%n",
+                    profiles, clients, path, latencies.size() / (double) measurement.toSeconds(),
+                    percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99));
+            assertFalse(latencies.isEmpty());
+        }
+    }
+
+    private List<Long> measure(HttpClient client, HttpRequest request) throws Exception {
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            results.add(pool.submit(() -> runClient(client, request, measuring, stopped)));
+        }
+
+        Thread.sleep(warmUp.toMillis());
+        measuring.set(true);
+        Thread.sleep(measurement.toMillis());
+        measuring.set(false);
+        stopped.set(true);
+
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            latencies.addAll(result.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+        Collections.sort(latencies);
+        return latencies;
+    }
+
+    private List<Long> runClient(HttpClient client, HttpRequest request,
+                                 AtomicBoolean measuring, AtomicBoolean stopped) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        while (!stopped.get()) {
+            long start = System.nanoTime();
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (measuring.get()) {
+                assertEquals(200, status);
+                latencies.add(System.nanoTime() - start);
+            }
+        }
+        return latencies;
+    }
+
+    private String login(HttpClient client) throws Exception {
+        String credentials = "{\"name\":\"Bench\",\"email\":\"bench@example.com\",\"password\":\"password123\"}";
+        client.send(post("/api/auth/register", credentials), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = client.send(post("/api/auth/login", credentials),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, response.statusCode());
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(cookie -> cookie.split(";", 2)[0])
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private double percentileMillis(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(sorted.size() * percentile))) / 1_000_000.0;
+    }
+}
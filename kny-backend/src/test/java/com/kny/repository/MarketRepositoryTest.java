@@ -0,0 +1,169 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+import com.kny.model.MarketSyncState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("MarketRepository Paged Query Tests")
+class MarketRepositoryTest {
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @BeforeEach
+    void setUp() {
+        marketRepository.deleteAll();
+        marketRepository.save(market("Chowrasta Market", Market.CrowdLevel.HIGH, true));
+        marketRepository.save(market("Batu Ferringhi Night Market", Market.CrowdLevel.LOW, false));
+        marketRepository.save(market("Air Itam Market", Market.CrowdLevel.MEDIUM, true));
+        marketRepository.save(market("Campbell Street Market", null, false));
+    }
+
+    @Test
+    @DisplayName("Should walk every market by name with keyset cursors")
+    void testFindPage_ByName() {
+        // When
+        List<Map<String, Object>> first = marketRepository.findPage(MarketFilter.all(), MarketSort.NAME,
+                CrowdPeriod.EVENING, null, Set.of("name"), 2);
+        Map<String, Object> last = first.get(1);
+        MarketCursor cursor = new MarketCursor(MarketSort.NAME, null, (String) last.get("name"), (Long) last.get("id"));
+        List<Map<String, Object>> second = marketRepository.findPage(MarketFilter.all(), MarketSort.NAME,
+                CrowdPeriod.EVENING, cursor, Set.of("name"), 2);
+
+        // Then
+        assertEquals(List.of("Air Itam Market", "Batu Ferringhi Night Market"), names(first));
+        assertEquals(List.of("Campbell Street Market", "Chowrasta Market"), names(second));
+    }
+
+    @Test
+    @DisplayName("Should read only the requested columns")
+    void testFindPage_Projection() {
+        // When
+        List<Map<String, Object>> rows = marketRepository.findPage(MarketFilter.all(), MarketSort.NAME,
+                CrowdPeriod.EVENING, null, Set.of("latitude"), 10);
+
+        // Then - the ID and sort column are always included
+        assertEquals(Set.of("id", "latitude", "name"), rows.get(0).keySet());
+    }
+
+    @Test
+    @DisplayName("Should order by crowd level and apply filters")
+    void testFindPage_ByCrowdLevel() {
+        // When
+        List<Map<String, Object>> all = marketRepository.findPage(MarketFilter.all(), MarketSort.CROWD_LEVEL,
+                CrowdPeriod.EVENING, null, Set.of("name"), 10);
+        List<Map<String, Object>> covered = marketRepository.findPage(MarketFilter.covered(), MarketSort.CROWD_LEVEL,
+                CrowdPeriod.EVENING, null, Set.of("name"), 10);
+
+        // Then - a missing evening level counts as the evening default (low)
+        assertEquals("Chowrasta Market", names(all).get(3));
+        assertEquals(List.of("Air Itam Market", "Chowrasta Market"), names(covered));
+    }
+
+    @Test
+    @DisplayName("Should treat LIKE wildcards in search terms literally")
+    void testFindPage_EscapesWildcards() {
+        // When
+        List<Map<String, Object>> rows = marketRepository.findPage(MarketFilter.nameContains("%"), MarketSort.NAME,
+                CrowdPeriod.EVENING, null, Set.of("name"), 10);
+
+        // Then
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should page stale markets by last sync and skip markets backing off")
+    void testFindStaleChunk() {
+        // Given - whole seconds so the keyset values survive the round trip through the timestamp column
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Market> markets = marketRepository.findAllByOrderByNameAsc();
+        for (int i = 0; i < markets.size(); i++) {
+            markets.get(i).setGooglePlaceId("place-" + i);
+            markets.get(i).setLastGoogleSync(now.minusDays(40 + i));
+        }
+        marketRepository.saveAll(markets);
+        MarketSyncState failing = new MarketSyncState(markets.get(3).getId());
+        failing.setStatus(MarketSyncState.Status.FAILED);
+        failing.setLastAttemptAt(now);
+        failing.setNextAttemptAt(now.plusHours(1));
+        marketSyncStateRepository.save(failing);
+        LocalDateTime cutoff = now.minusDays(30);
+
+        // When
+        List<Market> first = marketRepository.findStaleChunk(cutoff, LocalDateTime.of(1970, 1, 1, 0, 0), 0L, now,
+                PageRequest.of(0, 2));
+        Market last = first.get(1);
+        List<Market> second = marketRepository.findStaleChunk(cutoff, last.getLastGoogleSync(), last.getId(), now,
+                PageRequest.of(0, 2));
+
+        // Then - oldest sync first, and the backed-off market (oldest of all) is left out
+        assertEquals(List.of("Campbell Street Market", "Batu Ferringhi Night Market"),
+                first.stream().map(Market::getName).toList());
+        assertEquals(List.of("Air Itam Market"), second.stream().map(Market::getName).toList());
+        assertEquals(4, marketRepository.countMarketsNeedingGoogleSync(cutoff));
+        assertEquals(markets.get(3).getLastGoogleSync().withNano(0),
+                marketRepository.findOldestGoogleSync().withNano(0));
+    }
+
+    @Test
+    @DisplayName("Should page never-synced markets by ID")
+    void testFindNeverSyncedChunk() {
+        // Given - only markets with a place ID are synced
+        List<Market> markets = marketRepository.findAllByOrderByNameAsc();
+        markets.get(0).setGooglePlaceId("place-0");
+        markets.get(1).setGooglePlaceId("place-1");
+        marketRepository.saveAll(markets);
+
+        // When
+        List<Market> chunk = marketRepository.findNeverSyncedChunk(0L, LocalDateTime.now(), PageRequest.of(0, 10));
+        List<Market> after = marketRepository.findNeverSyncedChunk(chunk.get(0).getId(), LocalDateTime.now(),
+                PageRequest.of(0, 10));
+
+        // Then
+        assertEquals(2, chunk.size());
+        assertEquals(1, after.size());
+        assertTrue(chunk.get(0).getId() < chunk.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Should list each market location once")
+    void testFindDistinctCoordinates() {
+        // Given - every fixture market sits at the same point; add one elsewhere
+        marketRepository.save(new Market("Central Market", "Kuala Lumpur", new BigDecimal("3.1390"), new BigDecimal("101.6869")));
+
+        // When
+        List<Object[]> coordinates = marketRepository.findDistinctCoordinates();
+
+        // Then
+        assertEquals(2, coordinates.size());
+    }
+
+    private Market market(String name, Market.CrowdLevel eveningLevel, boolean covered) {
+        Market market = new Market(name, name + " address", new BigDecimal("5.4164"), new BigDecimal("100.3327"));
+        market.setCrowdLevelEvening(eveningLevel);
+        market.setIsCovered(covered);
+        return market;
+    }
+
+    private List<Object> names(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> row.get("name")).toList();
+    }
+}
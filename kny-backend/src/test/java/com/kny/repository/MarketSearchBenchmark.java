@@ -0,0 +1,128 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+import com.kny.service.MarketSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search latency against table size: the LIKE '%term%' query versus the
+ * in-memory index (index lookup plus loading the page by ID). Not part of the
+ * normal build because of its run time; run it with
+ * {@code mvn test -Dtest=MarketSearchBenchmark}.
+ *
+ * Numbers are from H2 in memory, so they understate the LIKE cost on MySQL
+ * where TEXT columns are read from disk, but the growth with table size is
+ * the same.
+ */
+@DataJpaTest(showSql = false)
+@Import(MarketSearchIndex.class)
+@DisplayName("Market search benchmark")
+class MarketSearchBenchmark {
+
+    private static final int[] TABLE_SIZES = {1_000, 5_000, 20_000};
+    private static final int ITERATIONS = 30;
+    private static final int PAGE_SIZE = 20;
+
+    private static final List<String> WORDS = Arrays.asList(
+            "nasi", "kandar", "laksa", "char", "kway", "teow", "durian", "nutmeg", "batik", "seafood",
+            "vegetables", "kuih", "satay", "rojak", "cendol", "souvenirs", "antiques", "spices", "tea", "coffee");
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private MarketSearchIndex marketSearchIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("LIKE scan versus inverted index")
+    void benchmarkSearch() {
+        Random random = new Random(7);
+        Set<String> attributes = Set.of("name", "address", "latitude", "longitude");
+        StringBuilder report = new StringBuilder(String.format("%n%10s %14s %14s%n", "markets", "like (ms)", "index (ms)"));
+
+        int inserted = 0;
+        for (int size : TABLE_SIZES) {
+            List<Market> batch = new ArrayList<>();
+            for (; inserted < size; inserted++) {
+                batch.add(market(inserted, random));
+            }
+            marketRepository.saveAll(batch);
+            entityManager.flush();
+            entityManager.clear();
+            marketSearchIndex.rebuild();
+
+            double likeMs = medianMillis(() -> marketRepository.findPage(
+                    MarketFilter.nameAndSpecialty("laksa", "spices"), MarketSort.NAME,
+                    CrowdPeriod.MORNING, null, attributes, PAGE_SIZE + 1));
+
+            double indexMs = medianMillis(() -> {
+                List<Long> ids = marketSearchIndex.search(null, "laksa", "spices").stream()
+                        .limit(PAGE_SIZE)
+                        .map(MarketSearchIndex.Hit::getMarketId)
+                        .collect(Collectors.toList());
+                return ids.isEmpty() ? List.of() : marketRepository.findPage(MarketFilter.ids(ids), MarketSort.NAME,
+                        CrowdPeriod.MORNING, null, attributes, PAGE_SIZE);
+            });
+
+            report.append(String.format("%10d %14.3f %14.3f%n", size, likeMs, indexMs));
+        }
+
+        System.out.println(report);
+        assertTrue(marketSearchIndex.isAvailable());
+    }
+
+    private double medianMillis(Supplier<List<?>> query) {
+        // Warm up the query plan and JIT before measuring
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            samples[i] = System.nanoTime() - start;
+            entityManager.clear();
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    private Market market(int n, Random random) {
+        Market market = new Market(words(random, 2) + " market " + n, n + " Jalan " + words(random, 1),
+                new BigDecimal("5.4164"), new BigDecimal("100.3327"));
+        market.setSpecialties(words(random, 3).replace(" ", ", "));
+        market.setHighlights(words(random, 5));
+        market.setDescription(words(random, 40));
+        return market;
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS.get(random.nextInt(WORDS.size())));
+        }
+        return text.toString();
+    }
+}
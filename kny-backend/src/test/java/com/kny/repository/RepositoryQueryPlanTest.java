@@ -0,0 +1,293 @@
+package com.kny.repository;
+
+import com.kny.model.Market;
+import com.kny.model.MarketSyncState;
+import com.kny.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every MarketRepository and UserRepository query against a seeded database built by the
+ * Flyway migrations, and checks H2's plan for each SELECT it issued with the values it was run
+ * with. A plan that scans a whole table fails the test unless the case is in EXPECTED_SCANS.
+ * A repository method without a case here fails the test too.
+ */
+@DataJpaTest
+@DisplayName("Repository Query Plan Tests")
+class RepositoryQueryPlanTest {
+
+    // Cases that read every row by nature, and why that is acceptable
+    private static final Map<String, String> EXPECTED_SCANS = Map.of(
+            "findByNameContainingIgnoreCase markets", "Substring match; /api/markets/search uses MarketSearchIndex",
+            "findBySpecialtiesContaining", "Substring match; /api/markets/search uses MarketSearchIndex",
+            "findPage by crowd level", "Sorted on the crowd rank expression, which no column index holds",
+            "findByNameContainingIgnoreCase users", "Substring match for the admin user search");
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 7, 1, 12, 0);
+
+    private static final List<CapturedStatement> statements = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class CaptureStatementsConfig {
+
+        // Record every statement the repositories execute, with its parameter values
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return capturing(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection capturing(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (p, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                            return capturing(statement, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = new HashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (p, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                            parameters.put(index, name.equals("setNull") ? null : args[1]);
+                        } else if (name.startsWith("execute")) {
+                            statements.add(new CapturedStatement(sql, new HashMap<>(parameters)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    @Autowired
+    private MarketRepository marketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        List<Market> markets = new ArrayList<>();
+        Market.CrowdLevel[] levels = Market.CrowdLevel.values();
+        for (int i = 0; i < 500; i++) {
+            Market market = new Market("Market " + i, "Address " + i,
+                    new BigDecimal("5.30").add(new BigDecimal(i).movePointLeft(3)),
+                    new BigDecimal("100.20").add(new BigDecimal(i).movePointLeft(3)));
+            market.setGooglePlaceId("place-" + i);
+            market.setIsCovered(i % 10 == 0);
+            market.setCrowdLevelMorning(levels[i % 3]);
+            market.setCrowdLevelAfternoon(levels[(i + 1) % 3]);
+            market.setCrowdLevelEvening(levels[(i + 2) % 3]);
+            market.setLastGoogleSync(i % 5 == 0 ? null : NOW.minusDays(i % 60));
+            markets.add(market);
+        }
+        marketRepository.saveAll(markets);
+
+        List<MarketSyncState> states = new ArrayList<>();
+        for (int i = 0; i < markets.size(); i += 20) {
+            MarketSyncState state = new MarketSyncState(markets.get(i).getId());
+            state.setStatus(MarketSyncState.Status.FAILED);
+            state.setLastAttemptAt(NOW);
+            state.setNextAttemptAt(NOW.plusHours(1));
+            states.add(state);
+        }
+        marketSyncStateRepository.saveAll(states);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            User user = new User("User " + i, "user" + i + "@example.com");
+            user.setIsActive(i % 50 != 0);
+            if (i % 2 == 0) {
+                user.setOauthProvider(i % 4 == 0 ? "google" : "facebook");
+                user.setOauthId("oauth-" + i);
+            }
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Keyed by method name, then a description where one method has several cases
+        LocalDateTime cutoff = NOW.minusDays(30);
+        queries.put("findByGooglePlaceId", () -> marketRepository.findByGooglePlaceId("place-42"));
+        queries.put("findByNameContainingIgnoreCase markets", () -> marketRepository.findByNameContainingIgnoreCase("ket 4"));
+        queries.put("findByDataSource", () -> marketRepository.findByDataSource(Market.DataSource.GOOGLE));
+        queries.put("findByIsCoveredTrue", () -> marketRepository.findByIsCoveredTrue());
+        queries.put("findByCrowdLevelMorning", () -> marketRepository.findByCrowdLevelMorning(Market.CrowdLevel.HIGH));
+        queries.put("findByCrowdLevelAfternoon", () -> marketRepository.findByCrowdLevelAfternoon(Market.CrowdLevel.HIGH));
+        queries.put("findByCrowdLevelEvening", () -> marketRepository.findByCrowdLevelEvening(Market.CrowdLevel.HIGH));
+        queries.put("findWithinBoundingBox", () -> marketRepository.findWithinBoundingBox(
+                new BigDecimal("5.40"), new BigDecimal("5.45"), new BigDecimal("100.30"), new BigDecimal("100.35")));
+        queries.put("findBySpecialtiesContaining", () -> marketRepository.findBySpecialtiesContaining("durian"));
+        queries.put("findAllByOrderByNameAsc", () -> marketRepository.findAllByOrderByNameAsc());
+        queries.put("findMarketsNeedingGoogleSync", () -> marketRepository.findMarketsNeedingGoogleSync(cutoff));
+        queries.put("findByLastGoogleSyncIsNull", () -> marketRepository.findByLastGoogleSyncIsNull());
+        queries.put("findByLastGoogleSyncBefore", () -> marketRepository.findByLastGoogleSyncBefore(cutoff));
+        queries.put("findNeverSyncedChunk", () -> marketRepository.findNeverSyncedChunk(0L, NOW, PageRequest.of(0, 100)));
+        queries.put("findStaleChunk", () -> marketRepository.findStaleChunk(cutoff, LocalDateTime.of(1970, 1, 1, 0, 0),
+                0L, NOW, PageRequest.of(0, 100)));
+        queries.put("countMarketsNeedingGoogleSync", () -> marketRepository.countMarketsNeedingGoogleSync(cutoff));
+        queries.put("countNeverSyncedWithPlaceId", () -> marketRepository.countNeverSyncedWithPlaceId());
+        queries.put("countSyncedBeforeWithPlaceId", () -> marketRepository.countSyncedBeforeWithPlaceId(cutoff));
+        queries.put("findOldestGoogleSync", () -> marketRepository.findOldestGoogleSync());
+        queries.put("findSyncTimesOldestFirst", () -> marketRepository.findSyncTimesOldestFirst(PageRequest.of(0, 1)));
+        queries.put("findDistinctCoordinates", () -> marketRepository.findDistinctCoordinates());
+        queries.put("countMarketsByDataSource", () -> marketRepository.countMarketsByDataSource());
+        queries.put("findPage by name", () -> marketRepository.findPage(MarketFilter.all(), MarketSort.NAME,
+                CrowdPeriod.EVENING, new MarketCursor(MarketSort.NAME, null, "Market 1", 1L), Set.of("name"), 50));
+        queries.put("findPage by crowd level", () -> marketRepository.findPage(MarketFilter.all(), MarketSort.CROWD_LEVEL,
+                CrowdPeriod.EVENING, null, Set.of("name"), 50));
+        queries.put("findPage covered", () -> marketRepository.findPage(MarketFilter.covered(), MarketSort.NAME,
+                CrowdPeriod.EVENING, null, Set.of("name"), 50));
+        queries.put("findPage crowd level filter", () -> marketRepository.findPage(
+                MarketFilter.crowdLevel(CrowdPeriod.MORNING, Market.CrowdLevel.LOW), MarketSort.NAME,
+                CrowdPeriod.EVENING, null, Set.of("name"), 50));
+        queries.put("findPage ids", () -> marketRepository.findPage(MarketFilter.ids(List.of(1L, 2L, 3L)),
+                MarketSort.NAME, CrowdPeriod.EVENING, null, Set.of("name"), 50));
+        queries.put("findPage name contains", () -> marketRepository.findPage(MarketFilter.nameContains("ket 4"),
+                MarketSort.NAME, CrowdPeriod.EVENING, null, Set.of("name"), 50));
+
+        queries.put("findByEmail", () -> userRepository.findByEmail("user42@example.com"));
+        queries.put("findByOauthProviderAndOauthId", () -> userRepository.findByOauthProviderAndOauthId("google", "oauth-40"));
+        queries.put("existsByEmail", () -> userRepository.existsByEmail("user42@example.com"));
+        queries.put("findByIsActiveTrue", () -> userRepository.findByIsActiveTrue());
+        queries.put("findByOauthProvider", () -> userRepository.findByOauthProvider("facebook"));
+        queries.put("findByNameContainingIgnoreCase users", () -> userRepository.findByNameContainingIgnoreCase("ser 4"));
+        queries.put("findActiveUserByEmail", () -> userRepository.findActiveUserByEmail("user42@example.com"));
+        queries.put("countActiveUsers", () -> userRepository.countActiveUsers());
+    }
+
+    @Test
+    @DisplayName("Should have a plan check for every repository query method")
+    void testEveryQueryMethodCovered() {
+        // Given
+        Set<String> covered = new HashSet<>();
+        queries.keySet().forEach(label -> covered.add(label.split(" ")[0]));
+
+        // Then
+        for (Class<?> repository : List.of(MarketRepository.class, MarketQueryRepository.class, UserRepository.class)) {
+            for (Method method : repository.getDeclaredMethods()) {
+                assertTrue(covered.contains(method.getName()),
+                        repository.getSimpleName() + "." + method.getName() + " has no case in RepositoryQueryPlanTest");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should not scan a whole table except where listed")
+    void testNoUnexpectedTableScans() {
+        // Given
+        List<String> unexpected = new ArrayList<>();
+        List<String> scanning = new ArrayList<>();
+
+        // When
+        queries.forEach((label, query) -> {
+            statements.clear();
+            query.run();
+            entityManager.clear();
+            List<CapturedStatement> executed = List.copyOf(statements);
+            assertFalse(executed.isEmpty(), label + " ran no statement");
+            for (CapturedStatement statement : executed) {
+                String plan = explain(statement);
+                if (plan.contains(".tableScan")) {
+                    scanning.add(label);
+                    if (!EXPECTED_SCANS.containsKey(label)) {
+                        unexpected.add(label + ":\n" + plan);
+                    }
+                }
+            }
+        });
+
+        // Then - an expected scan that now uses an index should come off the list
+        assertTrue(unexpected.isEmpty(), "Full table scans:\n" + String.join("\n\n", unexpected));
+        assertEquals(EXPECTED_SCANS.keySet(), Set.copyOf(scanning));
+    }
+
+    // H2's plan for a statement, prepared with the values it ran with
+    private String explain(CapturedStatement captured) {
+        StringBuilder plan = new StringBuilder();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + captured.sql())) {
+                captured.parameters().forEach((index, value) -> {
+                    try {
+                        statement.setObject(index, value);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                }
+            }
+        });
+        return plan.toString();
+    }
+}
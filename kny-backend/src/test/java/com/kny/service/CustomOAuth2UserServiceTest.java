@@ -0,0 +1,123 @@
+package com.kny.service;
+
+import com.kny.model.User;
+import com.kny.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CustomOAuth2UserService Unit Tests")
+class CustomOAuth2UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CustomOAuth2UserService customOAuth2UserService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    private User googleUser() {
+        User user = new User();
+        user.setEmail("john@example.com");
+        user.setName("John Doe");
+        user.setOauthProvider("google");
+        user.setOauthId("google-123");
+        user.setProvider("google");
+        user.setProviderId("google-123");
+        user.setIsActive(true);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Should not write a returning user whose OAuth info is unchanged")
+    void testUpsert_UnchangedUser_NoSave() {
+        // Given
+        User existing = googleUser();
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(existing));
+
+        // When
+        User result = customOAuth2UserService.upsertUser("john@example.com", "John Doe", "google", "google-123");
+
+        // Then
+        assertSame(existing, result);
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should update a user who signs in with a different provider")
+    void testUpsert_ChangedProvider_Saves() {
+        // Given
+        User existing = googleUser();
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenReturn(existing);
+
+        // When
+        User result = customOAuth2UserService.upsertUser("john@example.com", "John Doe", "facebook", "fb-456");
+
+        // Then
+        assertEquals("facebook", result.getOauthProvider());
+        assertEquals("fb-456", result.getOauthId());
+        assertEquals("facebook", result.getProvider());
+        assertEquals("fb-456", result.getProviderId());
+        verify(userRepository).save(existing);
+    }
+
+    @Test
+    @DisplayName("Should create a user on first OAuth2 login")
+    void testUpsert_NewUser_Creates() {
+        // Given
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = customOAuth2UserService.upsertUser("john@example.com", "John Doe", "google", "google-123");
+
+        // Then
+        assertEquals("john@example.com", result.getEmail());
+        assertEquals("google-123", result.getOauthId());
+        assertTrue(result.getIsActive());
+        verify(userRepository).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should retry against the existing row when a concurrent first login wins the insert")
+    void testUpsert_ConcurrentInsert_RetriesAndFindsRow() {
+        // Given
+        User winner = googleUser();
+        when(userRepository.findByEmail("john@example.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'email'"));
+
+        // When
+        User result = customOAuth2UserService.upsertUser("john@example.com", "John Doe", "google", "google-123");
+
+        // Then
+        assertSame(winner, result);
+        verify(userRepository, times(2)).findByEmail("john@example.com");
+        verify(userRepository, times(1)).save(any(User.class));
+    }
+}
@@ -0,0 +1,96 @@
+package com.kny.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtService Unit Tests")
+class JwtServiceTest {
+
+    private static final String SECRET = "test-jwt-secret-for-testing-purposes-only";
+    private static final String NEW_SECRET = "rotated-jwt-secret-for-testing-purposes-only";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = jwtService(SECRET, List.of(), 900_000L);
+    }
+
+    @Test
+    @DisplayName("Should issue an access token that verifies to the user's email")
+    void testAccessToken_RoundTrip() {
+        // When
+        Claims claims = jwtService.verifyAccessToken(jwtService.createAccessToken("john@example.com"));
+
+        // Then
+        assertEquals("john@example.com", claims.getSubject());
+        assertEquals("kny-market-hub-test", claims.getIssuer());
+        assertTrue(claims.getAudience().contains("kny-users-test"));
+    }
+
+    @Test
+    @DisplayName("Should not accept a refresh token as an access token or the reverse")
+    void testTokenTypes_NotInterchangeable() {
+        // Given
+        String refreshToken = jwtService.createRefreshToken("john@example.com");
+        String accessToken = jwtService.createAccessToken("john@example.com");
+
+        // When / Then
+        assertThrows(JwtException.class, () -> jwtService.verifyAccessToken(refreshToken));
+        assertThrows(JwtException.class, () -> jwtService.verifyRefreshToken(accessToken));
+        assertEquals("john@example.com", jwtService.verifyRefreshToken(refreshToken).getSubject());
+    }
+
+    @Test
+    @DisplayName("Should keep accepting tokens signed with a previous key after rotation")
+    void testKeyRotation_AcceptsPreviousKey() {
+        // Given
+        String oldToken = jwtService.createAccessToken("john@example.com");
+
+        // When
+        JwtService rotated = jwtService(NEW_SECRET, List.of(SECRET), 900_000L);
+        JwtService retired = jwtService(NEW_SECRET, List.of(), 900_000L);
+
+        // Then
+        assertEquals("john@example.com", rotated.verifyAccessToken(oldToken).getSubject());
+        assertEquals("john@example.com", rotated.verifyAccessToken(rotated.createAccessToken("john@example.com")).getSubject());
+        assertThrows(JwtException.class, () -> retired.verifyAccessToken(oldToken));
+    }
+
+    @Test
+    @DisplayName("Should reject expired and tampered tokens")
+    void testVerify_RejectsExpiredAndTampered() {
+        // Given - already past expiry and the 30 second clock skew
+        JwtService shortLived = jwtService(SECRET, List.of(), -60_000L);
+        String expired = shortLived.createAccessToken("john@example.com");
+        String token = jwtService.createAccessToken("john@example.com");
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + jwtService.createAccessToken("eve@example.com").split("\\.")[1] + "." + parts[2];
+
+        // When / Then
+        assertThrows(JwtException.class, () -> jwtService.verifyAccessToken(expired));
+        assertThrows(JwtException.class, () -> jwtService.verifyAccessToken(tampered));
+    }
+
+    private JwtService jwtService(String secret, List<String> previousSecrets, long accessExpirationMs) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "previousSecrets", previousSecrets);
+        ReflectionTestUtils.setField(service, "accessExpirationMs", accessExpirationMs);
+        ReflectionTestUtils.setField(service, "refreshExpirationMs", 604_800_000L);
+        ReflectionTestUtils.setField(service, "issuer", "kny-market-hub-test");
+        ReflectionTestUtils.setField(service, "audience", "kny-users-test");
+        ReflectionTestUtils.setField(service, "clockSkew", Duration.ofSeconds(30));
+        service.init();
+        return service;
+    }
+}
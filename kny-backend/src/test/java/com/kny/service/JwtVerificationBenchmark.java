@@ -0,0 +1,62 @@
+package com.kny.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cost of verifying an access token, the work JwtAuthenticationFilter adds to
+ * every request in stateless mode, and of issuing one. Not part of the normal
+ * build; run it with {@code mvn test -Dtest=JwtVerificationBenchmark} and read
+ * the printed per-operation times. Iteration counts are benchmark.iterations
+ * (default 200,000) after a quarter as many warm-up rounds.
+ */
+@DisplayName("JWT verification benchmark")
+class JwtVerificationBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200_000);
+
+    @Test
+    @DisplayName("Sign and verify an access token")
+    void benchmarkVerify() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "rotated-jwt-secret-for-benchmark-purposes-only");
+        // One retired key, as during a rotation; lookup is by key ID either way
+        ReflectionTestUtils.setField(jwtService, "previousSecrets", List.of("test-jwt-secret-for-testing-purposes-only"));
+        ReflectionTestUtils.setField(jwtService, "accessExpirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationMs", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "issuer", "kny-market-hub");
+        ReflectionTestUtils.setField(jwtService, "audience", "kny-users");
+        ReflectionTestUtils.setField(jwtService, "clockSkew", Duration.ofSeconds(30));
+        jwtService.init();
+
+        String token = jwtService.createAccessToken("john@example.com");
+        int sink = 0;
+
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            sink += jwtService.createAccessToken("john@example.com").length();
+            sink += jwtService.verifyAccessToken(token).getSubject().length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += jwtService.createAccessToken("john@example.com").length();
+        }
+        long signNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += jwtService.verifyAccessToken(token).getSubject().length();
+        }
+        long verifyNanos = System.nanoTime() - start;
+
+        System.out.printf("%nHS256 access token (%d bytes), %d iterations: sign %.1f us/op, verify %.1f us/op%n",
+                token.length(), ITERATIONS, signNanos / 1000.0 / ITERATIONS, verifyNanos / 1000.0 / ITERATIONS);
+        assertTrue(sink > 0);
+    }
+}
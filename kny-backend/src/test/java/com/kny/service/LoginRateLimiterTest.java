@@ -0,0 +1,134 @@
+package com.kny.service;
+
+import com.kny.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LoginRateLimiter Unit Tests")
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "window", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(limiter, "perIp", 5);
+        ReflectionTestUtils.setField(limiter, "perEmail", 3);
+        ReflectionTestUtils.setField(limiter, "maxKeys", 1000L);
+        limiter.init();
+    }
+
+    @Test
+    @DisplayName("Should refuse one client trying many accounts")
+    void testPerIpLimit() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("203.0.113.7", "user" + i + "@example.com");
+        }
+
+        // When
+        LoginRateLimitedException e = assertThrows(LoginRateLimitedException.class,
+                () -> limiter.acquire("203.0.113.7", "someone@example.com"));
+
+        // Then
+        assertTrue(e.getRetryAfterSeconds() > 0 && e.getRetryAfterSeconds() <= 300);
+        assertDoesNotThrow(() -> limiter.acquire("198.51.100.2", "someone@example.com"));
+        assertEquals(1.0, meterRegistry.get("auth.login.rate.limited").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should refuse many clients guessing one account, whatever the email's case")
+    void testPerEmailLimit() {
+        // Given
+        limiter.acquire("203.0.113.1", "john@example.com");
+        limiter.acquire("203.0.113.2", "John@Example.com");
+        limiter.acquire("203.0.113.3", " john@example.com");
+
+        // When / Then
+        assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("203.0.113.4", "JOHN@example.com"));
+        assertDoesNotThrow(() -> limiter.acquire("203.0.113.4", "jane@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should not charge the address for attempts the account limit refused")
+    void testEmailLimit_DoesNotChargeIp() {
+        // Given - the account is locked by guesses from other addresses
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("198.51.100." + i, "john@example.com");
+        }
+
+        // When - one address keeps retrying the locked account
+        for (int i = 0; i < 10; i++) {
+            assertThrows(LoginRateLimitedException.class, () -> limiter.acquire("203.0.113.7", "john@example.com"));
+        }
+
+        // Then - its own allowance is untouched
+        for (int i = 0; i < 5; i++) {
+            String email = "user" + i + "@example.com";
+            assertDoesNotThrow(() -> limiter.acquire("203.0.113.7", email));
+        }
+        assertEquals(0.0, meterRegistry.get("auth.login.rate.limited").tag("key", "ip").counter().count());
+        assertEquals(10.0, meterRegistry.get("auth.login.rate.limited").tag("key", "email").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should let attempts back in as the window slides past them")
+    void testSlidingWindow() {
+        // Given - 10 buckets of 1 second
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10);
+        long start = System.nanoTime();
+        assertTrue(counter.tryIncrement(2, start));
+        assertTrue(counter.tryIncrement(2, start + Duration.ofSeconds(4).toNanos()));
+
+        // When
+        long later = start + Duration.ofSeconds(6).toNanos();
+        boolean refused = !counter.tryIncrement(2, later);
+        Duration retryAfter = counter.retryAfter(later);
+
+        // Then - the first attempt leaves the window after about 10 seconds
+        assertTrue(refused);
+        assertEquals(2, counter.count(later));
+        assertTrue(retryAfter.compareTo(Duration.ofSeconds(3)) > 0 && retryAfter.compareTo(Duration.ofSeconds(5)) <= 0);
+        assertTrue(counter.tryIncrement(2, start + Duration.ofSeconds(11).toNanos()));
+        assertEquals(2, counter.count(start + Duration.ofSeconds(11).toNanos()));
+    }
+
+    @Test
+    @DisplayName("Should never count past the limit under concurrent attempts")
+    void testConcurrentAttempts() {
+        // Given
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(5), 10);
+        AtomicInteger admitted = new AtomicInteger();
+
+        // When
+        CompletableFuture<?>[] clients = new CompletableFuture<?>[8];
+        for (int c = 0; c < clients.length; c++) {
+            clients[c] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (counter.tryIncrement(100, System.nanoTime())) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        CompletableFuture.allOf(clients).join();
+
+        // Then
+        assertEquals(100, admitted.get());
+        assertEquals(100, counter.count(System.nanoTime()));
+    }
+}
@@ -0,0 +1,183 @@
+package com.kny.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kny.dto.CachedMarketResponse;
+import com.kny.dto.MarketPhotoResponse;
+import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketWeatherResponse;
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketResponseCache Unit Tests")
+class MarketResponseCacheTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 6, 1, 9, 30, 15, 123_456_789);
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @InjectMocks
+    private MarketResponseCache marketResponseCache;
+
+    private ObjectMapper objectMapper;
+
+    private Market market;
+
+    @BeforeEach
+    void setUp() {
+        // Same settings as spring.jackson.* in application.properties
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ReflectionTestUtils.setField(marketResponseCache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(marketResponseCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(marketResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(marketResponseCache, "maxSize", 100L);
+        marketResponseCache.init();
+
+        market = new Market("Chowrasta Market", "Jalan Penang", new BigDecimal("5.4164"), new BigDecimal("100.3327"));
+        market.setId(1L);
+        market.setOpeningTime(LocalTime.of(7, 0));
+        market.setClosingTime(LocalTime.of(18, 0));
+        market.setSpecialties("Nutmeg, \"dried\" fruit");
+        market.setCrowdLevelMorning(Market.CrowdLevel.HIGH);
+        market.setUpdatedAt(UPDATED_AT);
+    }
+
+    @Test
+    @DisplayName("Should load misses in one query and serve later lookups from memory")
+    void testGetAll_CachesSnapshots() {
+        // Given
+        Market other = new Market("Campbell Street Market", "Lebuh Campbell", new BigDecimal("5.4180"), new BigDecimal("100.3330"));
+        other.setId(2L);
+        other.setUpdatedAt(UPDATED_AT);
+        when(marketRepository.findAllById(anyIterable())).thenReturn(List.of(other, market));
+
+        // When
+        List<MarketResponseCache.Snapshot> first = marketResponseCache.getAll(List.of(version(1L, UPDATED_AT), version(2L, UPDATED_AT)));
+        List<MarketResponseCache.Snapshot> second = marketResponseCache.getAll(List.of(version(2L, UPDATED_AT)));
+
+        // Then - results keep the requested order
+        assertEquals("Chowrasta Market", first.get(0).getBase().getName());
+        assertEquals("Campbell Street Market", first.get(1).getBase().getName());
+        assertSame(first.get(1), second.get(0));
+        verify(marketRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("Should reload a market whose updatedAt has changed")
+    void testGetAll_StaleVersion() {
+        // Given
+        when(marketRepository.findAllById(anyIterable())).thenReturn(List.of(market));
+        marketResponseCache.getAll(List.of(version(1L, UPDATED_AT)));
+
+        // When - a version that differs only below a millisecond still counts as the same
+        marketResponseCache.getAll(List.of(version(1L, UPDATED_AT.withNano(123_000_000))));
+        marketResponseCache.getAll(List.of(version(1L, UPDATED_AT.plusSeconds(1))));
+
+        // Then
+        verify(marketRepository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("Should drop markets deleted since the page was read")
+    void testGetAll_MissingMarket() {
+        // Given
+        when(marketRepository.findAllById(anyIterable())).thenReturn(List.of(market));
+
+        // When
+        List<MarketResponseCache.Snapshot> snapshots =
+                marketResponseCache.getAll(List.of(version(1L, UPDATED_AT), version(9L, UPDATED_AT)));
+
+        // Then
+        assertEquals(1, snapshots.size());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the snapshot after the market changes")
+    void testOnMarketChanged_Invalidates() {
+        // Given
+        MarketResponseCache.Snapshot before = marketResponseCache.get(market);
+
+        // When
+        marketResponseCache.onMarketChanged(new MarketChangedEvent(market, false));
+        MarketResponseCache.Snapshot after = marketResponseCache.get(market);
+
+        // Then
+        assertNotSame(before, after);
+        assertSame(after, marketResponseCache.get(market));
+    }
+
+    @Test
+    @DisplayName("Should serialize cached responses exactly like regular ones")
+    void testToResponse_SameJson() throws Exception {
+        // Given
+        MarketResponse expected = new MarketResponse(market);
+        MarketResponse cached = marketResponseCache.get(market).toResponse(true);
+        MarketPhotoResponse photo = new MarketPhotoResponse();
+        photo.setId(0L);
+        photo.setPhotoUrl("https://example.com/photo.jpg");
+        photo.setIsPrimary(true);
+        for (MarketResponse response : List.of(expected, cached)) {
+            response.setIsOpen(true);
+            response.setCurrentCrowdLevel("high");
+            response.setPhotos(List.of(photo));
+            response.setDistanceKm(1.25);
+            response.setWeather(new MarketWeatherResponse(30.0, 75, "Clear", 10, "2025-07-03 10:00:00"));
+        }
+
+        // When
+        String expectedJson = objectMapper.writeValueAsString(expected);
+        String cachedJson = objectMapper.writeValueAsString(cached);
+
+        // Then
+        assertInstanceOf(CachedMarketResponse.class, cached);
+        assertEquals(objectMapper.readTree(expectedJson), objectMapper.readTree(cachedJson));
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(List.of(expected))),
+                objectMapper.readTree(objectMapper.writeValueAsString(List.of(cached))));
+    }
+
+    @Test
+    @DisplayName("Should hand out plain copies when only some fields are requested")
+    void testToResponse_Projection() {
+        // Given
+        MarketResponseCache.Snapshot snapshot = marketResponseCache.get(market);
+
+        // When
+        MarketResponse response = snapshot.toResponse(false);
+        response.setName(null);
+
+        // Then - the cached base is left untouched
+        assertFalse(response instanceof CachedMarketResponse);
+        assertEquals("Chowrasta Market", snapshot.getBase().getName());
+    }
+
+    private Market version(Long id, LocalDateTime updatedAt) {
+        Market version = new Market();
+        version.setId(id);
+        version.setUpdatedAt(updatedAt);
+        return version;
+    }
+}
@@ -0,0 +1,140 @@
+package com.kny.service;
+
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketSearchIndex Unit Tests")
+class MarketSearchIndexTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @InjectMocks
+    private MarketSearchIndex marketSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(marketSearchIndex, "enabled", true);
+        ReflectionTestUtils.setField(marketSearchIndex, "maxAge", Duration.ofHours(1));
+
+        when(marketRepository.findAll()).thenReturn(List.of(
+                market(1L, "Chowrasta Market", "Nutmeg, Dried fruits", "Historic wet market", null),
+                market(2L, "Batu Ferringhi Night Market", "Souvenirs, Street food", "Beachside stalls", null),
+                market(3L, "Campbell Street Market", "Fresh seafood, Vegetables", null, "Famous for nutmeg juice"),
+                market(4L, "Pasar Malam Café Corner", "Kuih, Street food", null, null)));
+        marketSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should match words case-insensitively and by prefix")
+    void testSearch_PrefixAndCase() {
+        assertEquals(List.of(2L), ids(marketSearchIndex.search("FERRING", null, null)));
+        assertEquals(List.of(1L, 2L, 3L), ids(marketSearchIndex.search("mark", null, null)).stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should fold accents in documents and queries")
+    void testSearch_FoldsAccents() {
+        assertEquals(List.of(4L), ids(marketSearchIndex.search("cafe", null, null)));
+        assertEquals(List.of(4L), ids(marketSearchIndex.search("Café", null, null)));
+    }
+
+    @Test
+    @DisplayName("Should rank name matches above specialty and description matches")
+    void testSearch_Ranking() {
+        // Given - "nutmeg" is a specialty of market 1 but only in the description of market 3
+        List<MarketSearchIndex.Hit> hits = marketSearchIndex.search("nutmeg", null, null);
+
+        // Then
+        assertEquals(List.of(1L, 3L), ids(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    @DisplayName("Should require every term and every constraint to match")
+    void testSearch_CombinedConstraints() {
+        assertEquals(List.of(2L), ids(marketSearchIndex.search("street food night", null, null)));
+        assertEquals(List.of(2L), ids(marketSearchIndex.search(null, "market", "street food")));
+        assertTrue(marketSearchIndex.search(null, "nutmeg", null).isEmpty());
+        assertTrue(marketSearchIndex.search(null, null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should update a single market when it changes")
+    void testOnMarketChanged() {
+        // Given
+        Market renamed = market(1L, "Chowrasta Bazaar", "Nutmeg", null, null);
+
+        // When
+        marketSearchIndex.onMarketChanged(new MarketChangedEvent(renamed, false));
+
+        // Then
+        assertEquals(List.of(1L), ids(marketSearchIndex.search("bazaar", null, null)));
+        assertFalse(ids(marketSearchIndex.search("market", null, null)).contains(1L));
+
+        // When
+        marketSearchIndex.onMarketChanged(new MarketChangedEvent(renamed, true));
+
+        // Then
+        assertTrue(marketSearchIndex.search("bazaar", null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep a market saved while a rebuild is reading the table")
+    void testOnMarketChanged_DuringRebuild() {
+        // Given - the save commits after findAll() has read the old row
+        Market stale = market(1L, "Chowrasta Market", "Nutmeg, Dried fruits", null, null);
+        Market renamed = market(1L, "Chowrasta Bazaar", "Nutmeg", null, null);
+        when(marketRepository.findAll()).thenAnswer(invocation -> {
+            marketSearchIndex.onMarketChanged(new MarketChangedEvent(renamed, false));
+            return List.of(stale);
+        });
+
+        // When
+        marketSearchIndex.rebuild();
+
+        // Then
+        assertEquals(List.of(1L), ids(marketSearchIndex.search("bazaar", null, null)));
+        assertTrue(marketSearchIndex.search("dried", null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should be unavailable when disabled")
+    void testIsAvailable() {
+        assertTrue(marketSearchIndex.isAvailable());
+
+        ReflectionTestUtils.setField(marketSearchIndex, "enabled", false);
+        assertFalse(marketSearchIndex.isAvailable());
+    }
+
+    private Market market(Long id, String name, String specialties, String highlights, String description) {
+        Market market = new Market();
+        market.setId(id);
+        market.setName(name);
+        market.setSpecialties(specialties);
+        market.setHighlights(highlights);
+        market.setDescription(description);
+        return market;
+    }
+
+    private List<Long> ids(List<MarketSearchIndex.Hit> hits) {
+        return hits.stream().map(MarketSearchIndex.Hit::getMarketId).collect(Collectors.toList());
+    }
+}
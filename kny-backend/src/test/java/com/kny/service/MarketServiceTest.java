@@ -1,8 +1,17 @@
 package com.kny.service;
 
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.kny.dto.CachedMarketResponse;
+import com.kny.dto.MarketPage;
+import com.kny.dto.MarketPageRequest;
 import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketSuggestion;
 import com.kny.model.Market;
+import com.kny.repository.CrowdPeriod;
+import com.kny.repository.MarketCursor;
+import com.kny.repository.MarketFilter;
 import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -10,16 +19,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +53,27 @@ class MarketServiceTest {
     @Mock
     private GooglePlacesService googlePlacesService;
 
+    @Mock
+    private PlacePhotoResolver placePhotoResolver;
+
+    @Mock
+    private MarketSpatialIndex marketSpatialIndex;
+
+    @Mock
+    private MarketSearchIndex marketSearchIndex;
+
+    @Mock
+    private MarketSuggestIndex marketSuggestIndex;
+
+    @Mock
+    private MarketResponseCache marketResponseCache;
+
+    @Mock
+    private MarketSyncEngine marketSyncEngine;
+
+    @Mock
+    private WeatherCache weatherCache;
+
     @InjectMocks
     private MarketService marketService;
 
@@ -40,6 +82,9 @@ class MarketServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(marketService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(marketService, "maxPageSize", 200);
+
         testMarket1 = new Market();
         testMarket1.setId(1L);
         testMarket1.setName("Test Market 1");
@@ -67,22 +112,188 @@ class MarketServiceTest {
     @Test
     @DisplayName("Should get all markets successfully")
     void testGetAllMarkets() {
-        // Given
-        List<Market> mockMarkets = Arrays.asList(testMarket1, testMarket2);
-        when(marketRepository.findAllByOrderByNameAsc()).thenReturn(mockMarkets);
-        // Only stub what will definitely be called - getPlacePhotos for markets with Place IDs
-        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(Arrays.asList());
+        // Given - no size or cursor reads every market
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), eq(Integer.MAX_VALUE))).thenReturn(List.of(row(testMarket1), row(testMarket2)));
+        // Photos for the whole result set are resolved in one batch
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
 
         // When
-        List<MarketResponse> result = marketService.getAllMarkets();
+        MarketPage result = marketService.getMarkets(MarketFilter.all(), new MarketPageRequest());
 
         // Then
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("Test Market 1", result.get(0).getName());
-        assertEquals("Test Market 2", result.get(1).getName());
-        
-        verify(marketRepository).findAllByOrderByNameAsc();
+        assertEquals(2, result.getItems().size());
+        assertEquals("Test Market 1", result.getItems().get(0).getName());
+        assertEquals("Test Market 2", result.getItems().get(1).getName());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should return a cursor when another page exists")
+    void testGetMarkets_NextCursor() {
+        // Given - one row more than the page size means there is a next page
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), eq(2))).thenReturn(List.of(row(testMarket1), row(testMarket2)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        MarketPage result = marketService.getMarkets(MarketFilter.all(), new MarketPageRequest(1, null, null, null));
+
+        // Then
+        assertEquals(1, result.getItems().size());
+        MarketCursor cursor = MarketCursor.decode(result.getNextCursor(), MarketSort.NAME);
+        assertEquals(1L, cursor.getId());
+        assertEquals("Test Market 1", cursor.getValue());
+    }
+
+    @Test
+    @DisplayName("Should pass the cursor back to the repository for the next page")
+    void testGetMarkets_WithCursor() {
+        // Given
+        String token = new MarketCursor(MarketSort.CROWD_LEVEL, CrowdPeriod.EVENING, "0", 1L).encode();
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.CROWD_LEVEL), eq(CrowdPeriod.EVENING),
+                any(MarketCursor.class), anySet(), anyInt())).thenReturn(List.of(row(testMarket2)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        MarketPage result = marketService.getMarkets(MarketFilter.all(),
+                new MarketPageRequest(10, token, "crowd", null));
+
+        // Then
+        assertEquals(1, result.getItems().size());
+        verify(marketRepository).findPage(any(MarketFilter.class), eq(MarketSort.CROWD_LEVEL), eq(CrowdPeriod.EVENING),
+                argThat(after -> after.getId() == 1L && "0".equals(after.getValue())), anySet(), eq(11));
+    }
+
+    @Test
+    @DisplayName("Should only read the columns behind the requested fields")
+    void testGetMarkets_FieldsProjection() {
+        // Given
+        Map<String, Object> projected = new HashMap<>();
+        projected.put("id", 1L);
+        projected.put("name", "Test Market 1");
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of(projected));
+
+        // When
+        MarketPage result = marketService.getMarkets(MarketFilter.all(),
+                new MarketPageRequest(null, null, null, "name"));
+
+        // Then
+        MarketResponse response = result.getItems().get(0);
+        assertEquals(1L, response.getId());
+        assertEquals("Test Market 1", response.getName());
+        assertNull(response.getIsCovered());
+        assertNull(response.getCrowdLevelMorning());
+        assertNull(response.getCurrentCrowdLevel());
+        assertNull(response.getPhotos());
+        verify(marketRepository).findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), eq(Set.of("id", "name")), anyInt());
+        verifyNoInteractions(placePhotoResolver);
+    }
+
+    @Test
+    @DisplayName("Should read only versions and serve cached responses when the response cache is on")
+    void testGetMarkets_ResponseCache() {
+        // Given
+        Map<String, Object> version = new HashMap<>();
+        version.put("id", 1L);
+        version.put("name", "Test Market 1");
+        version.put("updatedAt", LocalDateTime.of(2025, 6, 1, 9, 0));
+        when(marketResponseCache.isEnabled()).thenReturn(true);
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), eq(Set.of("updatedAt")), anyInt())).thenReturn(List.of(version));
+        when(marketResponseCache.getAll(argThat(markets -> markets.size() == 1
+                && LocalDateTime.of(2025, 6, 1, 9, 0).equals(markets.get(0).getUpdatedAt()))))
+                .thenReturn(List.of(new MarketResponseCache.Snapshot(testMarket1.getUpdatedAt(),
+                        new MarketResponse(testMarket1), new SerializedString(""))));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of("test-place-id-1", List.of("url-1")));
+
+        // When
+        MarketPage result = marketService.getMarkets(MarketFilter.all(), new MarketPageRequest());
+
+        // Then - time-dependent fields and photos are filled in on top of the cached copy
+        MarketResponse response = result.getItems().get(0);
+        assertInstanceOf(CachedMarketResponse.class, response);
+        assertEquals("Test Market 1", response.getName());
+        assertNotNull(response.getIsOpen());
+        assertNotNull(response.getCurrentCrowdLevel());
+        assertEquals("url-1", response.getPhotos().get(0).getPhotoUrl());
+    }
+
+    @Test
+    @DisplayName("Should project cached responses down to the requested fields")
+    void testGetMarkets_ResponseCacheProjection() {
+        // Given
+        Map<String, Object> version = new HashMap<>();
+        version.put("id", 1L);
+        version.put("name", "Test Market 1");
+        when(marketResponseCache.isEnabled()).thenReturn(true);
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of(version));
+        when(marketResponseCache.getAll(anyList())).thenReturn(List.of(new MarketResponseCache.Snapshot(
+                null, new MarketResponse(testMarket1), new SerializedString(""))));
+
+        // When
+        MarketPage result = marketService.getMarkets(MarketFilter.all(),
+                new MarketPageRequest(null, null, null, "name"));
+
+        // Then
+        MarketResponse response = result.getItems().get(0);
+        assertFalse(response instanceof CachedMarketResponse);
+        assertEquals("Test Market 1", response.getName());
+        assertNull(response.getAddress());
+        assertNull(response.getIsOpen());
+        verifyNoInteractions(placePhotoResolver);
+    }
+
+    @Test
+    @DisplayName("Should cap the page size")
+    void testGetMarkets_PageSizeCap() {
+        // Given
+        when(marketRepository.findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of());
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        marketService.getMarkets(MarketFilter.all(), new MarketPageRequest(10_000, null, null, null));
+
+        // Then
+        verify(marketRepository).findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                isNull(), anySet(), eq(201));
+    }
+
+    @Test
+    @DisplayName("Should use the default page size when only a cursor is given")
+    void testGetMarkets_DefaultPageSizeWithCursor() {
+        // Given
+        String token = new MarketCursor(MarketSort.NAME, CrowdPeriod.EVENING, "Test Market 1", 1L).encode();
+        when(marketRepository.findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                any(MarketCursor.class), anySet(), anyInt())).thenReturn(List.of());
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        marketService.getMarkets(MarketFilter.all(), new MarketPageRequest(null, token, null, null));
+
+        // Then
+        verify(marketRepository).findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                any(MarketCursor.class), anySet(), eq(51));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sort, cursor and fields parameters")
+    void testGetMarkets_InvalidParameters() {
+        MarketFilter filter = MarketFilter.all();
+        assertThrows(IllegalArgumentException.class, () ->
+                marketService.getMarkets(filter, new MarketPageRequest(null, null, "distance", null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                marketService.getMarkets(filter, new MarketPageRequest(null, null, "rating", null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                marketService.getMarkets(filter, new MarketPageRequest(null, "not-a-cursor", null, null)));
+        assertThrows(IllegalArgumentException.class, () ->
+                marketService.getMarkets(filter, new MarketPageRequest(null, null, null, "rating")));
+        verifyNoInteractions(marketRepository);
     }
 
     @Test
@@ -90,7 +301,7 @@ class MarketServiceTest {
     void testGetMarketById_Found() {
         // Given
         when(marketRepository.findById(1L)).thenReturn(Optional.of(testMarket1));
-        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(Arrays.asList());
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
 
         // When
         Optional<MarketResponse> result = marketService.getMarketById(1L);
@@ -101,6 +312,33 @@ class MarketServiceTest {
         verify(marketRepository).findById(1L);
     }
 
+    @Test
+    @DisplayName("Should attach prefetched weather without calling Open-Meteo")
+    void testGetMarketById_PrefetchedWeather() {
+        // Given
+        WeatherService.WeatherData weather = new WeatherService.WeatherData();
+        weather.currentTemp = 31.5;
+        weather.humidity = 70;
+        weather.condition = "Partly Cloudy";
+        weather.time = "2025-07-03 14:00:00";
+        WeatherService.DailyWeather today = new WeatherService.DailyWeather();
+        today.rainChance = 40;
+        weather.forecast = List.of(today);
+        when(marketRepository.findById(1L)).thenReturn(Optional.of(testMarket1));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+        when(weatherCache.peek(5.4164, 100.3327)).thenReturn(weather);
+
+        // When
+        MarketResponse result = marketService.getMarketById(1L).orElseThrow();
+
+        // Then
+        assertNotNull(result.getWeather());
+        assertEquals(31.5, result.getWeather().getCurrentTemp());
+        assertEquals("Partly Cloudy", result.getWeather().getCondition());
+        assertEquals(40, result.getWeather().getRainChance());
+        verify(weatherCache, never()).get(anyDouble(), anyDouble(), any());
+    }
+
     @Test
     @DisplayName("Should return empty when market not found")
     void testGetMarketById_NotFound() {
@@ -116,43 +354,209 @@ class MarketServiceTest {
     }
 
     @Test
-    @DisplayName("Should get markets by name")
-    void testGetMarketsByName() {
+    @DisplayName("Should fall back to LIKE queries when the search index is unavailable")
+    void testSearchMarkets_DatabaseFallback() {
         // Given
-        List<Market> mockMarkets = Arrays.asList(testMarket1);
-        when(marketRepository.findByNameContainingIgnoreCase("Test")).thenReturn(mockMarkets);
-        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(Arrays.asList());
+        when(marketSearchIndex.isAvailable()).thenReturn(false);
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of(row(testMarket1)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
 
         // When
-        List<MarketResponse> result = marketService.getMarketsByName("Test");
+        MarketPage result = marketService.searchMarkets(null, "Test", "fruit", new MarketPageRequest());
+
+        // Then
+        assertEquals(1, result.getItems().size());
+        assertEquals("Test Market 1", result.getItems().get(0).getName());
+        verify(marketRepository).findPage(argThat(filter -> "Test".equals(filter.getNameContains())
+                        && "fruit".equals(filter.getSpecialtyContains())),
+                eq(MarketSort.NAME), any(CrowdPeriod.class), isNull(), anySet(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return search results in relevance order with a score cursor")
+    void testSearchMarkets_RankedByRelevance() {
+        // Given
+        when(marketSearchIndex.isAvailable()).thenReturn(true);
+        when(marketSearchIndex.search("test", null, null)).thenReturn(List.of(
+                new MarketSearchIndex.Hit(2L, 5.0),
+                new MarketSearchIndex.Hit(1L, 3.0)));
+        // The database returns the page in name order; the ranking must win
+        when(marketRepository.findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt()))
+                .thenReturn(List.of(row(testMarket2)))
+                .thenReturn(List.of(row(testMarket1)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        MarketPage first = marketService.searchMarkets("test", null, null, new MarketPageRequest(1, null, null, null));
+        MarketPage second = marketService.searchMarkets("test", null, null,
+                new MarketPageRequest(1, first.getNextCursor(), null, null));
+
+        // Then
+        assertEquals("Test Market 2", first.getItems().get(0).getName());
+        assertNotNull(first.getNextCursor());
+        assertEquals("Test Market 1", second.getItems().get(0).getName());
+        assertNull(second.getNextCursor());
+        verify(marketRepository).findPage(argThat(filter -> List.of(2L).equals(filter.getIds())),
+                any(MarketSort.class), any(CrowdPeriod.class), isNull(), anySet(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should list every market when the search has no terms, with or without the index")
+    void testSearchMarkets_NoTerms() {
+        // Given
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of(row(testMarket1), row(testMarket2)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        MarketPage result = marketService.searchMarkets(null, " ", "", new MarketPageRequest(null, null, "relevance", null));
+
+        // Then
+        assertEquals(2, result.getItems().size());
+        verify(marketSearchIndex, never()).search(any(), any(), any());
+        verify(marketRepository).findPage(argThat(filter -> filter.getNameContains() == null
+                        && filter.getSpecialtyContains() == null && filter.getIds() == null),
+                eq(MarketSort.NAME), any(CrowdPeriod.class), isNull(), anySet(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return an empty page without querying when nothing matches")
+    void testSearchMarkets_NoMatches() {
+        // Given
+        when(marketSearchIndex.isAvailable()).thenReturn(true);
+        when(marketSearchIndex.search("zzz", null, null)).thenReturn(List.of());
+
+        // When
+        MarketPage result = marketService.searchMarkets("zzz", null, null, new MarketPageRequest());
+
+        // Then
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verifyNoInteractions(marketRepository);
+    }
+
+    @Test
+    @DisplayName("Should get markets within radius sorted by distance")
+    void testGetMarketsWithinRadius() {
+        // Given
+        BigDecimal lat = new BigDecimal("5.4200");
+        BigDecimal lon = new BigDecimal("100.3400");
+        double radius = 10.0;
+
+        Market farMarket = new Market("Far Market", "Far Address", new BigDecimal("3.1390"), new BigDecimal("101.6869"));
+        farMarket.setId(3L);
+
+        List<Market> candidates = Arrays.asList(testMarket1, farMarket, testMarket2);
+        when(marketRepository.findWithinBoundingBox(any(BigDecimal.class), any(BigDecimal.class),
+                any(BigDecimal.class), any(BigDecimal.class))).thenReturn(candidates);
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        List<MarketResponse> result = marketService.getMarketsWithinRadius(lat, lon, radius, new MarketPageRequest())
+                .getItems();
 
         // Then
         assertNotNull(result);
+        assertEquals(2, result.size());
+        assertEquals("Test Market 2", result.get(0).getName());
+        assertEquals("Test Market 1", result.get(1).getName());
+        assertEquals(0.0, result.get(0).getDistanceKm(), 0.001);
+        assertTrue(result.get(1).getDistanceKm() > 0.5 && result.get(1).getDistanceKm() < 1.5);
+    }
+
+    @Test
+    @DisplayName("Should query a bounding box that contains the search radius")
+    void testGetMarketsWithinRadius_BoundingBox() {
+        // Given
+        when(marketRepository.findWithinBoundingBox(any(BigDecimal.class), any(BigDecimal.class),
+                any(BigDecimal.class), any(BigDecimal.class))).thenReturn(Arrays.asList());
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        marketService.getMarketsWithinRadius(new BigDecimal("5.4164"), new BigDecimal("100.3327"), 10.0,
+                new MarketPageRequest());
+
+        // Then - 10 km is roughly 0.09 degrees at this latitude
+        verify(marketRepository).findWithinBoundingBox(
+                argThat(minLat -> minLat.doubleValue() < 5.33 && minLat.doubleValue() > 5.32),
+                argThat(maxLat -> maxLat.doubleValue() > 5.50 && maxLat.doubleValue() < 5.51),
+                argThat(minLon -> minLon.doubleValue() < 100.25 && minLon.doubleValue() > 100.24),
+                argThat(maxLon -> maxLon.doubleValue() > 100.42 && maxLon.doubleValue() < 100.43));
+    }
+
+    @Test
+    @DisplayName("Should serve nearby markets from the spatial index when available")
+    void testGetMarketsWithinRadius_UsesSpatialIndex() {
+        // Given
+        when(marketSpatialIndex.isAvailable()).thenReturn(true);
+        when(marketSpatialIndex.withinRadius(5.4164, 100.3327, 10.0))
+            .thenReturn(List.of(new MarketSpatialIndex.Hit(testMarket1, 0.0)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        List<MarketResponse> result = marketService.getMarketsWithinRadius(
+                new BigDecimal("5.4164"), new BigDecimal("100.3327"), 10.0, new MarketPageRequest()).getItems();
+
+        // Then
         assertEquals(1, result.size());
-        assertEquals("Test Market 1", result.get(0).getName());
-        verify(marketRepository).findByNameContainingIgnoreCase("Test");
+        assertEquals(0.0, result.get(0).getDistanceKm());
+        verifyNoInteractions(marketRepository);
     }
 
     @Test
-    @DisplayName("Should get markets within radius")
-    void testGetMarketsWithinRadius() {
+    @DisplayName("Should page nearby markets by distance with a cursor")
+    void testGetMarketsWithinRadius_Paged() {
         // Given
+        Market thirdMarket = new Market("Test Market 3", "Address 3", new BigDecimal("5.4300"), new BigDecimal("100.3400"));
+        thirdMarket.setId(3L);
+        when(marketSpatialIndex.isAvailable()).thenReturn(true);
+        when(marketSpatialIndex.withinRadius(5.4164, 100.3327, 10.0)).thenReturn(List.of(
+                new MarketSpatialIndex.Hit(testMarket1, 0.0),
+                new MarketSpatialIndex.Hit(testMarket2, 0.9),
+                new MarketSpatialIndex.Hit(thirdMarket, 1.6)));
         BigDecimal lat = new BigDecimal("5.4164");
         BigDecimal lon = new BigDecimal("100.3327");
-        double radius = 10.0;
-        
-        List<Market> mockMarkets = Arrays.asList(testMarket1);
-        when(marketRepository.findMarketsWithinRadius(lat, lon, radius)).thenReturn(mockMarkets);
-        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(Arrays.asList());
 
         // When
-        List<MarketResponse> result = marketService.getMarketsWithinRadius(lat, lon, radius);
+        MarketPage first = marketService.getMarketsWithinRadius(lat, lon, 10.0,
+                new MarketPageRequest(2, null, null, "name,distanceKm"));
+        MarketPage second = marketService.getMarketsWithinRadius(lat, lon, 10.0,
+                new MarketPageRequest(2, first.getNextCursor(), null, "name,distanceKm"));
+
+        // Then
+        assertEquals(2, first.getItems().size());
+        assertEquals("Test Market 2", first.getItems().get(1).getName());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertEquals("Test Market 3", second.getItems().get(0).getName());
+        assertEquals(1.6, second.getItems().get(0).getDistanceKm());
+        assertNull(second.getItems().get(0).getAddress());
+        assertNull(second.getNextCursor());
+        verifyNoInteractions(placePhotoResolver);
+    }
+
+    @Test
+    @DisplayName("Should widen the database search for closest markets when the index is unavailable")
+    void testGetClosestMarkets_DatabaseFallback() {
+        // Given
+        when(marketSpatialIndex.isAvailable()).thenReturn(false);
+        when(marketRepository.findWithinBoundingBox(any(BigDecimal.class), any(BigDecimal.class),
+                any(BigDecimal.class), any(BigDecimal.class)))
+            .thenReturn(Arrays.asList())
+            .thenReturn(Arrays.asList(testMarket1, testMarket2));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
+
+        // When
+        List<MarketResponse> result = marketService.getClosestMarkets(
+                new BigDecimal("5.4200"), new BigDecimal("100.3400"), 1, null);
 
         // Then
-        assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("Test Market 1", result.get(0).getName());
-        verify(marketRepository).findMarketsWithinRadius(lat, lon, radius);
+        assertEquals("Test Market 2", result.get(0).getName());
+        verify(marketRepository, times(2)).findWithinBoundingBox(any(BigDecimal.class), any(BigDecimal.class),
+                any(BigDecimal.class), any(BigDecimal.class));
     }
 
     @Test
@@ -160,18 +564,77 @@ class MarketServiceTest {
     void testGetCoveredMarkets() {
         // Given
         testMarket1.setIsCovered(true);
-        List<Market> mockMarkets = Arrays.asList(testMarket1);
-        when(marketRepository.findByIsCoveredTrue()).thenReturn(mockMarkets);
-        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(Arrays.asList());
+        when(marketRepository.findPage(argThat(MarketFilter::isCoveredOnly), eq(MarketSort.NAME),
+                any(CrowdPeriod.class), isNull(), anySet(), anyInt())).thenReturn(List.of(row(testMarket1)));
+        when(placePhotoResolver.resolve(anyCollection())).thenReturn(Map.of());
 
         // When
-        List<MarketResponse> result = marketService.getCoveredMarkets();
+        List<MarketResponse> result = marketService.getMarkets(MarketFilter.covered(), new MarketPageRequest())
+                .getItems();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertTrue(result.get(0).getIsCovered());
-        verify(marketRepository).findByIsCoveredTrue();
+    }
+
+    @Test
+    @DisplayName("Should resolve photos for the whole result set in one batch")
+    void testGetAllMarkets_BatchesPhotoResolution() {
+        // Given
+        when(marketRepository.findPage(any(MarketFilter.class), any(MarketSort.class), any(CrowdPeriod.class),
+                isNull(), anySet(), anyInt())).thenReturn(List.of(row(testMarket1), row(testMarket2)));
+        when(placePhotoResolver.resolve(anyCollection()))
+            .thenReturn(Map.of("test-place-id-1", List.of("url-1", "url-2")));
+
+        // When
+        List<MarketResponse> result = marketService.getMarkets(MarketFilter.all(), new MarketPageRequest())
+                .getItems();
+
+        // Then
+        assertEquals(2, result.get(0).getPhotos().size());
+        assertTrue(result.get(0).getPhotos().get(0).getIsPrimary());
+        assertTrue(result.get(1).getPhotos().isEmpty());
+        verify(placePhotoResolver, times(1)).resolve(anyCollection());
+        verifyNoInteractions(googlePlacesService);
+    }
+
+    @Test
+    @DisplayName("Should serve suggestions from the index when available")
+    void testSuggestMarkets_UsesIndex() {
+        // Given
+        List<MarketSuggestion> suggestions = List.of(new MarketSuggestion(1L, "Test Market 1", null));
+        when(marketSuggestIndex.isAvailable()).thenReturn(true);
+        when(marketSuggestIndex.suggest("tes", 8)).thenReturn(suggestions);
+
+        // When
+        List<MarketSuggestion> result = marketService.suggestMarkets("tes", 8);
+
+        // Then
+        assertEquals(suggestions, result);
+        verifyNoInteractions(marketRepository, placePhotoResolver);
+    }
+
+    @Test
+    @DisplayName("Should fall back to a projected name query for suggestions")
+    void testSuggestMarkets_DatabaseFallback() {
+        // Given
+        Map<String, Object> projected = new HashMap<>();
+        projected.put("id", 1L);
+        projected.put("name", "Test Market 1");
+        projected.put("specialties", "Nutmeg");
+        when(marketSuggestIndex.isAvailable()).thenReturn(false);
+        when(marketRepository.findPage(any(MarketFilter.class), eq(MarketSort.NAME), any(CrowdPeriod.class),
+                isNull(), eq(Set.of("name", "specialties")), eq(8))).thenReturn(List.of(projected));
+
+        // When
+        List<MarketSuggestion> result = marketService.suggestMarkets("tes", 8);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("Test Market 1", result.get(0).getName());
+        assertEquals("Nutmeg", result.get(0).getSnippet());
+        verifyNoInteractions(placePhotoResolver);
     }
 
     @Test
@@ -189,4 +652,28 @@ class MarketServiceTest {
         verify(marketRepository).findById(1L);
         verify(marketRepository).save(any(Market.class));
     }
+
+    // Every column of the market, as the paged repository query returns it
+    private Map<String, Object> row(Market market) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", market.getId());
+        row.put("googlePlaceId", market.getGooglePlaceId());
+        row.put("name", market.getName());
+        row.put("address", market.getAddress());
+        row.put("latitude", market.getLatitude());
+        row.put("longitude", market.getLongitude());
+        row.put("openingTime", market.getOpeningTime());
+        row.put("closingTime", market.getClosingTime());
+        row.put("description", market.getDescription());
+        row.put("specialties", market.getSpecialties());
+        row.put("highlights", market.getHighlights());
+        row.put("isCovered", market.getIsCovered());
+        row.put("crowdLevelMorning", market.getCrowdLevelMorning());
+        row.put("crowdLevelAfternoon", market.getCrowdLevelAfternoon());
+        row.put("crowdLevelEvening", market.getCrowdLevelEvening());
+        row.put("dataSource", market.getDataSource());
+        row.put("phoneNumber", market.getPhoneNumber());
+        row.put("website", market.getWebsite());
+        return row;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.kny.service;
+
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.util.GeoUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketSpatialIndex Unit Tests")
+class MarketSpatialIndexTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @InjectMocks
+    private MarketSpatialIndex marketSpatialIndex;
+
+    private List<Market> markets;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(marketSpatialIndex, "enabled", true);
+        ReflectionTestUtils.setField(marketSpatialIndex, "cellSizeDegrees", 0.05);
+        ReflectionTestUtils.setField(marketSpatialIndex, "maxAge", Duration.ofHours(1));
+
+        // Random markets scattered around Penang
+        Random random = new Random(42);
+        markets = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            markets.add(market(id, 5.2 + random.nextDouble() * 0.4, 100.1 + random.nextDouble() * 0.4));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        marketSpatialIndex.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should be unavailable until loaded")
+    void testIsAvailable() {
+        assertFalse(marketSpatialIndex.isAvailable());
+
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+
+        assertTrue(marketSpatialIndex.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Should match a brute-force radius search")
+    void testWithinRadius_MatchesBruteForce() {
+        // Given
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+
+        // When
+        List<MarketSpatialIndex.Hit> hits = marketSpatialIndex.withinRadius(5.4164, 100.3327, 7.5);
+
+        // Then
+        List<Long> expected = markets.stream()
+                .filter(m -> distance(m, 5.4164, 100.3327) <= 7.5)
+                .sorted(Comparator.comparingDouble(m -> distance(m, 5.4164, 100.3327)))
+                .map(Market::getId)
+                .collect(Collectors.toList());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ids(hits));
+    }
+
+    @Test
+    @DisplayName("Should match a brute-force k-nearest search")
+    void testNearest_MatchesBruteForce() {
+        // Given
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+
+        for (double[] point : new double[][] {{5.4164, 100.3327}, {5.0, 100.0}, {5.6, 100.6}}) {
+            // When
+            List<MarketSpatialIndex.Hit> hits = marketSpatialIndex.nearest(point[0], point[1], 10);
+
+            // Then
+            List<Long> expected = markets.stream()
+                    .sorted(Comparator.comparingDouble(m -> distance(m, point[0], point[1])))
+                    .limit(10)
+                    .map(Market::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected, ids(hits));
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply market changes without reloading from the database")
+    void testOnMarketChanged_UpdatesIncrementally() throws InterruptedException {
+        // Given
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+        Market moved = market(1L, 1.3521, 103.8198);
+        Market added = market(9999L, 1.3530, 103.8200);
+
+        // When
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(moved, false));
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(added, false));
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(markets.get(1), true));
+        awaitApplied();
+
+        // Then
+        assertEquals(List.of(1L, 9999L), ids(marketSpatialIndex.withinRadius(1.3521, 103.8198, 5.0)));
+        assertTrue(marketSpatialIndex.nearest(markets.get(1).getLatitude().doubleValue(),
+                markets.get(1).getLongitude().doubleValue(), 1).stream()
+                .noneMatch(hit -> hit.getMarket().getId().equals(2L)));
+        verify(marketRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should apply only the latest queued change for each market")
+    void testOnMarketChanged_LatestChangeWins() throws InterruptedException {
+        // Given
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+        Market first = market(9999L, 1.3530, 103.8200);
+        Market last = market(9999L, 5.4164, 100.3327);
+
+        // When - a bulk sync saves, deletes and saves again before anyone queries
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(first, false));
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(first, true));
+        marketSpatialIndex.onMarketChanged(new MarketChangedEvent(last, false));
+        awaitApplied();
+
+        // Then
+        assertTrue(marketSpatialIndex.withinRadius(1.3530, 103.8200, 5.0).isEmpty());
+        assertEquals(9999L, marketSpatialIndex.nearest(5.4164, 100.3327, 1).get(0).getMarket().getId());
+    }
+
+    @Test
+    @DisplayName("Should keep answering from the current snapshot while changes are applied")
+    void testOnMarketChanged_QueriesDoNotWait() throws InterruptedException {
+        // Given - the background apply is held up behind the write lock
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+        ReentrantLock writeLock = (ReentrantLock) ReflectionTestUtils.getField(marketSpatialIndex, "writeLock");
+        writeLock.lock();
+        try {
+            // When
+            marketSpatialIndex.onMarketChanged(new MarketChangedEvent(market(9999L, 1.3530, 103.8200), false));
+
+            // Then - the query returns at once, without the change
+            assertTrue(marketSpatialIndex.withinRadius(1.3530, 103.8200, 5.0).isEmpty());
+        } finally {
+            writeLock.unlock();
+        }
+        awaitApplied();
+        assertEquals(List.of(9999L), ids(marketSpatialIndex.withinRadius(1.3530, 103.8200, 5.0)));
+    }
+
+    @Test
+    @DisplayName("Should keep a market saved while a rebuild is reading the table")
+    void testOnMarketChanged_DuringRebuild() throws InterruptedException {
+        // Given - the move is saved and applied after findAll() has read the old row
+        when(marketRepository.findAll()).thenReturn(markets);
+        marketSpatialIndex.rebuild();
+        Market moved = market(1L, 1.3521, 103.8198);
+        when(marketRepository.findAll()).thenAnswer(invocation -> {
+            marketSpatialIndex.onMarketChanged(new MarketChangedEvent(moved, false));
+            marketSpatialIndex.applyPending();
+            return markets;
+        });
+
+        // When
+        marketSpatialIndex.rebuild();
+        awaitApplied();
+
+        // Then
+        assertEquals(List.of(1L), ids(marketSpatialIndex.withinRadius(1.3521, 103.8198, 5.0)));
+    }
+
+    @Test
+    @DisplayName("Should find markets across the antimeridian")
+    void testNearest_AcrossAntimeridian() {
+        // Given - one market just across 180 degrees and one further away on the same side,
+        // plus markets spread over enough cells that nearest() searches rings instead of scanning
+        Random random = new Random(7);
+        List<Market> world = new ArrayList<>();
+        for (long id = 10; id < 510; id++) {
+            world.add(market(id, -60 + random.nextDouble() * 120, -170 + random.nextDouble() * 340));
+        }
+        world.add(market(1L, -16.50, -179.99));
+        world.add(market(2L, -16.50, 179.20));
+        when(marketRepository.findAll()).thenReturn(world);
+        marketSpatialIndex.rebuild();
+
+        // When
+        List<MarketSpatialIndex.Hit> nearest = marketSpatialIndex.nearest(-16.50, 179.98, 1);
+        List<MarketSpatialIndex.Hit> within = marketSpatialIndex.withinRadius(-16.50, 179.98, 10.0);
+
+        // Then
+        assertEquals(List.of(1L), ids(nearest));
+        assertTrue(nearest.get(0).getDistanceKm() < 5.0);
+        assertEquals(List.of(1L), ids(within));
+    }
+
+    // Entries leave the queue only after the snapshot holding them is in place
+    private void awaitApplied() throws InterruptedException {
+        Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(marketSpatialIndex, "pending");
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(pending.isEmpty());
+    }
+
+    private Market market(long id, double latitude, double longitude) {
+        Market market = new Market("Market " + id, "Address " + id,
+                BigDecimal.valueOf(latitude), BigDecimal.valueOf(longitude));
+        market.setId(id);
+        return market;
+    }
+
+    private double distance(Market market, double latitude, double longitude) {
+        return GeoUtils.distanceKm(latitude, longitude,
+                market.getLatitude().doubleValue(), market.getLongitude().doubleValue());
+    }
+
+    private List<Long> ids(List<MarketSpatialIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.getMarket().getId()).collect(Collectors.toList());
+    }
+}
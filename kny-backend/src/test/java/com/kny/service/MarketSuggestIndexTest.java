@@ -0,0 +1,128 @@
+package com.kny.service;
+
+import com.kny.dto.MarketSuggestion;
+import com.kny.event.MarketChangedEvent;
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketSuggestIndex Unit Tests")
+class MarketSuggestIndexTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @InjectMocks
+    private MarketSuggestIndex marketSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(marketSuggestIndex, "enabled", true);
+        ReflectionTestUtils.setField(marketSuggestIndex, "maxAge", Duration.ofHours(1));
+
+        when(marketRepository.findAll()).thenReturn(List.of(
+                market(1L, "Chowrasta Market", "Nutmeg, Dried fruits"),
+                market(2L, "Batu Ferringhi Night Market", "Souvenirs, Street food"),
+                market(3L, "Campbell Street Market", "Fresh seafood, Vegetables"),
+                market(4L, "Café Corner", "Kuih, Street food")));
+        marketSuggestIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should rank name starts before inner name words and specialties")
+    void testSuggest_Priority() {
+        // "c" starts three names; market 3 also matches "Campbell"
+        assertEquals(List.of(4L, 3L, 1L), ids(marketSuggestIndex.suggest("c", 10)));
+        // "street" is inside a name for market 3 and only a specialty for 2 and 4
+        assertEquals(List.of(3L, 2L, 4L), ids(marketSuggestIndex.suggest("street", 10)));
+    }
+
+    @Test
+    @DisplayName("Should match multi-word prefixes, accents and case")
+    void testSuggest_Folding() {
+        assertEquals(List.of(2L), ids(marketSuggestIndex.suggest("NIGHT m", 10)));
+        assertEquals(List.of(4L), ids(marketSuggestIndex.suggest("cafe", 10)));
+        assertTrue(marketSuggestIndex.suggest("   ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return the matched specialty as the snippet")
+    void testSuggest_Snippet() {
+        MarketSuggestion suggestion = marketSuggestIndex.suggest("nutm", 5).get(0);
+
+        assertEquals(1L, suggestion.getId());
+        assertEquals("Chowrasta Market", suggestion.getName());
+        assertEquals("Nutmeg", suggestion.getSnippet());
+        assertEquals("Nutmeg, Dried fruits", marketSuggestIndex.suggest("chow", 5).get(0).getSnippet());
+    }
+
+    @Test
+    @DisplayName("Should stop at the limit")
+    void testSuggest_Limit() {
+        assertEquals(2, marketSuggestIndex.suggest("c", 2).size());
+    }
+
+    @Test
+    @DisplayName("Should merge saved and deleted markets without a reload")
+    void testOnMarketChanged() {
+        // When
+        marketSuggestIndex.onMarketChanged(new MarketChangedEvent(market(1L, "Chulia Hawker Centre", "Wantan mee"), false));
+        marketSuggestIndex.onMarketChanged(new MarketChangedEvent(market(5L, "Cecil Street Market", null), false));
+        marketSuggestIndex.onMarketChanged(new MarketChangedEvent(market(4L, "Café Corner", null), true));
+
+        // Then
+        assertEquals(List.of(3L, 5L, 1L), ids(marketSuggestIndex.suggest("c", 10)));
+        assertTrue(marketSuggestIndex.suggest("chowrasta", 10).isEmpty());
+        assertTrue(marketSuggestIndex.suggest("kuih", 10).isEmpty());
+        verify(marketRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should merge only the latest queued change for each market")
+    void testOnMarketChanged_LatestChangeWins() {
+        // When - a bulk sync renames a market twice before anyone looks it up
+        marketSuggestIndex.onMarketChanged(new MarketChangedEvent(market(5L, "Jelutong Market", null), false));
+        marketSuggestIndex.onMarketChanged(new MarketChangedEvent(market(5L, "Bayan Baru Market", null), false));
+
+        // Then
+        assertEquals(List.of(5L), ids(marketSuggestIndex.suggest("bayan", 10)));
+        assertTrue(marketSuggestIndex.suggest("jelutong", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should shorten long specialty lists at a comma")
+    void testShortSpecialties() {
+        String specialties = "Fresh seafood, Vegetables, Tropical fruits, Spices, Dried goods, Household items";
+
+        assertEquals("Fresh seafood, Vegetables, Tropical fruits, Spices...",
+                MarketSuggestIndex.shortSpecialties(specialties));
+        assertNull(MarketSuggestIndex.shortSpecialties(" "));
+    }
+
+    private Market market(Long id, String name, String specialties) {
+        Market market = new Market();
+        market.setId(id);
+        market.setName(name);
+        market.setSpecialties(specialties);
+        return market;
+    }
+
+    private List<Long> ids(List<MarketSuggestion> suggestions) {
+        return suggestions.stream().map(MarketSuggestion::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,186 @@
+package com.kny.service;
+
+import com.kny.model.Market;
+import com.kny.model.MarketSyncState;
+import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSyncStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketSyncEngine Unit Tests")
+class MarketSyncEngineTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @Mock
+    private GooglePlacesService googlePlacesService;
+
+    @Mock
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private MarketSyncEngine marketSyncEngine;
+
+    @Captor
+    private ArgumentCaptor<List<MarketSyncState>> saved;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(marketSyncEngine, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(marketSyncEngine, "staleAfter", Duration.ofDays(30));
+        ReflectionTestUtils.setField(marketSyncEngine, "requestsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(marketSyncEngine, "burst", 100);
+        ReflectionTestUtils.setField(marketSyncEngine, "workers", 4);
+        ReflectionTestUtils.setField(marketSyncEngine, "maxAttempts", 3);
+        ReflectionTestUtils.setField(marketSyncEngine, "initialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(marketSyncEngine, "failureBackoff", Duration.ofHours(1));
+        ReflectionTestUtils.setField(marketSyncEngine, "batchSize", 2);
+        marketSyncEngine.init();
+
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> callback = invocation.getArgument(0);
+            callback.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should only sync markets returned by the stale-market query, in batches")
+    void testSyncStaleMarkets() {
+        // Given
+        List<Market> stale = List.of(market(1L), market(2L), market(3L));
+        when(marketRepository.findMarketsNeedingGoogleSync(any(LocalDateTime.class))).thenReturn(stale);
+        when(marketRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Market> loaded = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                loaded.add(stale.get(((Long) id).intValue() - 1));
+            }
+            return loaded;
+        });
+        when(googlePlacesService.fetchPlaceDetails(anyString())).thenReturn(new GooglePlacesService.PlaceDetails());
+
+        // When
+        MarketSyncEngine.SyncResult result = marketSyncEngine.syncStaleMarkets();
+
+        // Then - three results with a batch size of two means two write transactions
+        assertEquals(3, result.getSynced());
+        assertEquals(0, result.getFailed());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(googlePlacesService, times(3)).applyPlaceDetails(any(Market.class), any());
+        assertEquals(3.0, meterRegistry.get("market.sync.markets").tag("result", "synced").counter().count());
+        assertEquals(0.0, meterRegistry.get("market.sync.pending").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should retry transient errors and give up on permanent ones")
+    void testSync_Retries() {
+        // Given
+        Market flaky = market(1L);
+        Market denied = market(2L);
+        denied.setGooglePlaceId("place-denied");
+        when(googlePlacesService.fetchPlaceDetails("place-1"))
+                .thenThrow(new ResourceAccessException("timeout"))
+                .thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS))
+                .thenReturn(new GooglePlacesService.PlaceDetails());
+        when(googlePlacesService.fetchPlaceDetails("place-denied"))
+                .thenThrow(new GooglePlacesService.PlacesStatusException("REQUEST_DENIED"));
+        when(marketRepository.findAllById(anyIterable())).thenReturn(List.of(flaky, denied));
+        MarketSyncState previous = new MarketSyncState(2L);
+        previous.setConsecutiveFailures(1);
+        when(marketSyncStateRepository.findAllById(anyIterable())).thenReturn(List.of(previous));
+
+        // When
+        MarketSyncEngine.SyncResult result = marketSyncEngine.sync(List.of(flaky, denied));
+
+        // Then - the failure is recorded with a doubled backoff, the success clears its state
+        assertEquals(1, result.getSynced());
+        assertEquals(1, result.getFailed());
+        verify(marketSyncStateRepository).saveAll(saved.capture());
+        Map<Long, MarketSyncState> states = saved.getValue().stream()
+                .collect(Collectors.toMap(MarketSyncState::getMarketId, Function.identity()));
+        assertEquals(MarketSyncState.Status.SYNCED, states.get(1L).getStatus());
+        assertNull(states.get(1L).getNextAttemptAt());
+        assertEquals(MarketSyncState.Status.FAILED, states.get(2L).getStatus());
+        assertEquals(2, states.get(2L).getConsecutiveFailures());
+        assertTrue(states.get(2L).getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(119)));
+        verify(googlePlacesService, times(3)).fetchPlaceDetails("place-1");
+        verify(googlePlacesService, times(1)).fetchPlaceDetails("place-denied");
+        assertEquals(2.0, meterRegistry.get("market.sync.retries").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should stamp places Google no longer knows so they wait for the next interval")
+    void testSync_NotFound() {
+        // Given
+        Market gone = market(1L);
+        when(googlePlacesService.fetchPlaceDetails("place-1")).thenReturn(null);
+        when(marketRepository.findAllById(anyIterable())).thenReturn(List.of(gone));
+
+        // When
+        MarketSyncEngine.SyncResult result = marketSyncEngine.sync(List.of(gone));
+
+        // Then
+        assertEquals(1, result.getNotFound());
+        assertNotNull(gone.getLastGoogleSync());
+        verify(googlePlacesService, never()).applyPlaceDetails(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should skip markets without a place ID")
+    void testSync_NoPlaceId() {
+        // Given
+        Market local = market(1L);
+        local.setGooglePlaceId(null);
+
+        // When
+        MarketSyncEngine.SyncResult result = marketSyncEngine.sync(List.of(local));
+
+        // Then
+        assertEquals(0, result.getSynced() + result.getNotFound() + result.getFailed());
+        verifyNoInteractions(googlePlacesService, transactionTemplate);
+    }
+
+    private Market market(Long id) {
+        Market market = new Market("Market " + id, "Address " + id, new BigDecimal("5.4164"), new BigDecimal("100.3327"));
+        market.setId(id);
+        market.setGooglePlaceId("place-" + id);
+        return market;
+    }
+}
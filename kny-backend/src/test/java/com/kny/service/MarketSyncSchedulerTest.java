@@ -0,0 +1,135 @@
+package com.kny.service;
+
+import com.kny.model.Market;
+import com.kny.repository.MarketRepository;
+import com.kny.repository.MarketSyncStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketSyncScheduler Unit Tests")
+class MarketSyncSchedulerTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @Mock
+    private MarketSyncStateRepository marketSyncStateRepository;
+
+    @Mock
+    private MarketSyncEngine marketSyncEngine;
+
+    @InjectMocks
+    private MarketSyncScheduler marketSyncScheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(marketSyncScheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(marketSyncScheduler, "enabled", true);
+        ReflectionTestUtils.setField(marketSyncScheduler, "interval", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(marketSyncScheduler, "dailyBudget", 2000);
+        ReflectionTestUtils.setField(marketSyncScheduler, "chunkSize", 2);
+        ReflectionTestUtils.setField(marketSyncScheduler, "staleAfter", Duration.ofDays(30));
+        marketSyncScheduler.init();
+    }
+
+    @Test
+    @DisplayName("Should spread the daily budget evenly over the ticks")
+    void testBudgetPerTick() {
+        // 96 ticks a day
+        assertEquals(21, marketSyncScheduler.budgetPerTick());
+
+        ReflectionTestUtils.setField(marketSyncScheduler, "dailyBudget", 10);
+        assertEquals(1, marketSyncScheduler.budgetPerTick());
+    }
+
+    @Test
+    @DisplayName("Should walk never-synced then stale markets in chunks until the budget is used")
+    void testRunOnce_KeysetChunks() {
+        // Given
+        LocalDateTime old = LocalDateTime.now().minusDays(60);
+        when(marketRepository.findNeverSyncedChunk(eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(market(4L, null), market(7L, null)));
+        when(marketRepository.findNeverSyncedChunk(eq(7L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(marketRepository.findStaleChunk(any(LocalDateTime.class), eq(LocalDateTime.of(1970, 1, 1, 0, 0)), eq(0L),
+                any(LocalDateTime.class), argThat(page -> page.getPageSize() == 1)))
+                .thenReturn(List.of(market(2L, old)));
+        when(marketSyncEngine.sync(anyList())).thenReturn(
+                new MarketSyncEngine.SyncResult(2, 0, 0, Duration.ofSeconds(1)),
+                new MarketSyncEngine.SyncResult(0, 1, 0, Duration.ofSeconds(1)));
+        when(marketRepository.countMarketsNeedingGoogleSync(any(LocalDateTime.class))).thenReturn(12L);
+        when(marketRepository.findOldestGoogleSync()).thenReturn(old);
+
+        // When - a budget of three leaves room for one stale market after the two new ones
+        int processed = marketSyncScheduler.runOnce(3);
+
+        // Then
+        assertEquals(3, processed);
+        verify(marketSyncEngine, times(2)).sync(anyList());
+        assertEquals(12.0, meterRegistry.get("market.sync.queue.depth").gauge().value());
+        assertTrue(meterRegistry.get("market.sync.lag").gauge().value() >= Duration.ofDays(60).getSeconds() - 1);
+    }
+
+    @Test
+    @DisplayName("Should stop the tick without counting the chunk when another sync is running")
+    void testRunOnce_EngineBusy() {
+        // Given
+        when(marketRepository.findNeverSyncedChunk(eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(market(4L, null), market(7L, null)));
+        when(marketSyncEngine.sync(anyList())).thenReturn(MarketSyncEngine.SyncResult.skipped());
+
+        // When
+        int processed = marketSyncScheduler.runOnce(10);
+
+        // Then - no further chunks are read and the queue gauges are still refreshed
+        assertEquals(0, processed);
+        verify(marketSyncEngine, times(1)).sync(anyList());
+        verify(marketRepository, times(1)).findNeverSyncedChunk(anyLong(), any(LocalDateTime.class), any(Pageable.class));
+        verify(marketRepository, never()).findStaleChunk(any(), any(), anyLong(), any(), any());
+        verify(marketRepository).countMarketsNeedingGoogleSync(any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when scheduling is disabled")
+    void testTick_Disabled() {
+        // Given
+        ReflectionTestUtils.setField(marketSyncScheduler, "enabled", false);
+
+        // When
+        marketSyncScheduler.tick();
+
+        // Then
+        verifyNoInteractions(marketRepository, marketSyncEngine);
+    }
+
+    private Market market(Long id, LocalDateTime lastGoogleSync) {
+        Market market = new Market();
+        market.setId(id);
+        market.setGooglePlaceId("place-" + id);
+        market.setLastGoogleSync(lastGoogleSync);
+        return market;
+    }
+}
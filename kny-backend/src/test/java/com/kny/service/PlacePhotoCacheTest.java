@@ -0,0 +1,143 @@
+package com.kny.service;
+
+import com.kny.model.PlacePhotoCacheEntry;
+import com.kny.repository.PlacePhotoCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PlacePhotoCache Unit Tests")
+class PlacePhotoCacheTest {
+
+    @Mock
+    private PlacePhotoCacheRepository cacheRepository;
+
+    @InjectMocks
+    private PlacePhotoCache placePhotoCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(placePhotoCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(placePhotoCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(placePhotoCache, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(placePhotoCache, "negativeTtl", Duration.ofHours(6));
+        ReflectionTestUtils.setField(placePhotoCache, "persistent", false);
+        placePhotoCache.init();
+    }
+
+    @Test
+    @DisplayName("Should fetch once and serve repeated lookups from memory")
+    void testGet_CachesResult() {
+        // Given
+        AtomicInteger fetches = new AtomicInteger();
+
+        // When
+        List<String> first = placePhotoCache.get("place-1", 3, () -> {
+            fetches.incrementAndGet();
+            return List.of("ref-a", "ref-b");
+        });
+        List<String> second = placePhotoCache.get("place-1", 3, () -> {
+            fetches.incrementAndGet();
+            return List.of("other");
+        });
+
+        // Then
+        assertEquals(List.of("ref-a", "ref-b"), first);
+        assertEquals(first, second);
+        assertEquals(1, fetches.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should cache places without photos")
+    void testGet_NegativeCaching() {
+        // Given
+        AtomicInteger fetches = new AtomicInteger();
+
+        // When
+        placePhotoCache.get("empty", 3, () -> {
+            fetches.incrementAndGet();
+            return List.of();
+        });
+        List<String> result = placePhotoCache.get("empty", 3, () -> {
+            fetches.incrementAndGet();
+            return List.of("unexpected");
+        });
+
+        // Then
+        assertTrue(result.isEmpty());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache failed fetches")
+    void testGet_DoesNotCacheFailures() {
+        // Given
+        assertThrows(IllegalStateException.class, () -> placePhotoCache.get("flaky", 3, () -> {
+            throw new IllegalStateException("OVER_QUERY_LIMIT");
+        }));
+
+        // When
+        List<String> result = placePhotoCache.get("flaky", 3, () -> List.of("ref"));
+
+        // Then
+        assertEquals(List.of("ref"), result);
+    }
+
+    @Test
+    @DisplayName("Should warm from the persisted table before calling Google")
+    void testGet_ReadsFreshPersistedEntry() {
+        // Given
+        ReflectionTestUtils.setField(placePhotoCache, "persistent", true);
+        PlacePhotoCacheEntry stored = new PlacePhotoCacheEntry(
+                "place-2|3", "place-2", 3, "ref-x\nref-y", LocalDateTime.now().minusHours(1));
+        when(cacheRepository.findById("place-2|3")).thenReturn(Optional.of(stored));
+
+        // When
+        List<String> result = placePhotoCache.get("place-2", 3, () -> {
+            throw new AssertionError("Google should not be called");
+        });
+
+        // Then
+        assertEquals(List.of("ref-x", "ref-y"), result);
+        verify(cacheRepository, never()).save(any(PlacePhotoCacheEntry.class));
+    }
+
+    @Test
+    @DisplayName("Should refetch and persist when the stored entry has expired")
+    void testGet_RefreshesExpiredPersistedEntry() {
+        // Given
+        ReflectionTestUtils.setField(placePhotoCache, "persistent", true);
+        PlacePhotoCacheEntry stored = new PlacePhotoCacheEntry(
+                "place-3|3", "place-3", 3, "old-ref", LocalDateTime.now().minusDays(2));
+        when(cacheRepository.findById(anyString())).thenReturn(Optional.of(stored));
+
+        // When
+        List<String> result = placePhotoCache.get("place-3", 3, () -> List.of("new-ref"));
+
+        // Then
+        assertEquals(List.of("new-ref"), result);
+        verify(cacheRepository).save(any(PlacePhotoCacheEntry.class));
+    }
+}
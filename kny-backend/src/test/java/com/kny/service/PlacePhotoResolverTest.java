@@ -0,0 +1,97 @@
+package com.kny.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PlacePhotoResolver Unit Tests")
+class PlacePhotoResolverTest {
+
+    @Mock
+    private GooglePlacesService googlePlacesService;
+
+    @InjectMocks
+    private PlacePhotoResolver placePhotoResolver;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(placePhotoResolver, "maxPhotos", 3);
+        ReflectionTestUtils.setField(placePhotoResolver, "parallelism", 4);
+        ReflectionTestUtils.setField(placePhotoResolver, "queueCapacity", 50);
+        ReflectionTestUtils.setField(placePhotoResolver, "timeoutMs", 300L);
+        placePhotoResolver.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        placePhotoResolver.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should look up each distinct place once")
+    void testResolve_DeduplicatesPlaceIds() {
+        // Given
+        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenReturn(List.of("url"));
+
+        // When
+        Map<String, List<String>> result = placePhotoResolver.resolve(
+                Arrays.asList("place-1", "place-2", "place-1", null, " "));
+
+        // Then
+        assertEquals(2, result.size());
+        verify(googlePlacesService, times(1)).getPlacePhotos("place-1", 3);
+        verify(googlePlacesService, times(1)).getPlacePhotos("place-2", 3);
+    }
+
+    @Test
+    @DisplayName("Should return partial results when a lookup misses the deadline")
+    void testResolve_ReturnsPartialResultsOnTimeout() {
+        // Given
+        when(googlePlacesService.getPlacePhotos("fast", 3)).thenReturn(List.of("fast-url"));
+        when(googlePlacesService.getPlacePhotos("slow", 3)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of("slow-url");
+        });
+
+        // When
+        long start = System.currentTimeMillis();
+        Map<String, List<String>> result = placePhotoResolver.resolve(List.of("slow", "fast"));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then
+        assertEquals(List.of("fast-url"), result.get("fast"));
+        assertFalse(result.containsKey("slow"));
+        assertTrue(elapsed < 2_000, "Resolution should stop at the deadline but took " + elapsed + " ms");
+    }
+
+    @Test
+    @DisplayName("Should skip places whose lookup fails")
+    void testResolve_SkipsFailedLookups() {
+        // Given
+        when(googlePlacesService.getPlacePhotos("ok", 3)).thenReturn(List.of("ok-url"));
+        when(googlePlacesService.getPlacePhotos("broken", 3)).thenThrow(new RuntimeException("boom"));
+
+        // When
+        Map<String, List<String>> result = placePhotoResolver.resolve(List.of("ok", "broken"));
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(List.of("ok-url"), result.get("ok"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.kny.service;
+
+import com.kny.dto.MarketField;
+import com.kny.dto.MarketPhotoResponse;
+import com.kny.dto.MarketResponse;
+import com.kny.dto.MarketWeatherResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReactiveMarketService Unit Tests")
+class ReactiveMarketServiceTest {
+
+    @Mock
+    private MarketService marketService;
+
+    @Mock
+    private ReactiveGooglePlacesService reactiveGooglePlacesService;
+
+    @Mock
+    private ReactiveWeatherService reactiveWeatherService;
+
+    @InjectMocks
+    private ReactiveMarketService reactiveMarketService;
+
+    private MarketResponse market;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reactiveMarketService, "maxPhotos", 3);
+
+        market = new MarketResponse();
+        market.setId(1L);
+        market.setName("Chowrasta Market");
+        market.setGooglePlaceId("place-1");
+        market.setLatitude(new BigDecimal("5.4164"));
+        market.setLongitude(new BigDecimal("100.3327"));
+    }
+
+    @Test
+    @DisplayName("Should read the market without photos, then add photos and weather")
+    void testGetMarketById_Enriched() {
+        // Given
+        WeatherService.WeatherData weather = new WeatherService.WeatherData();
+        weather.currentTemp = 30.0;
+        MarketWeatherResponse marketWeather = new MarketWeatherResponse(30.0, 70, "Clear", 10, "2025-07-03 10:00:00");
+        MarketPhotoResponse photo = new MarketPhotoResponse();
+        photo.setPhotoUrl("https://example.com/photo.jpg");
+        when(marketService.getMarketById(eq(1L), argThat(fields -> !fields.contains(MarketField.PHOTOS))))
+                .thenReturn(Optional.of(market));
+        when(reactiveGooglePlacesService.getPlacePhotos("place-1", 3)).thenReturn(Mono.just(List.of("ref-url")));
+        when(marketService.toPhotoResponses(List.of("ref-url"))).thenReturn(List.of(photo));
+        when(reactiveWeatherService.getWeather(5.4164, 100.3327)).thenReturn(Mono.just(weather));
+        when(marketService.toMarketWeather(weather)).thenReturn(marketWeather);
+
+        // When
+        MarketResponse result = reactiveMarketService.getMarketById(1L).block();
+
+        // Then
+        assertNotNull(result);
+        assertEquals(List.of(photo), result.getPhotos());
+        assertSame(marketWeather, result.getWeather());
+    }
+
+    @Test
+    @DisplayName("Should keep prefetched weather and survive a failed photo lookup")
+    void testGetMarketById_PrefetchedWeather() {
+        // Given
+        MarketWeatherResponse prefetched = new MarketWeatherResponse(28.0, 80, "Cloudy", 20, "2025-07-03 10:00:00");
+        market.setWeather(prefetched);
+        when(marketService.getMarketById(eq(1L), any())).thenReturn(Optional.of(market));
+        // Failures are turned into an empty list inside the places service
+        when(reactiveGooglePlacesService.getPlacePhotos("place-1", 3)).thenReturn(Mono.just(List.of()));
+        when(marketService.toPhotoResponses(List.of())).thenReturn(List.of());
+
+        // When
+        MarketResponse result = reactiveMarketService.getMarketById(1L).block();
+
+        // Then - no upstream weather call
+        assertNotNull(result);
+        assertSame(prefetched, result.getWeather());
+        verify(reactiveWeatherService, never()).getWeather(anyDouble(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should complete empty when the market does not exist")
+    void testGetMarketById_NotFound() {
+        // Given
+        when(marketService.getMarketById(eq(999L), any())).thenReturn(Optional.empty());
+
+        // When & Then
+        assertNull(reactiveMarketService.getMarketById(999L).block());
+        verifyNoInteractions(reactiveGooglePlacesService, reactiveWeatherService);
+    }
+}
@@ -0,0 +1,121 @@
+package com.kny.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReactiveWeatherService Unit Tests")
+class ReactiveWeatherServiceTest {
+
+    private static final String FORECAST = """
+            {
+                "current": {
+                    "temperature_2m": 29.5,
+                    "relative_humidity_2m": 78,
+                    "weather_code": 2,
+                    "time": "2025-07-03T10:00"
+                },
+                "daily": {
+                    "time": ["2025-07-03"],
+                    "temperature_2m_max": [32.0],
+                    "temperature_2m_min": [25.0],
+                    "weather_code": [2],
+                    "precipitation_probability_max": [20]
+                }
+            }
+            """;
+
+    private ReactiveWeatherService reactiveWeatherService;
+    private WeatherCache weatherCache;
+    private List<String> requestedUrls;
+
+    @BeforeEach
+    void setUp() {
+        weatherCache = new WeatherCache();
+        ReflectionTestUtils.setField(weatherCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherCache, "cellSize", 0.05);
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherCache, "maxStale", Duration.ofHours(6));
+        ReflectionTestUtils.setField(weatherCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(weatherCache, "refreshThreads", 1);
+        weatherCache.init();
+
+        WeatherService weatherService = new WeatherService();
+        ReflectionTestUtils.setField(weatherService, "apiUrl", "https://api.open-meteo.com/v1/forecast");
+        ReflectionTestUtils.setField(weatherService, "timezone", "Asia/Kuala_Lumpur");
+
+        reactiveWeatherService = new ReactiveWeatherService();
+        ReflectionTestUtils.setField(reactiveWeatherService, "weatherService", weatherService);
+        ReflectionTestUtils.setField(reactiveWeatherService, "weatherCache", weatherCache);
+        requestedUrls = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherCache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should decode the WebClient response and cache it for the grid cell")
+    void testGetWeather_FetchesOnceAndCaches() {
+        // Given
+        respondWith(HttpStatus.OK, FORECAST);
+
+        // When
+        WeatherService.WeatherData first = reactiveWeatherService.getWeather(5.4164, 100.3327).block();
+        WeatherService.WeatherData second = reactiveWeatherService.getWeather(5.4100, 100.3400).block();
+
+        // Then
+        assertNotNull(first);
+        assertEquals(29.5, first.currentTemp);
+        assertEquals("Partly Cloudy", first.condition);
+        assertEquals(20, first.forecast.get(0).rainChance);
+        assertSame(first, second);
+        assertEquals(1, requestedUrls.size());
+        assertTrue(requestedUrls.get(0).contains("latitude=5.4000&longitude=100.3500"));
+        // The blocking path sees the same cached entry
+        assertSame(first, weatherCache.peek(5.4164, 100.3327));
+    }
+
+    @Test
+    @DisplayName("Should fail with the usual message and cache nothing on an upstream error")
+    void testGetWeather_UpstreamError() {
+        // Given
+        respondWith(HttpStatus.SERVICE_UNAVAILABLE, "{}");
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> reactiveWeatherService.getWeather(5.4164, 100.3327).block());
+        assertTrue(exception.getMessage().contains("Failed to get weather"));
+        assertNull(weatherCache.peek(5.4164, 100.3327));
+    }
+
+    private void respondWith(HttpStatus status, String body) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requestedUrls.add(request.url().toString());
+                    return Mono.just(ClientResponse.create(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+        ReflectionTestUtils.setField(reactiveWeatherService, "webClient", webClient);
+    }
+}
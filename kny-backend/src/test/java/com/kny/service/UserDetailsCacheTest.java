@@ -0,0 +1,120 @@
+package com.kny.service;
+
+import com.kny.event.UserChangedEvent;
+import com.kny.model.User;
+import com.kny.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDetailsCache Unit Tests")
+class UserDetailsCacheTest {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache userDetailsCache;
+    private ProviderManager authenticationManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache();
+        ReflectionTestUtils.setField(userDetailsCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(userDetailsCache, "enabled", true);
+        ReflectionTestUtils.setField(userDetailsCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(userDetailsCache, "ttl", Duration.ofMinutes(5));
+        userDetailsCache.init();
+
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", userDetailsCache);
+
+        // As in SecurityConfig; ProviderManager erases the principal's password after each login
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(ENCODER);
+        authenticationManager = new ProviderManager(provider);
+    }
+
+    @Test
+    @DisplayName("Should authenticate repeatedly with one database lookup")
+    void testRepeatedLogins_ServedFromCache() {
+        // Given
+        when(userRepository.findActiveUserByEmail("john@example.com")).thenReturn(Optional.of(user("password123")));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(login("john@example.com", "password123"));
+        }
+
+        // Then
+        verify(userRepository, times(1)).findActiveUserByEmail("john@example.com");
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", UserDetailsCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should stop accepting the old password once the user row changes")
+    void testPasswordChange_Invalidates() {
+        // Given
+        when(userRepository.findActiveUserByEmail("john@example.com"))
+                .thenReturn(Optional.of(user("password123")))
+                .thenReturn(Optional.of(user("newPassword456")));
+        assertTrue(login("john@example.com", "password123"));
+
+        // When - what UserEntityListener publishes after UserService.changePassword saves
+        userDetailsCache.onUserChanged(new UserChangedEvent(user("newPassword456"), false));
+
+        // Then
+        assertThrows(BadCredentialsException.class, () -> login("john@example.com", "password123"));
+        assertTrue(login("john@example.com", "newPassword456"));
+    }
+
+    @Test
+    @DisplayName("Should not cache unknown users")
+    void testUnknownUser_NotCached() {
+        // Given
+        when(userRepository.findActiveUserByEmail("nobody@example.com")).thenReturn(Optional.empty());
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", userDetailsCache);
+
+        // When / Then
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nobody@example.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nobody@example.com"));
+        verify(userRepository, times(2)).findActiveUserByEmail("nobody@example.com");
+    }
+
+    private boolean login(String email, String password) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password))
+                .isAuthenticated();
+    }
+
+    private User user(String password) {
+        User user = new User("John Doe", "john@example.com");
+        user.setPassword(ENCODER.encode(password));
+        user.setIsActive(true);
+        return user;
+    }
+}
@@ -0,0 +1,114 @@
+package com.kny.service;
+
+import com.kny.event.UserChangedEvent;
+import com.kny.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UserProfileCache Unit Tests")
+class UserProfileCacheTest {
+
+    private UserProfileCache userProfileCache;
+
+    private AtomicInteger loads;
+
+    private Function<String, User> loader;
+
+    @BeforeEach
+    void setUp() {
+        userProfileCache = new UserProfileCache();
+        ReflectionTestUtils.setField(userProfileCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userProfileCache, "enabled", true);
+        ReflectionTestUtils.setField(userProfileCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(userProfileCache, "ttl", Duration.ofMinutes(5));
+        userProfileCache.init();
+
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            return new User("John Doe", email);
+        };
+    }
+
+    @Test
+    @DisplayName("Should load a user once and serve repeat lookups from memory")
+    void testGet_CachesUser() {
+        // When
+        User first = userProfileCache.get("john@example.com", loader);
+        User second = userProfileCache.get("john@example.com", loader);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should reload a user after the row is saved")
+    void testOnUserChanged_Invalidates() {
+        // Given
+        User cached = userProfileCache.get("john@example.com", loader);
+
+        // When
+        userProfileCache.onUserChanged(new UserChangedEvent(new User("John Doe", "john@example.com"), false));
+        User reloaded = userProfileCache.get("john@example.com", loader);
+
+        // Then
+        assertNotSame(cached, reloaded);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should share one entry however the email is spelled")
+    void testGet_NormalisesEmail() {
+        // Given
+        User cached = userProfileCache.get(" John@Example.com", loader);
+
+        // When
+        User again = userProfileCache.get("john@example.com", loader);
+        userProfileCache.onUserChanged(new UserChangedEvent(new User("John Doe", "JOHN@EXAMPLE.COM"), false));
+        User reloaded = userProfileCache.get("John@Example.com ", loader);
+
+        // Then
+        assertSame(cached, again);
+        assertNotSame(cached, reloaded);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed lookup")
+    void testGet_DoesNotCacheMissingUser() {
+        // Given
+        Function<String, User> missing = email -> {
+            loads.incrementAndGet();
+            throw new RuntimeException("User not found with email: " + email);
+        };
+
+        // When / Then
+        assertThrows(RuntimeException.class, () -> userProfileCache.get("nobody@example.com", missing));
+        assertThrows(RuntimeException.class, () -> userProfileCache.get("nobody@example.com", missing));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should call the loader every time when disabled")
+    void testGet_Disabled() {
+        // Given
+        ReflectionTestUtils.setField(userProfileCache, "enabled", false);
+
+        // When
+        userProfileCache.get("john@example.com", loader);
+        userProfileCache.get("john@example.com", loader);
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+}
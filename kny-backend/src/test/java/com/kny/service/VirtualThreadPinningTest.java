@@ -0,0 +1,222 @@
+package com.kny.service;
+
+import com.kny.util.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the blocking paths shared by request threads and worker pools on
+ * virtual threads and fails if any of them parks while holding a monitor,
+ * which would pin the carrier thread. Uses the JFR jdk.VirtualThreadPinned
+ * event, so it only runs on JDK 21 (mvn test -Pvirtual-threads).
+ */
+@ExtendWith(MockitoExtension.class)
+@EnabledForJreRange(min = JRE.JAVA_21)
+@DisplayName("Virtual thread pinning checks")
+class VirtualThreadPinningTest {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Mock
+    private GooglePlacesService googlePlacesService;
+
+    private VirtualThreadTaskExecutor virtualExecutor;
+
+    @BeforeEach
+    void setUp() {
+        virtualExecutor = new VirtualThreadTaskExecutor("pinning-test-");
+    }
+
+    @Test
+    @DisplayName("Should detect a thread parking inside synchronized")
+    void testDetectsPinning() throws Throwable {
+        // Given
+        Object monitor = new Object();
+
+        // When
+        List<RecordedEvent> pinned = pinnedEventsDuring(() -> runOnVirtualThreads(1, () -> {
+            synchronized (monitor) {
+                Thread.sleep(50);
+            }
+            return null;
+        }));
+
+        // Then - otherwise the checks below would pass vacuously
+        assertFalse(pinned.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not pin while waiting for a sync rate-limit token")
+    void testTokenBucket_NoPinning() throws Throwable {
+        // Given - 40 waiters on a 200/s bucket spend ~200 ms sleeping for tokens
+        TokenBucket tokenBucket = new TokenBucket(200, 1);
+
+        // When
+        List<RecordedEvent> pinned = pinnedEventsDuring(() -> runOnVirtualThreads(40, () -> {
+            tokenBucket.acquire();
+            return null;
+        }));
+
+        // Then
+        assertNoPinning(pinned);
+    }
+
+    @Test
+    @DisplayName("Should not pin while waiting on a coalesced weather fetch")
+    void testWeatherCache_NoPinning() throws Throwable {
+        // Given
+        WeatherCache weatherCache = weatherCache();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // When - every caller lands in the same cell and waits on one slow fetch
+        List<RecordedEvent> pinned;
+        try {
+            pinned = pinnedEventsDuring(() -> runOnVirtualThreads(50, () -> weatherCache.get(5.4164, 100.3327,
+                    (lat, lon) -> {
+                        upstreamCalls.incrementAndGet();
+                        sleep(100);
+                        return new WeatherService.WeatherData();
+                    })));
+        } finally {
+            weatherCache.shutdown();
+        }
+
+        // Then
+        assertNoPinning(pinned);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    @DisplayName("Should resolve photos on virtual workers without pinning")
+    void testPlacePhotoResolver_NoPinning() throws Throwable {
+        // Given
+        PlacePhotoResolver placePhotoResolver = new PlacePhotoResolver();
+        ReflectionTestUtils.setField(placePhotoResolver, "googlePlacesService", googlePlacesService);
+        ReflectionTestUtils.setField(placePhotoResolver, "maxPhotos", 3);
+        ReflectionTestUtils.setField(placePhotoResolver, "parallelism", 4);
+        ReflectionTestUtils.setField(placePhotoResolver, "queueCapacity", 100);
+        ReflectionTestUtils.setField(placePhotoResolver, "timeoutMs", 2_000L);
+        ReflectionTestUtils.setField(placePhotoResolver, "virtualThreads", true);
+        placePhotoResolver.init();
+
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        when(googlePlacesService.getPlacePhotos(anyString(), anyInt())).thenAnswer(invocation -> {
+            workers.add(Thread.currentThread());
+            Thread.sleep(20);
+            return List.of("url");
+        });
+        List<String> placeIds = IntStream.range(0, 12).mapToObj(i -> "place-" + i).collect(Collectors.toList());
+
+        // When
+        List<RecordedEvent> pinned;
+        List<Map<String, List<String>>> results = new ArrayList<>();
+        try {
+            pinned = pinnedEventsDuring(() -> results.addAll(
+                    runOnVirtualThreads(5, () -> placePhotoResolver.resolve(placeIds))));
+        } finally {
+            placePhotoResolver.shutdown();
+        }
+
+        // Then
+        assertNoPinning(pinned);
+        results.forEach(result -> assertEquals(12, result.size()));
+        assertFalse(workers.isEmpty());
+        for (Thread worker : workers) {
+            assertTrue(isVirtual(worker), worker.getName());
+            assertTrue(worker.getName().startsWith("place-photos-"), worker.getName());
+        }
+    }
+
+    private WeatherCache weatherCache() {
+        WeatherCache weatherCache = new WeatherCache();
+        ReflectionTestUtils.setField(weatherCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherCache, "cellSize", 0.05);
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherCache, "maxStale", Duration.ofHours(6));
+        ReflectionTestUtils.setField(weatherCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(weatherCache, "refreshThreads", 1);
+        ReflectionTestUtils.setField(weatherCache, "virtualThreads", true);
+        weatherCache.init();
+        return weatherCache;
+    }
+
+    private <T> List<T> runOnVirtualThreads(int count, Callable<T> task) throws Exception {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(virtualExecutor.submit(task));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private List<RecordedEvent> pinnedEventsDuring(Executable workload) throws Throwable {
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+                recording.start();
+                workload.execute();
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void assertNoPinning(List<RecordedEvent> pinned) {
+        assertTrue(pinned.isEmpty(), () -> "Carrier threads pinned:\n" + pinned);
+    }
+
+    // Thread.isVirtual() is JDK 21 API and the main build still targets 17
+    private boolean isVirtual(Thread thread) throws Exception {
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
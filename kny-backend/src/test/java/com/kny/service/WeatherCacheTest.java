@@ -0,0 +1,249 @@
+package com.kny.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WeatherCache Unit Tests")
+class WeatherCacheTest {
+
+    private WeatherCache weatherCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        weatherCache = new WeatherCache();
+        ReflectionTestUtils.setField(weatherCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(weatherCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherCache, "cellSize", 0.05);
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherCache, "maxStale", Duration.ofHours(6));
+        ReflectionTestUtils.setField(weatherCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(weatherCache, "refreshThreads", 1);
+        weatherCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherCache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should share one fetch between nearby coordinates in the same cell")
+    void testGet_SameCell() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        List<double[]> requested = new ArrayList<>();
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            calls.incrementAndGet();
+            requested.add(new double[]{lat, lon});
+            return weather(28.0);
+        };
+
+        // When - about 1 km apart
+        WeatherService.WeatherData first = weatherCache.get(5.4164, 100.3327, fetcher);
+        WeatherService.WeatherData second = weatherCache.get(5.4100, 100.3400, fetcher);
+
+        // Then - fetched once, at the cell centre
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        assertEquals(5.40, requested.get(0)[0], 1e-9);
+        assertEquals(100.35, requested.get(0)[1], 1e-9);
+        assertEquals(0.5, meterRegistry.get("weather.cache.hit.ratio").gauge().value());
+        assertEquals(1.0, meterRegistry.get("weather.upstream.saved").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should fetch separately for a different cell")
+    void testGet_DifferentCell() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> weather(calls.incrementAndGet());
+
+        // When
+        weatherCache.get(5.4164, 100.3327, fetcher);
+        weatherCache.get(3.1390, 101.6869, fetcher);
+
+        // Then
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent misses for one cell into a single upstream call")
+    void testGet_CoalescesConcurrentMisses() throws Exception {
+        // Given - the fetch blocks until every caller has arrived
+        int callers = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return weather(30.0);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            // When
+            List<Future<WeatherService.WeatherData>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> weatherCache.get(5.4164, 100.3327, fetcher)));
+            }
+            waitForRequests(callers);
+            release.countDown();
+
+            // Then
+            for (Future<WeatherService.WeatherData> result : results) {
+                assertEquals(30.0, result.get(5, TimeUnit.SECONDS).currentTemp);
+            }
+            assertEquals(1, calls.get());
+            assertEquals(callers - 1.0, meterRegistry.get("weather.cache.requests").tag("result", "coalesced").counter().count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve stale data while refreshing in the background")
+    void testGet_StaleWhileRevalidate() throws Exception {
+        // Given - every entry is immediately past its TTL
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            if (calls.incrementAndGet() == 2) {
+                refreshed.countDown();
+            }
+            return weather(calls.get());
+        };
+        weatherCache.get(5.4164, 100.3327, fetcher);
+
+        // When
+        WeatherService.WeatherData stale = weatherCache.get(5.4164, 100.3327, fetcher);
+
+        // Then - the old value comes back at once and the refresh replaces it
+        assertEquals(1.0, stale.currentTemp);
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        waitForUpstreamCalls(2);
+        assertEquals(2.0, weatherCache.get(5.4164, 100.3327, fetcher).currentTemp);
+    }
+
+    @Test
+    @DisplayName("Should keep serving stale data when a refresh fails")
+    void testGet_RefreshFailureKeepsStale() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new RuntimeException("Failed to get weather: timeout");
+            }
+            return weather(27.0);
+        };
+        weatherCache.get(5.4164, 100.3327, fetcher);
+
+        // When
+        weatherCache.get(5.4164, 100.3327, fetcher);
+        waitForUpstreamCalls(2);
+
+        // Then
+        assertEquals(27.0, weatherCache.get(5.4164, 100.3327, fetcher).currentTemp);
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed fetch")
+    void testGet_FailureNotCached() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new RuntimeException("Failed to get weather: Network error");
+            }
+            return weather(26.0);
+        };
+
+        // When
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> weatherCache.get(5.4164, 100.3327, fetcher));
+        WeatherService.WeatherData retried = weatherCache.get(5.4164, 100.3327, fetcher);
+
+        // Then
+        assertTrue(exception.getMessage().contains("Network error"));
+        assertEquals(26.0, retried.currentTemp);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should pass exact coordinates through when disabled")
+    void testGet_Disabled() {
+        // Given
+        ReflectionTestUtils.setField(weatherCache, "enabled", false);
+        List<double[]> requested = new ArrayList<>();
+        BiFunction<Double, Double, WeatherService.WeatherData> fetcher = (lat, lon) -> {
+            requested.add(new double[]{lat, lon});
+            return weather(25.0);
+        };
+
+        // When
+        weatherCache.get(5.4164, 100.3327, fetcher);
+        weatherCache.get(5.4164, 100.3327, fetcher);
+
+        // Then
+        assertEquals(2, requested.size());
+        assertEquals(5.4164, requested.get(0)[0]);
+    }
+
+    private void waitForRequests(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            double seen = meterRegistry.get("weather.cache.requests").counters().stream()
+                    .mapToDouble(counter -> counter.count()).sum();
+            if (seen >= expected) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Callers did not reach the cache");
+    }
+
+    private void waitForUpstreamCalls(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // The in-flight entry is cleared just after the fetch returns
+        while (System.nanoTime() < deadline) {
+            if (meterRegistry.get("weather.upstream.calls").counter().count() >= expected
+                    && ((Map<?, ?>) ReflectionTestUtils.getField(weatherCache, "inFlight")).isEmpty()) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Refresh did not finish");
+    }
+
+    private WeatherService.WeatherData weather(double temp) {
+        WeatherService.WeatherData data = new WeatherService.WeatherData();
+        data.currentTemp = temp;
+        data.condition = "Clear";
+        return data;
+    }
+}
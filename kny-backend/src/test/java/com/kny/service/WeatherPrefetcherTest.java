@@ -0,0 +1,135 @@
+package com.kny.service;
+
+import com.kny.repository.MarketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WeatherPrefetcher Unit Tests")
+class WeatherPrefetcherTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @Mock
+    private WeatherService weatherService;
+
+    @InjectMocks
+    private WeatherPrefetcher weatherPrefetcher;
+
+    private WeatherCache weatherCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        weatherCache = new WeatherCache();
+        ReflectionTestUtils.setField(weatherCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(weatherCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherCache, "cellSize", 0.05);
+        ReflectionTestUtils.setField(weatherCache, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherCache, "maxStale", Duration.ofHours(6));
+        ReflectionTestUtils.setField(weatherCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(weatherCache, "refreshThreads", 1);
+        weatherCache.init();
+
+        ReflectionTestUtils.setField(weatherPrefetcher, "weatherCache", weatherCache);
+        ReflectionTestUtils.setField(weatherPrefetcher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(weatherPrefetcher, "enabled", true);
+        ReflectionTestUtils.setField(weatherPrefetcher, "batchSize", 2);
+        weatherPrefetcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherCache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should fetch each grid cell once, in multi-location batches")
+    void testRunOnce_BatchesCells() {
+        // Given - the first two markets share a cell
+        when(marketRepository.findDistinctCoordinates()).thenReturn(List.of(
+                coordinates("5.4164", "100.3327"),
+                coordinates("5.4100", "100.3400"),
+                coordinates("5.3500", "100.3000"),
+                coordinates("3.1390", "101.6869")));
+        when(weatherService.fetchWeather(List.of(5.40, 5.35), List.of(100.35, 100.30)))
+                .thenReturn(List.of(weather(28.0), weather(29.0)));
+        when(weatherService.fetchWeather(List.of(3.15), List.of(101.7)))
+                .thenReturn(List.of(weather(32.0)));
+
+        // When
+        int fetched = weatherPrefetcher.runOnce();
+
+        // Then - market lookups are answered from the cache
+        assertEquals(3, fetched);
+        verify(weatherService, times(2)).fetchWeather(anyList(), anyList());
+        assertEquals(28.0, weatherCache.peek(5.4164, 100.3327).currentTemp);
+        assertEquals(28.0, weatherCache.peek(5.4100, 100.3400).currentTemp);
+        assertEquals(32.0, weatherCache.peek(3.1390, 101.6869).currentTemp);
+    }
+
+    @Test
+    @DisplayName("Should keep going when one batch fails")
+    void testRunOnce_FailedBatch() {
+        // Given
+        when(marketRepository.findDistinctCoordinates()).thenReturn(List.of(
+                coordinates("5.4164", "100.3327"),
+                coordinates("5.3500", "100.3000"),
+                coordinates("3.1390", "101.6869")));
+        when(weatherService.fetchWeather(eq(List.of(5.40, 5.35)), anyList()))
+                .thenThrow(new RuntimeException("Failed to get weather: timeout"));
+        when(weatherService.fetchWeather(eq(List.of(3.15)), anyList()))
+                .thenReturn(List.of(weather(32.0)));
+
+        // When
+        int fetched = weatherPrefetcher.runOnce();
+
+        // Then
+        assertEquals(1, fetched);
+        assertNull(weatherCache.peek(5.4164, 100.3327));
+        assertEquals(2.0, meterRegistry.get("weather.prefetch.cells").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when prefetching is disabled")
+    void testTick_Disabled() {
+        // Given
+        ReflectionTestUtils.setField(weatherPrefetcher, "enabled", false);
+
+        // When
+        weatherPrefetcher.tick();
+
+        // Then
+        verifyNoInteractions(marketRepository, weatherService);
+    }
+
+    private Object[] coordinates(String latitude, String longitude) {
+        return new Object[]{new BigDecimal(latitude), new BigDecimal(longitude)};
+    }
+
+    private WeatherService.WeatherData weather(double temp) {
+        WeatherService.WeatherData data = new WeatherService.WeatherData();
+        data.currentTemp = temp;
+        data.condition = "Clear";
+        return data;
+    }
+}
@@ -9,12 +9,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiFunction;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +36,9 @@ class WeatherServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private WeatherCache weatherCache;
+
     @InjectMocks
     private WeatherService weatherService;
 
@@ -33,6 +48,11 @@ class WeatherServiceTest {
         ReflectionTestUtils.setField(weatherService, "defaultLat", 5.4164);
         ReflectionTestUtils.setField(weatherService, "defaultLon", 100.3327);
         ReflectionTestUtils.setField(weatherService, "timezone", "Asia/Kuala_Lumpur");
+        // Pass straight through to the fetcher; caching is covered by WeatherCacheTest
+        lenient().when(weatherCache.get(anyDouble(), anyDouble(), any())).thenAnswer(invocation -> {
+            BiFunction<Double, Double, WeatherService.WeatherData> fetcher = invocation.getArgument(2);
+            return fetcher.apply(invocation.getArgument(0), invocation.getArgument(1));
+        });
     }
 
     @Test
@@ -57,7 +77,7 @@ class WeatherServiceTest {
             }
             """;
         
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(mockResponse);
+        respondWith(mockResponse);
 
         // When
         WeatherService.WeatherData result = weatherService.getWeather(5.4164, 100.3327);
@@ -70,14 +90,14 @@ class WeatherServiceTest {
         assertNotNull(result.forecast);
         assertEquals(2, result.forecast.size());
         
-        verify(restTemplate).getForObject(anyString(), eq(String.class));
+        verify(restTemplate).execute(anyString(), eq(HttpMethod.GET), isNull(), anyExtractor());
     }
 
     @Test
     @DisplayName("Should handle network error")
     void testGetWeather_NetworkError() {
         // Given
-        when(restTemplate.getForObject(anyString(), eq(String.class)))
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), isNull(), anyExtractor()))
             .thenThrow(new RuntimeException("Network error"));
 
         // When & Then
@@ -86,7 +106,7 @@ class WeatherServiceTest {
         });
         
         assertTrue(exception.getMessage().contains("Failed to get weather"));
-        verify(restTemplate).getForObject(anyString(), eq(String.class));
+        verify(restTemplate).execute(anyString(), eq(HttpMethod.GET), isNull(), anyExtractor());
     }
 
     @Test
@@ -111,7 +131,7 @@ class WeatherServiceTest {
             }
             """;
         
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn(mockResponse);
+        respondWith(mockResponse);
 
         // When
         WeatherService.WeatherData result = weatherService.getWeather();
@@ -120,6 +140,109 @@ class WeatherServiceTest {
         assertNotNull(result);
         assertEquals(29.0, result.currentTemp);
         assertEquals("Partly Cloudy", result.condition);
-        verify(restTemplate).getForObject(anyString(), eq(String.class));
+        verify(restTemplate).execute(anyString(), eq(HttpMethod.GET), isNull(), anyExtractor());
+    }
+
+    @Test
+    @DisplayName("Should fetch several locations in one request")
+    void testFetchWeather_MultipleLocations() {
+        // Given
+        String location = """
+            {
+                "current": {
+                    "temperature_2m": %s,
+                    "relative_humidity_2m": 80,
+                    "weather_code": 3,
+                    "time": "2025-07-03T10:00"
+                },
+                "daily": {
+                    "time": ["2025-07-03"],
+                    "temperature_2m_max": [31.0],
+                    "temperature_2m_min": [25.0],
+                    "weather_code": [3],
+                    "precipitation_probability_max": [60]
+                }
+            }
+            """;
+        String mockResponse = "[" + String.format(location, "27.5") + "," + String.format(location, "24.0") + "]";
+        respondWith(mockResponse);
+
+        // When
+        List<WeatherService.WeatherData> result = weatherService.fetchWeather(
+                List.of(5.40, 4.60), List.of(100.35, 101.10));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(27.5, result.get(0).currentTemp);
+        assertEquals(24.0, result.get(1).currentTemp);
+        assertEquals("Cloudy", result.get(1).condition);
+        verify(restTemplate).execute(contains("latitude=5.4000,4.6000&longitude=100.3500,101.1000"),
+                eq(HttpMethod.GET), isNull(), anyExtractor());
+    }
+
+    @Test
+    @DisplayName("Should skip unknown fields and keep missing rain chance at zero")
+    void testGetWeather_UnknownFieldsAndNulls() {
+        // Given
+        String mockResponse = """
+            {
+                "latitude": 5.4,
+                "generationtime_ms": 0.05,
+                "current_units": {"temperature_2m": "°C"},
+                "current": {
+                    "interval": 900,
+                    "temperature_2m": 27.0,
+                    "relative_humidity_2m": 85,
+                    "weather_code": 61,
+                    "time": "2025-07-03T11:00"
+                },
+                "daily": {
+                    "time": ["2025-07-03", "2025-07-04"],
+                    "temperature_2m_max": [30.0, 31.0],
+                    "temperature_2m_min": [24.0, 25.0],
+                    "weather_code": [61, 95],
+                    "precipitation_probability_max": [null, 70]
+                }
+            }
+            """;
+        respondWith(mockResponse);
+
+        // When
+        WeatherService.WeatherData result = weatherService.getWeather(5.4164, 100.3327);
+
+        // Then
+        assertEquals(27.0, result.currentTemp);
+        assertEquals("Rain", result.condition);
+        assertEquals("2025-07-03T11:00", result.time);
+        assertEquals(0, result.forecast.get(0).rainChance);
+        assertEquals(70, result.forecast.get(1).rainChance);
+        assertEquals("Thunderstorm", result.forecast.get(1).condition);
+        assertEquals("2025-07-04", result.forecast.get(1).date);
+    }
+
+    @Test
+    @DisplayName("Should fail when the response has no current conditions")
+    void testGetWeather_MissingCurrent() {
+        // Given
+        respondWith("{\"daily\": {\"time\": []}}");
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> weatherService.getWeather(5.4164, 100.3327));
+        assertTrue(exception.getMessage().contains("Failed to get weather"));
+    }
+
+    // Hand the body to the service's response extractor, as RestTemplate would
+    private void respondWith(String body) {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), isNull(), anyExtractor()))
+                .thenAnswer(invocation -> {
+                    ResponseExtractor<?> extractor = invocation.getArgument(3);
+                    return extractor.extractData(
+                            new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+                });
+    }
+
+    private static ResponseExtractor<List<WeatherService.WeatherData>> anyExtractor() {
+        return any();
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Schema migration Tests")
+class SchemaMigrationTest {
+
+    private static final Set<String> ENTITY_INDEXES = Set.of("IDX_MARKETS_LAT_LON", "IDX_MARKETS_LAST_GOOGLE_SYNC",
+            "IDX_MARKET_SYNC_STATE_NEXT_ATTEMPT", "IDX_USERS_OAUTH_PROVIDER_ID", "IDX_MARKETS_NAME",
+            "IDX_MARKETS_IS_COVERED", "IDX_USERS_IS_ACTIVE");
+
+    @Test
+    @DisplayName("Should build the whole schema on an empty database")
+    void testMigrate_EmptyDatabase() throws SQLException {
+        // Given
+        JdbcDataSource dataSource = dataSource();
+
+        // When
+        flyway(dataSource).migrate();
+
+        // Then
+        assertEquals("3", flyway(dataSource).info().current().getVersion().getVersion());
+        assertTrue(indexNames(dataSource).containsAll(ENTITY_INDEXES));
+    }
+
+    @Test
+    @DisplayName("Should baseline a database imported from the dump and add only what is missing")
+    void testMigrate_ImportedDatabase() throws SQLException {
+        // Given - the dump, plus part of what ddl-auto=update added while the app ran
+        JdbcDataSource dataSource = dataSource();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+            statement.execute("CREATE TABLE market_sync_state (market_id BIGINT NOT NULL PRIMARY KEY, " +
+                    "status VARCHAR(20) NOT NULL, consecutive_failures INT NOT NULL, last_error VARCHAR(500), " +
+                    "last_attempt_at TIMESTAMP NOT NULL, next_attempt_at TIMESTAMP)");
+            statement.execute("CREATE INDEX idx_markets_lat_lon ON markets (latitude, longitude)");
+        }
+
+        // When
+        flyway(dataSource).migrate();
+
+        // Then
+        assertEquals("3", flyway(dataSource).info().current().getVersion().getVersion());
+        assertTrue(indexNames(dataSource).containsAll(ENTITY_INDEXES));
+        assertTrue(tableExists(dataSource, "PLACE_PHOTO_CACHE"));
+    }
+
+    private JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    // Configured as in application.properties
+    private Flyway flyway(JdbcDataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    private Set<String> indexNames(JdbcDataSource dataSource) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String table : new String[]{"MARKETS", "USERS", "MARKET_SYNC_STATE"}) {
+                try (ResultSet indexes = connection.getMetaData().getIndexInfo(null, "PUBLIC", table, false, true)) {
+                    while (indexes.next()) {
+                        names.add(indexes.getString("INDEX_NAME"));
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private boolean tableExists(JdbcDataSource dataSource, String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData().getTables(null, "PUBLIC", table, null)) {
+            return tables.next();
+        }
+    }
+}